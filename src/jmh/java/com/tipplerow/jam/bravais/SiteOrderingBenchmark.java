@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the effect of the site ordering on neighbor-heavy
+ * workloads over site-indexed arrays: Eden growth and a full sweep
+ * of neighbor counts on an FCC lattice.
+ *
+ * @author Scott Shaffer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SiteOrderingBenchmark {
+    @Param({ "ROW_MAJOR", "TILED", "MORTON", "HILBERT" })
+    private SiteOrdering ordering;
+
+    @Param({ "128" })
+    private int length;
+
+    private Lattice lattice;
+    private SpeciesPopulation<Integer> population;
+
+    @Setup(Level.Trial) public void setup() {
+        lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(ordering, length, length, length));
+        population = SpeciesPopulation.empty(lattice, 2);
+
+        // Fill one half of the sites at random...
+        Random random = new Random(20211231);
+        int serial = 0;
+
+        for (UnitIndex index : lattice.getPeriod().enumerate())
+            if (random.nextBoolean())
+                population.place(serial++, random.nextInt(2), index);
+    }
+
+    @Benchmark public long growth() {
+        Object cell = new Object();
+        GrowthEngine<Object> engine = GrowthEngine.create(lattice, parent -> cell, DivisionRule.always(), new Random(1));
+
+        engine.place(cell, UnitIndex.at(0, 0, 0));
+        return engine.growTo(1000000);
+    }
+
+    @Benchmark public long neighborSweep() {
+        long total = 0;
+        int capacity = lattice.siteCapacity();
+
+        for (int site = 0; site < capacity; ++site)
+            if (lattice.containsSite(site))
+                total += population.countNeighbors(site, 0);
+
+        return total;
+    }
+}
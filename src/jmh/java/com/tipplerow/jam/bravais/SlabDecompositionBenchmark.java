@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the parallel scaling of a random walk on a slab-decomposed
+ * FCC lattice, with one slab per thread.
+ *
+ * @author Scott Shaffer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SlabDecompositionBenchmark {
+    @Param({ "1", "2", "4", "8", "16", "32", "64" })
+    private int threads;
+
+    @Param({ "128" })
+    private int length;
+
+    private ExecutorService executor;
+    private SlabDecomposition<Integer> decomposition;
+
+    private static final SlabKernel<Integer> RANDOM_WALK = slab ->
+        slab.forEachOccupied(index -> {
+                UnitIndex target = slab.neighborOf(index, slab.getRandom().nextInt(slab.countNeighbors()));
+                slab.move(index, target);
+            });
+
+    @Setup(Level.Trial) public void setup() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.cubic(length));
+        Population<Integer> population = Population.empty(lattice);
+        List<UnitIndex> indexes = lattice.getPeriod().enumerate();
+
+        // Occupy one quarter of the sites at random...
+        Collections.shuffle(indexes, new Random(20211231));
+
+        for (int occupant = 0; occupant < indexes.size() / 4; ++occupant)
+            population.place(occupant, indexes.get(occupant));
+
+        executor = Executors.newFixedThreadPool(threads);
+        decomposition = SlabDecomposition.create(population, threads, 1);
+    }
+
+    @TearDown(Level.Trial) public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark public long step() {
+        decomposition.step(RANDOM_WALK, executor);
+        return decomposition.countSteps();
+    }
+}
@@ -48,6 +48,19 @@ public abstract class AbstractPeriod implements Period {
             throw new IllegalArgumentException("Inconsistent index dimensionality.");
     }
 
+    /**
+     * Ensures that a site ordinal is valid for this lattice period.
+     *
+     * @param site the site ordinal to validate.
+     *
+     * @throws IndexOutOfBoundsException unless the site ordinal is
+     * valid.
+     */
+    public void validateSite(int site) {
+        if (!containsSite(site))
+            throw new IndexOutOfBoundsException("Invalid site ordinal.");
+    }
+
     @Override public boolean contains(UnitIndex index) {
         validateDimensionality(index);
 
@@ -58,6 +71,10 @@ public abstract class AbstractPeriod implements Period {
         return true;
     }
 
+    @Override public boolean containsSite(int site) {
+        return 0 <= site && site < siteCapacity();
+    }
+
     @Override public long countSites() {
         long count = 1;
 
@@ -66,4 +83,8 @@ public abstract class AbstractPeriod implements Period {
 
         return count;
     }
+
+    @Override public long siteCapacity() {
+        return countSites();
+    }
 }
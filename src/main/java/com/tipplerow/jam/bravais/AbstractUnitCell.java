@@ -35,6 +35,39 @@ public abstract class AbstractUnitCell implements UnitCell {
         this.basis = Collections.unmodifiableList(basis);
     }
 
+    /**
+     * Ensures that an array in a batch coordinate transform holds
+     * the required number of elements.
+     *
+     * @param n the number of elements in the batch.
+     *
+     * @param length the length of the array to validate.
+     *
+     * @throws IllegalArgumentException if the batch size is negative
+     * or exceeds the array length.
+     */
+    public static void validateBatch(int n, int length) {
+        validateBatch(0, n, length);
+    }
+
+    /**
+     * Ensures that an array holds a batch of elements starting at a
+     * given offset.
+     *
+     * @param from the offset of the first element in the batch.
+     *
+     * @param n the number of elements in the batch.
+     *
+     * @param length the length of the array to validate.
+     *
+     * @throws IllegalArgumentException if the offset or batch size is
+     * negative or the batch extends past the end of the array.
+     */
+    public static void validateBatch(int from, int n, int length) {
+        if (from < 0 || n < 0 || (long) from + n > length)
+            throw new IllegalArgumentException("Invalid batch size.");
+    }
+
     /**
      * Ensures that the number of primitive (basis) vectors and their
      * dimensionality match the dimensionality of a unit cell.
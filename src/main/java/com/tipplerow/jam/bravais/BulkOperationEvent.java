@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted by bulk and long-running operations
+ * (filling and ingestion, neighbor mapping, table construction, and
+ * point export), so that their duration can be correlated with
+ * garbage collection and other recorded activity.
+ *
+ * <p>The event is enabled by default; when no recording is active,
+ * {@code begin()} and {@code shouldCommit()} reduce to a flag test and
+ * the event fields are never assigned.
+ *
+ * @author Scott Shaffer
+ */
+@Name(BulkOperationEvent.NAME)
+@Label("Bulk Lattice Operation")
+@Category({ "Jam", "Bravais" })
+@Description("A bulk or long-running operation on a Bravais lattice.")
+@StackTrace(false)
+final class BulkOperationEvent extends Event {
+    /**
+     * The name of this event type.
+     */
+    static final String NAME = "com.tipplerow.jam.bravais.BulkOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Lattice Type")
+    @Description("The unit cell class of the lattice (if any).")
+    String latticeType;
+
+    @Label("Sites")
+    @Description("The number of sites on the lattice (if any).")
+    long siteCount;
+
+    @Label("Items")
+    @Description("The number of occupants, points, or sites processed.")
+    long itemCount;
+
+    /**
+     * Creates and starts a new event.
+     *
+     * @return the started event.
+     */
+    static BulkOperationEvent start() {
+        BulkOperationEvent event = new BulkOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes an operation on a lattice and commits this event if
+     * a recording requires it.
+     *
+     * @param operation the name of the operation.
+     *
+     * @param lattice the lattice that was processed.
+     *
+     * @param itemCount the number of items processed.
+     */
+    void finish(String operation, Lattice lattice, long itemCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.latticeType = lattice.getUnitCell().getClass().getSimpleName();
+            this.siteCount = lattice.countSites();
+            this.itemCount = itemCount;
+            commit();
+        }
+    }
+
+    /**
+     * Completes an operation that is not tied to a lattice and
+     * commits this event if a recording requires it.
+     *
+     * @param operation the name of the operation.
+     *
+     * @param itemCount the number of items processed.
+     */
+    void finish(String operation, long itemCount) {
+        end();
+
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.itemCount = itemCount;
+            commit();
+        }
+    }
+}
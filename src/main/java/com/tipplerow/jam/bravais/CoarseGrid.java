@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import lombok.Getter;
+
+/**
+ * Partitions the primary sites of a lattice into coarse rectangular
+ * bins of unit cells (for example, to aggregate occupancy into the
+ * voxels of a continuum solver).
+ *
+ * <p>Bins are blocks of {@code binSize(dim)} unit cells along each
+ * axis of the periodic box, so the last bin along an axis is smaller
+ * when the bin size does not divide the period.  Bins are numbered in
+ * the same order as the sites of {@code SiteOrdering.ROW_MAJOR} (the
+ * {@code x}-axis varies fastest), so bin arrays share the memory
+ * layout of row-major site arrays.  The mapping from site ordinals
+ * to bins is computed once and shared between grids with the same
+ * period, site ordering, and bin sizes through the
+ * {@link LatticeTableCache}.
+ *
+ * @author Scott Shaffer
+ */
+public final class CoarseGrid {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    private final int[] binSizes;
+    private final int[] binDims;
+
+    // The bin containing each site ordinal (-1 for padding ordinals)
+    // and the number of sites in each bin...
+    private final int[] binTable;
+    private final int[] binSites;
+
+    /**
+     * The bin reported for unused (padding) site ordinals.
+     */
+    public static final int NO_BIN = -1;
+
+    private CoarseGrid(Lattice lattice, int[] binSizes) {
+        this.lattice = lattice;
+        this.binSizes = binSizes;
+        this.binDims = binDims(lattice.getPeriod(), binSizes);
+        this.binTable = LatticeTableCache.binTable(lattice, binSizes);
+        this.binSites = new int[product(binDims)];
+
+        for (int bin : binTable)
+            if (bin != NO_BIN)
+                ++binSites[bin];
+    }
+
+    /**
+     * Creates a new coarse grid.
+     *
+     * @param lattice the lattice to partition.
+     *
+     * @param binSizes the number of unit cells spanned by each bin
+     * along each axis.
+     *
+     * @return a new coarse grid with the specified bin sizes.
+     *
+     * @throws IllegalArgumentException unless there is one positive
+     * bin size for each dimension of the lattice.
+     */
+    public static CoarseGrid create(Lattice lattice, int... binSizes) {
+        if (binSizes.length != lattice.dimensionality())
+            throw new IllegalArgumentException("Bin sizes must match the lattice dimensionality.");
+
+        for (int binSize : binSizes)
+            if (binSize < 1)
+                throw new IllegalArgumentException("Bin sizes must be positive.");
+
+        return new CoarseGrid(lattice, binSizes.clone());
+    }
+
+    /**
+     * Returns the bin containing a primary lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the bin containing the specified site ({@code NO_BIN}
+     * for padding ordinals).
+     */
+    public int binOf(int site) {
+        return binTable[site];
+    }
+
+    /**
+     * Returns the bin containing a unit cell (applying periodic
+     * boundary conditions if necessary).
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the bin containing the specified unit cell.
+     */
+    public int binOf(UnitIndex index) {
+        return binTable[lattice.siteOf(index)];
+    }
+
+    /**
+     * Returns the number of unit cells spanned by each bin along an
+     * axis.
+     *
+     * @param dim the index of the axis.
+     *
+     * @return the number of unit cells spanned by each bin along the
+     * specified axis.
+     */
+    public int binSize(int dim) {
+        return binSizes[dim];
+    }
+
+    /**
+     * Returns the total number of bins in this grid.
+     *
+     * @return the total number of bins in this grid.
+     */
+    public int countBins() {
+        return binSites.length;
+    }
+
+    /**
+     * Returns the number of bins along an axis.
+     *
+     * @param dim the index of the axis.
+     *
+     * @return the number of bins along the specified axis.
+     */
+    public int countBins(int dim) {
+        return binDims[dim];
+    }
+
+    /**
+     * Returns the number of lattice sites in a bin.
+     *
+     * @param bin the index of the bin.
+     *
+     * @return the number of lattice sites in the specified bin.
+     */
+    public int countSites(int bin) {
+        return binSites[bin];
+    }
+
+    /**
+     * Determines whether this grid applies to the sites of another
+     * lattice (which requires the same period and site ordering).
+     *
+     * @param other the lattice to examine.
+     *
+     * @return {@code true} iff the site ordinals of the specified
+     * lattice map to the same bins as those of this grid's lattice.
+     */
+    boolean fits(Lattice other) {
+        Period mine = lattice.getPeriod();
+        Period theirs = other.getPeriod();
+
+        if (mine.dimensionality() != theirs.dimensionality() || mine.ordering() != theirs.ordering())
+            return false;
+
+        for (int dim = 0; dim < mine.dimensionality(); ++dim)
+            if (mine.period(dim) != theirs.period(dim))
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Computes the bin of every site ordinal in a lattice.
+     *
+     * @param lattice the lattice to partition.
+     *
+     * @param binSizes the number of unit cells spanned by each bin
+     * along each axis.
+     *
+     * @return the bin of each site ordinal ({@code NO_BIN} for
+     * padding ordinals).
+     */
+    static int[] buildTable(Lattice lattice, int[] binSizes) {
+        Period period = lattice.getPeriod();
+        int[] binDims = binDims(period, binSizes);
+        int[] coords = new int[period.dimensionality()];
+        int[] table = new int[lattice.siteCapacity()];
+
+        for (int site = 0; site < table.length; ++site) {
+            if (!lattice.containsSite(site)) {
+                table[site] = NO_BIN;
+                continue;
+            }
+
+            period.indexAt(site, coords);
+
+            // The x-axis varies fastest, as in ROW_MAJOR site ordinals...
+            int bin = 0;
+
+            for (int dim = coords.length - 1; dim >= 0; --dim)
+                bin = bin * binDims[dim] + coords[dim] / binSizes[dim];
+
+            table[site] = bin;
+        }
+
+        return table;
+    }
+
+    private static int[] binDims(Period period, int[] binSizes) {
+        int[] binDims = new int[binSizes.length];
+
+        for (int dim = 0; dim < binDims.length; ++dim)
+            binDims[dim] = (period.period(dim) + binSizes[dim] - 1) / binSizes[dim];
+
+        return binDims;
+    }
+
+    private static int product(int[] values) {
+        int product = 1;
+
+        for (int value : values)
+            product *= value;
+
+        return product;
+    }
+}
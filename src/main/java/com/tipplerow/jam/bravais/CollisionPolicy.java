@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Resolves collisions when several points ingested in bulk snap onto
+ * the same lattice site (or onto a site that is already occupied).
+ *
+ * @author Scott Shaffer
+ */
+public enum CollisionPolicy {
+    /**
+     * The earliest claim wins: an existing occupant keeps its site,
+     * and otherwise the first colliding point in input order is
+     * placed; later colliding points are dropped.
+     */
+    KEEP_FIRST,
+
+    /**
+     * The latest claim wins: the last colliding point in input order
+     * is placed, evicting any existing occupant; earlier colliding
+     * points are dropped.
+     */
+    KEEP_LAST,
+
+    /**
+     * The earliest claim keeps the site (as in {@code KEEP_FIRST}),
+     * and later colliding points are displaced to the nearest vacant
+     * site, measured in nearest-neighbor steps; points are dropped
+     * only if the lattice has no vacancy left.
+     */
+    DISPLACE
+}
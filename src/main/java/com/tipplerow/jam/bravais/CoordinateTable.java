@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+
+import com.tipplerow.jam.math.Point;
+
+/**
+ * Stores the continuous-space coordinates of every site on a lattice
+ * in flat, immutable buffers.
+ *
+ * <p>Coordinate tables are shared through the {@link LatticeTableCache}:
+ * lattices with the same unit cell, periodic dimensions, and site
+ * ordering share a single table.  When the cache has a table
+ * directory, tables are mapped from files in that directory instead
+ * of being rebuilt.
+ *
+ * @author Scott Shaffer
+ */
+public final class CoordinateTable {
+    private final int dimensionality;
+    private final int siteCapacity;
+    private final ByteBuffer[] bytes;
+    private final DoubleBuffer[] chunks;
+
+    /**
+     * The file name extension for coordinate table files.
+     */
+    static final String KIND = "coords";
+
+    private CoordinateTable(int dimensionality, int siteCapacity, ByteBuffer[] bytes) {
+        this.dimensionality = dimensionality;
+        this.siteCapacity = siteCapacity;
+        this.bytes = bytes;
+        this.chunks = new DoubleBuffer[bytes.length];
+
+        for (int chunk = 0; chunk < bytes.length; ++chunk)
+            chunks[chunk] = bytes[chunk].asDoubleBuffer();
+    }
+
+    /**
+     * Builds the coordinate table for a lattice.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @return the coordinate table for the specified lattice.
+     */
+    static CoordinateTable build(Lattice lattice) {
+        BulkOperationEvent event = BulkOperationEvent.start();
+        int dimensionality = lattice.dimensionality();
+        int siteCapacity = lattice.siteCapacity();
+
+        CoordinateTable table =
+            new CoordinateTable(dimensionality, siteCapacity, TableFile.allocate(siteCapacity, 8 * dimensionality));
+
+        for (int site = 0; site < siteCapacity; ++site) {
+            DoubleBuffer chunk = table.chunks[site >>> TableFile.CHUNK_SHIFT];
+            int offset = (site & TableFile.CHUNK_MASK) * dimensionality;
+
+            // Padding ordinals (if any) have no position...
+            if (!lattice.containsSite(site)) {
+                for (int dim = 0; dim < dimensionality; ++dim)
+                    chunk.put(offset + dim, Double.NaN);
+
+                continue;
+            }
+
+            Point point = lattice.getUnitCell().pointAt(lattice.indexAt(site));
+
+            for (int dim = 0; dim < dimensionality; ++dim)
+                chunk.put(offset + dim, point.coord(dim));
+        }
+
+        event.finish("CoordinateTable.build", lattice, siteCapacity);
+        return table;
+    }
+
+    /**
+     * Maps the coordinate table for a lattice from a table directory,
+     * or builds the table and stores it in the directory if no valid
+     * table file exists.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @param directory the table directory ({@code null} to build the
+     * table in memory only).
+     *
+     * @return the coordinate table for the specified lattice.
+     */
+    static CoordinateTable load(Lattice lattice, Path directory) {
+        if (directory == null)
+            return build(lattice);
+
+        int dimensionality = lattice.dimensionality();
+        double[] basis = LatticeTableCache.flattenBasis(lattice.getUnitCell());
+        TableFile file = new TableFile(directory, KIND, lattice, basis, dimensionality, 8);
+
+        try {
+            ByteBuffer[] mapped = file.map();
+
+            if (mapped != null)
+                return new CoordinateTable(dimensionality, lattice.siteCapacity(), mapped);
+        }
+        catch (IOException ex) {
+            // An unreadable file is rebuilt and replaced...
+        }
+
+        CoordinateTable table = build(lattice);
+
+        try {
+            file.write(table.bytes);
+        }
+        catch (IOException ex) {
+            // The directory is only a cache: the table is still valid...
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns the number of bytes occupied by this table.
+     *
+     * @return the number of bytes occupied by this table.
+     */
+    long byteSize() {
+        return 8L * dimensionality * siteCapacity;
+    }
+
+    /**
+     * Returns one continuous-space coordinate of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param dim the coordinate dimension.
+     *
+     * @return the coordinate of the site along the specified dimension.
+     */
+    public double coord(int site, int dim) {
+        return chunks[site >>> TableFile.CHUNK_SHIFT].get((site & TableFile.CHUNK_MASK) * dimensionality + dim);
+    }
+
+    /**
+     * Returns the dimensionality of the tabulated coordinates.
+     *
+     * @return the dimensionality of the tabulated coordinates.
+     */
+    public int dimensionality() {
+        return dimensionality;
+    }
+
+    /**
+     * Returns the continuous-space position of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the continuous-space position of the specified site.
+     */
+    public Point pointAt(int site) {
+        double[] coords = new double[dimensionality];
+
+        for (int dim = 0; dim < dimensionality; ++dim)
+            coords[dim] = coord(site, dim);
+
+        return Point.at(coords);
+    }
+
+    /**
+     * Returns the number of site ordinals covered by this table.
+     *
+     * @return the number of site ordinals covered by this table.
+     */
+    public int siteCapacity() {
+        return siteCapacity;
+    }
+}
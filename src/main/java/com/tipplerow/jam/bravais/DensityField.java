@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.tipplerow.jam.lang.JamException;
+
+import lombok.Getter;
+
+/**
+ * Counts the occupants of each species within the bins of a coarse
+ * grid.
+ *
+ * <p>A field may be computed once from a snapshot of a population, in
+ * serial or in parallel, or it may track the population: a tracking
+ * field registers itself as a {@link SiteListener} and updates one
+ * count for every site that is occupied or vacated, so it remains
+ * current at constant cost per move.
+ *
+ * <p>The counts are stored in a single primitive array, with the bins
+ * of each species contiguous.
+ *
+ * @author Scott Shaffer
+ */
+public final class DensityField implements SiteListener {
+    /**
+     * The coarse grid that defines the bins.
+     */
+    @Getter
+    private final CoarseGrid grid;
+
+    private final int binCount;
+    private final int speciesCount;
+    private final int[] counts;
+
+    // The population updating this field (null unless tracking)...
+    private SpeciesPopulation<?> tracked = null;
+
+    // Below this many sites per task, threading costs more than it saves...
+    private static final int MIN_TASK_SITES = 1 << 16;
+
+    private DensityField(CoarseGrid grid, int speciesCount) {
+        this.grid = grid;
+        this.binCount = grid.countBins();
+        this.speciesCount = speciesCount;
+        this.counts = new int[binCount * speciesCount];
+    }
+
+    /**
+     * Computes the density field of a population.
+     *
+     * @param grid the coarse grid that defines the bins.
+     *
+     * @param population the population to examine.
+     *
+     * @return the density field of the population at this moment.
+     *
+     * @throws IllegalArgumentException unless the grid applies to the
+     * lattice of the population.
+     */
+    public static DensityField compute(CoarseGrid grid, SpeciesPopulation<?> population) {
+        DensityField field = create(grid, population);
+        field.accumulate(population, 0, population.getLattice().siteCapacity(), field.counts);
+        return field;
+    }
+
+    /**
+     * Computes the density field of a population in parallel.  The
+     * sites are divided into one contiguous range per available
+     * processor; each task accumulates counts into its own array,
+     * and the partial counts are summed when all tasks finish.
+     *
+     * @param grid the coarse grid that defines the bins.
+     *
+     * @param population the population to examine.  The population
+     * must not be modified until the computation finishes.
+     *
+     * @param executor the executor that runs the tasks.
+     *
+     * @return the density field of the population at this moment.
+     *
+     * @throws IllegalArgumentException unless the grid applies to the
+     * lattice of the population.
+     */
+    public static DensityField compute(CoarseGrid grid, SpeciesPopulation<?> population, ExecutorService executor) {
+        int siteCount = population.getLattice().siteCapacity();
+        int taskCount = Math.min(Runtime.getRuntime().availableProcessors(), siteCount / MIN_TASK_SITES);
+
+        return compute(grid, population, executor, taskCount);
+    }
+
+    /**
+     * Computes the density field of a population with a given number
+     * of parallel tasks.
+     *
+     * @param grid the coarse grid that defines the bins.
+     *
+     * @param population the population to examine.
+     *
+     * @param executor the executor that runs the tasks.
+     *
+     * @param taskCount the number of tasks (at least one task is
+     * always used).
+     *
+     * @return the density field of the population at this moment.
+     *
+     * @throws IllegalArgumentException unless the grid applies to the
+     * lattice of the population.
+     */
+    static DensityField compute(CoarseGrid grid, SpeciesPopulation<?> population,
+                                ExecutorService executor, int taskCount) {
+        DensityField field = create(grid, population);
+
+        int siteCount = population.getLattice().siteCapacity();
+        taskCount = Math.max(1, Math.min(taskCount, siteCount));
+
+        List<Callable<int[]>> tasks = new ArrayList<>(taskCount);
+
+        for (int task = 0; task < taskCount; ++task) {
+            int lower = (int) ((long) siteCount * task / taskCount);
+            int upper = (int) ((long) siteCount * (task + 1) / taskCount);
+
+            tasks.add(() -> {
+                    int[] partial = new int[field.counts.length];
+                    field.accumulate(population, lower, upper, partial);
+                    return partial;
+                });
+        }
+
+        try {
+            for (Future<int[]> future : executor.invokeAll(tasks)) {
+                int[] partial = future.get();
+
+                for (int k = 0; k < partial.length; ++k)
+                    field.counts[k] += partial[k];
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted during density computation.");
+        }
+        catch (ExecutionException ex) {
+            // Accumulation throws only unchecked exceptions...
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            else
+                throw (RuntimeException) ex.getCause();
+        }
+
+        return field;
+    }
+
+    /**
+     * Computes the density field of a population and keeps it current
+     * as the population changes.
+     *
+     * @param grid the coarse grid that defines the bins.
+     *
+     * @param population the population to track.
+     *
+     * @return a density field that tracks the population until it is
+     * detached.
+     *
+     * @throws IllegalArgumentException unless the grid applies to the
+     * lattice of the population.
+     */
+    public static DensityField track(CoarseGrid grid, SpeciesPopulation<?> population) {
+        DensityField field = compute(grid, population);
+        population.addListener(field);
+        field.tracked = population;
+        return field;
+    }
+
+    /**
+     * Copies the counts for one species into an array.
+     *
+     * @param species the species of interest.
+     *
+     * @param dest an array of length at least {@code grid.countBins()}
+     * to receive the count for each bin.
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public void copyCounts(int species, int[] dest) {
+        validateSpecies(species);
+        System.arraycopy(counts, species * binCount, dest, 0, binCount);
+    }
+
+    /**
+     * Returns the number of occupants in a bin (of all species).
+     *
+     * @param bin the index of the bin.
+     *
+     * @return the number of occupants in the specified bin.
+     */
+    public int count(int bin) {
+        int count = 0;
+
+        for (int species = 0; species < speciesCount; ++species)
+            count += counts[species * binCount + bin];
+
+        return count;
+    }
+
+    /**
+     * Returns the number of occupants of one species in a bin.
+     *
+     * @param bin the index of the bin.
+     *
+     * @param species the species of interest.
+     *
+     * @return the number of occupants of the specified species in the
+     * specified bin.
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public int count(int bin, int species) {
+        validateSpecies(species);
+        return counts[species * binCount + bin];
+    }
+
+    /**
+     * Returns the number of species counted by this field.
+     *
+     * @return the number of species counted by this field.
+     */
+    public int countSpecies() {
+        return speciesCount;
+    }
+
+    /**
+     * Returns the fraction of the sites in a bin occupied by one
+     * species.
+     *
+     * @param bin the index of the bin.
+     *
+     * @param species the species of interest.
+     *
+     * @return the fraction of the sites in the specified bin that are
+     * occupied by the specified species.
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public double density(int bin, int species) {
+        return (double) count(bin, species) / grid.countSites(bin);
+    }
+
+    /**
+     * Stops tracking the population (has no effect if this field is
+     * not tracking a population).  The counts remain as they were
+     * when the field was detached.
+     */
+    public void detach() {
+        if (tracked != null) {
+            tracked.removeListener(this);
+            tracked = null;
+        }
+    }
+
+    /**
+     * Identifies fields that track a population.
+     *
+     * @return {@code true} iff this field is updated as a population
+     * changes.
+     */
+    public boolean isTracking() {
+        return tracked != null;
+    }
+
+    @Override public void siteOccupied(int site, int species) {
+        ++counts[species * binCount + grid.binOf(site)];
+    }
+
+    @Override public void siteVacated(int site, int species) {
+        --counts[species * binCount + grid.binOf(site)];
+    }
+
+    private static DensityField create(CoarseGrid grid, SpeciesPopulation<?> population) {
+        if (!grid.fits(population.getLattice()))
+            throw new IllegalArgumentException("The grid does not apply to the population lattice.");
+
+        return new DensityField(grid, population.countSpecies());
+    }
+
+    private void accumulate(SpeciesPopulation<?> population, int lower, int upper, int[] dest) {
+        for (int site = lower; site < upper; ++site) {
+            int species = population.speciesAt(site);
+
+            if (species != SpeciesPopulation.VACANT)
+                ++dest[species * binCount + grid.binOf(site)];
+        }
+    }
+
+    private void validateSpecies(int species) {
+        if (species < 0 || species >= speciesCount)
+            throw new IllegalArgumentException("Invalid species ordinal.");
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Random;
+
+/**
+ * Decides whether an occupant selected from the growth frontier
+ * divides.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+@FunctionalInterface
+public interface DivisionRule<T> {
+    /**
+     * Returns a division rule under which every selected occupant
+     * divides (pure Eden growth).
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @return a division rule under which every selected occupant
+     * divides.
+     */
+    static <T> DivisionRule<T> always() {
+        return (parent, random) -> true;
+    }
+
+    /**
+     * Returns a division rule under which each selected occupant
+     * divides with a fixed probability.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param probability the probability of division.
+     *
+     * @return a division rule under which each selected occupant
+     * divides with the specified probability.
+     *
+     * @throws IllegalArgumentException unless the probability lies
+     * in the interval {@code [0, 1]}.
+     */
+    static <T> DivisionRule<T> probability(double probability) {
+        if (probability < 0.0 || probability > 1.0)
+            throw new IllegalArgumentException("Invalid division probability.");
+
+        return (parent, random) -> random.nextDouble() < probability;
+    }
+
+    /**
+     * Decides whether an occupant divides.
+     *
+     * @param parent the occupant selected from the growth frontier.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return {@code true} iff the parent should divide.
+     */
+    boolean divide(T parent, Random random);
+}
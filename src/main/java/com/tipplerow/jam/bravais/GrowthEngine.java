@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import lombok.Getter;
+
+/**
+ * Grows a colony of occupants site by site on a Bravais lattice
+ * (Eden growth with optional division and death rules).
+ *
+ * <p>Each division event selects a dividing occupant uniformly from
+ * the growth frontier (occupied sites with at least one vacant
+ * nearest neighbor), consults the division rule, and places the
+ * daughter created by the occupant factory on a vacant neighbor
+ * selected uniformly at random.  The engine stores occupants in an
+ * array indexed by site ordinal and maintains the frontier and the
+ * vacant-neighbor count of every site incrementally, so each event
+ * takes constant expected time regardless of the colony size.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class GrowthEngine<T> {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    private final UnaryOperator<T> daughterFactory;
+    private final DivisionRule<T> divisionRule;
+    private final Random random;
+
+    // Occupants indexed by site ordinal...
+    private final Object[] occupants;
+
+    // The number of vacant nearest neighbors for every site (occupied
+    // or not), counted with multiplicity on very small periods...
+    private final byte[] vacancies;
+
+    private final IntSampleSet occupied;
+    private final IntSampleSet frontier;
+
+    // Reusable buffer for the neighbors of an occupied or vacated
+    // site...
+    private final int[] neighbors;
+
+    private final List<GrowthObserver<T>> observers = new ArrayList<>();
+    private final List<Long> intervals = new ArrayList<>();
+
+    /**
+     * The number of consecutive failed division attempts after which
+     * {@code growTo()} concludes that the division rule will not
+     * permit further growth.
+     */
+    public static final long MAX_STALLED_ATTEMPTS = 1_000_000;
+
+    private long deathCount = 0;
+    private long divisionCount = 0;
+
+    private GrowthEngine(Lattice lattice,
+                         UnaryOperator<T> daughterFactory,
+                         DivisionRule<T> divisionRule,
+                         Random random) {
+        if (lattice.countNeighbors() > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Too many nearest neighbors.");
+
+        this.lattice = lattice;
+        this.daughterFactory = daughterFactory;
+        this.divisionRule = divisionRule;
+        this.random = random;
+
+        int capacity = lattice.siteCapacity();
+
+        this.occupants = new Object[capacity];
+        this.vacancies = new byte[capacity];
+        this.occupied = new IntSampleSet(capacity);
+        this.frontier = new IntSampleSet(capacity);
+        this.neighbors = new int[lattice.countNeighbors()];
+
+        Arrays.fill(vacancies, (byte) lattice.countNeighbors());
+    }
+
+    /**
+     * Creates a new growth engine on an empty lattice.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param lattice the Bravais lattice to contain the colony.
+     *
+     * @param daughterFactory a function that creates the daughter of
+     * a dividing occupant.
+     *
+     * @param divisionRule the rule that decides whether an occupant
+     * selected from the growth frontier divides.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return a new growth engine on an empty lattice.
+     *
+     * @throws IllegalStateException if the lattice is too large for
+     * array storage.
+     */
+    public static <T> GrowthEngine<T> create(Lattice lattice,
+                                             UnaryOperator<T> daughterFactory,
+                                             DivisionRule<T> divisionRule,
+                                             Random random) {
+        return new GrowthEngine<>(lattice, daughterFactory, divisionRule, random);
+    }
+
+    /**
+     * Registers an observer to be notified at a fixed interval of
+     * division events.
+     *
+     * @param observer the observer to notify.
+     *
+     * @param interval the number of division events between
+     * notifications.
+     *
+     * @throws IllegalArgumentException unless the interval is
+     * positive.
+     */
+    public void addObserver(GrowthObserver<T> observer, long interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Non-positive observation interval.");
+
+        observers.add(observer);
+        intervals.add(interval);
+    }
+
+    /**
+     * Returns the total number of deaths in this simulation.
+     *
+     * @return the total number of deaths in this simulation.
+     */
+    public long countDeaths() {
+        return deathCount;
+    }
+
+    /**
+     * Returns the total number of divisions in this simulation.
+     *
+     * @return the total number of divisions in this simulation.
+     */
+    public long countDivisions() {
+        return divisionCount;
+    }
+
+    /**
+     * Returns the number of occupied sites with at least one vacant
+     * nearest neighbor.
+     *
+     * @return the number of occupied sites on the growth frontier.
+     */
+    public int countFrontier() {
+        return frontier.size();
+    }
+
+    /**
+     * Returns the number of occupants in the colony.
+     *
+     * @return the number of occupants in the colony.
+     */
+    public int countOccupants() {
+        return occupied.size();
+    }
+
+    /**
+     * Executes one division attempt: selects an occupant from the
+     * growth frontier at random, consults the division rule, and (if
+     * the rule permits) places a daughter on a randomly selected
+     * vacant neighbor.
+     *
+     * @return {@code true} iff a division occurred.
+     */
+    public boolean divide() {
+        int parentSite = frontier.select(random);
+
+        if (parentSite < 0)
+            return false;
+
+        T parent = occupantAt(parentSite);
+
+        if (!divisionRule.divide(parent, random))
+            return false;
+
+        occupy(selectVacantNeighbor(parentSite), daughterFactory.apply(parent));
+        ++divisionCount;
+
+        if (!observers.isEmpty())
+            notifyObservers();
+
+        return true;
+    }
+
+    private int selectVacantNeighbor(int site) {
+        //
+        // Frontier sites have at least one vacancy, so rejection
+        // sampling terminates after countNeighbors() / vacancies[site]
+        // trials on average...
+        //
+        assert vacancies[site] > 0;
+
+        int neighborCount = lattice.countNeighbors();
+
+        while (true) {
+            int neighbor = lattice.neighborSite(site, random.nextInt(neighborCount));
+
+            if (occupants[neighbor] == null)
+                return neighbor;
+        }
+    }
+
+    private void notifyObservers() {
+        for (int index = 0; index < observers.size(); ++index)
+            if (divisionCount % intervals.get(index) == 0)
+                observers.get(index).observe(this);
+    }
+
+    /**
+     * Executes division attempts until the colony reaches a target
+     * size, the growth frontier is exhausted, or growth stalls:
+     * {@code MAX_STALLED_ATTEMPTS} consecutive attempts fail because
+     * the division rule refuses (as {@code DivisionRule.probability(0.0)}
+     * always does).
+     *
+     * @param size the target colony size.
+     *
+     * @return the number of divisions that occurred.
+     */
+    public long growTo(int size) {
+        long initial = divisionCount;
+        long stalled = 0;
+
+        while (occupied.size() < size && frontier.size() > 0 && stalled < MAX_STALLED_ATTEMPTS) {
+            if (divide())
+                stalled = 0;
+            else
+                ++stalled;
+        }
+
+        return divisionCount - initial;
+    }
+
+    /**
+     * Identifies sites on the growth frontier.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return {@code true} iff the site is occupied and has at least
+     * one vacant nearest neighbor.
+     */
+    public boolean isFrontier(int site) {
+        return frontier.contains(site);
+    }
+
+    /**
+     * Identifies occupied sites.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return {@code true} iff the site is occupied.
+     */
+    public boolean isOccupied(int site) {
+        return occupants[site] != null;
+    }
+
+    /**
+     * Removes the occupant of a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the occupant that died ({@code null} if the site was
+     * vacant).
+     */
+    public T kill(int site) {
+        T occupant = occupantAt(site);
+
+        if (occupant != null) {
+            vacate(site);
+            ++deathCount;
+        }
+
+        return occupant;
+    }
+
+    /**
+     * Removes one occupant selected at random (with equal
+     * probability) from the entire colony.
+     *
+     * @return the occupant that died ({@code null} if the colony is
+     * empty).
+     */
+    public T killRandom() {
+        int site = occupied.select(random);
+
+        if (site < 0)
+            return null;
+        else
+            return kill(site);
+    }
+
+    /**
+     * Returns the occupant of a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the occupant of the specified site ({@code null} if the
+     * site is vacant).
+     */
+    @SuppressWarnings("unchecked")
+    public T occupantAt(int site) {
+        return (T) occupants[site];
+    }
+
+    /**
+     * Returns the occupant of a unit cell (applying periodic boundary
+     * conditions if necessary).
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the occupant of the specified unit cell ({@code null}
+     * if the cell is vacant).
+     */
+    public T occupantAt(UnitIndex index) {
+        return occupantAt(lattice.siteOf(index));
+    }
+
+    /**
+     * Places an occupant on the lattice (typically to seed the
+     * colony).
+     *
+     * @param occupant the occupant to place.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the previous occupant of the unit cell ({@code null} if
+     * the cell was vacant).
+     */
+    public T place(T occupant, UnitIndex index) {
+        int site = lattice.siteOf(index);
+        T prevOcc = occupantAt(site);
+
+        if (prevOcc != null)
+            occupants[site] = occupant;
+        else
+            occupy(site, occupant);
+
+        return prevOcc;
+    }
+
+    /**
+     * Executes a fixed number of division attempts (stopping early if
+     * the growth frontier is exhausted).
+     *
+     * @param attempts the number of division attempts.
+     *
+     * @return the number of divisions that occurred.
+     */
+    public long run(long attempts) {
+        long initial = divisionCount;
+
+        for (long attempt = 0; attempt < attempts && frontier.size() > 0; ++attempt)
+            divide();
+
+        return divisionCount - initial;
+    }
+
+    /**
+     * Copies the colony into a new population (with each occupant
+     * placed at its primary unit index).
+     *
+     * @return a new population containing the colony.
+     */
+    public Population<T> toPopulation() {
+        Population<T> population = Population.empty(lattice);
+
+        occupied.forEach(site -> population.place(occupantAt(site), lattice.indexAt(site)));
+        return population;
+    }
+
+    private void occupy(int site, T occupant) {
+        occupants[site] = occupant;
+        occupied.add(site);
+
+        if (vacancies[site] > 0)
+            frontier.add(site);
+
+        lattice.neighborSites(site, neighbors);
+
+        for (int neighbor : neighbors) {
+            if (--vacancies[neighbor] == 0)
+                frontier.remove(neighbor);
+        }
+    }
+
+    private void vacate(int site) {
+        occupants[site] = null;
+        occupied.remove(site);
+        frontier.remove(site);
+
+        lattice.neighborSites(site, neighbors);
+
+        for (int neighbor : neighbors) {
+            ++vacancies[neighbor];
+
+            if (occupants[neighbor] != null)
+                frontier.add(neighbor);
+        }
+    }
+}
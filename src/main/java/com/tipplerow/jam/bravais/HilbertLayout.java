@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Orders sites along a Hilbert space-filling curve, on which
+ * consecutive ordinals are always nearest neighbors on the
+ * underlying cubic (or square) grid.
+ *
+ * <p>The box is padded to the smallest cube (or square) whose side is
+ * a power of two and which contains the box; the ordinals of the
+ * padding sites are left unused.  The encoding and decoding follow
+ * J. Skilling, "Programming the Hilbert curve", AIP Conference
+ * Proceedings 707, 381 (2004), specialized to two and three
+ * dimensions so that no arrays are allocated.
+ *
+ * @author Scott Shaffer
+ */
+final class HilbertLayout extends SiteLayout {
+    // The number of bits per coordinate in the padded box...
+    private final int bits;
+    private final boolean twoD;
+
+    HilbertLayout(int nx, int ny, int nz) {
+        super(nx, ny, nz);
+        validatePackable();
+
+        this.twoD = (nz == 1);
+        this.bits = Math.max(1, MortonLayout.bitsFor(Math.max(nx, Math.max(ny, nz))));
+
+        if (bits * (twoD ? 2 : 3) > 30)
+            throw new IllegalArgumentException("Period is too large for the Hilbert ordering.");
+    }
+
+    @Override long capacity() {
+        return 1 << (bits * (twoD ? 2 : 3));
+    }
+
+    @Override boolean contains(int site) {
+        if (site < 0 || site >= capacity())
+            return false;
+
+        long coords = decode(site);
+
+        return unpackX(coords) < nx
+            && unpackY(coords) < ny
+            && unpackZ(coords) < nz;
+    }
+
+    @Override long decode(int site) {
+        if (twoD)
+            return decode2D(site);
+        else
+            return decode3D(site);
+    }
+
+    private long decode2D(int site) {
+        int x = MortonLayout.compact2(site >>> 1);
+        int y = MortonLayout.compact2(site);
+
+        // Gray decode...
+        int t = y >>> 1;
+        y ^= x;
+        x ^= t;
+
+        // Undo excess work...
+        for (int q = 2; q != (1 << bits); q <<= 1) {
+            int p = q - 1;
+
+            if ((y & q) != 0) {
+                x ^= p;
+            }
+            else {
+                t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+
+            if ((x & q) != 0)
+                x ^= p;
+        }
+
+        return pack(x, y, 0);
+    }
+
+    private long decode3D(int site) {
+        int x = MortonLayout.compact3(site >>> 2);
+        int y = MortonLayout.compact3(site >>> 1);
+        int z = MortonLayout.compact3(site);
+
+        // Gray decode...
+        int t = z >>> 1;
+        z ^= y;
+        y ^= x;
+        x ^= t;
+
+        // Undo excess work...
+        for (int q = 2; q != (1 << bits); q <<= 1) {
+            int p = q - 1;
+
+            if ((z & q) != 0) {
+                x ^= p;
+            }
+            else {
+                t = (x ^ z) & p;
+                x ^= t;
+                z ^= t;
+            }
+
+            if ((y & q) != 0) {
+                x ^= p;
+            }
+            else {
+                t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+
+            if ((x & q) != 0)
+                x ^= p;
+        }
+
+        return pack(x, y, z);
+    }
+
+    @Override int siteOf(int i, int j, int k) {
+        if (twoD)
+            return siteOf2D(i, j);
+        else
+            return siteOf3D(i, j, k);
+    }
+
+    private int siteOf2D(int x, int y) {
+        int m = 1 << (bits - 1);
+
+        // Inverse undo...
+        for (int q = m; q > 1; q >>>= 1) {
+            int p = q - 1;
+
+            if ((x & q) != 0)
+                x ^= p;
+
+            if ((y & q) != 0) {
+                x ^= p;
+            }
+            else {
+                int t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+        }
+
+        // Gray encode...
+        y ^= x;
+
+        int t = 0;
+
+        for (int q = m; q > 1; q >>>= 1)
+            if ((y & q) != 0)
+                t ^= q - 1;
+
+        x ^= t;
+        y ^= t;
+
+        return (MortonLayout.spread2(x) << 1) | MortonLayout.spread2(y);
+    }
+
+    private int siteOf3D(int x, int y, int z) {
+        int m = 1 << (bits - 1);
+
+        // Inverse undo...
+        for (int q = m; q > 1; q >>>= 1) {
+            int p = q - 1;
+
+            if ((x & q) != 0)
+                x ^= p;
+
+            if ((y & q) != 0) {
+                x ^= p;
+            }
+            else {
+                int t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+
+            if ((z & q) != 0) {
+                x ^= p;
+            }
+            else {
+                int t = (x ^ z) & p;
+                x ^= t;
+                z ^= t;
+            }
+        }
+
+        // Gray encode...
+        y ^= x;
+        z ^= y;
+
+        int t = 0;
+
+        for (int q = m; q > 1; q >>>= 1)
+            if ((z & q) != 0)
+                t ^= q - 1;
+
+        x ^= t;
+        y ^= t;
+        z ^= t;
+
+        return (MortonLayout.spread3(x) << 2) | (MortonLayout.spread3(y) << 1) | MortonLayout.spread3(z);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import lombok.Getter;
+
+/**
+ * Summarizes the outcome of a bulk point-cloud ingestion.
+ *
+ * @author Scott Shaffer
+ */
+public final class IngestReport {
+    /**
+     * The number of points placed on the lattice (including displaced
+     * points).
+     */
+    @Getter
+    private final int placed;
+
+    /**
+     * The number of points displaced to a vacant site.
+     */
+    @Getter
+    private final int displaced;
+
+    /**
+     * The number of existing occupants evicted by ingested points.
+     */
+    @Getter
+    private final int evicted;
+
+    private final int[] collisions;
+    private final int[] dropped;
+
+    IngestReport(int placed, int displaced, int evicted, int[] collisions, int[] dropped) {
+        this.placed = placed;
+        this.displaced = displaced;
+        this.evicted = evicted;
+        this.collisions = collisions;
+        this.dropped = dropped;
+    }
+
+    /**
+     * Returns the number of points that lost their site to another
+     * claim (an existing occupant or another point).
+     *
+     * @return the number of points that lost their site to another
+     * claim.
+     */
+    public int countCollisions() {
+        return collisions.length;
+    }
+
+    /**
+     * Returns the number of points that were not placed.
+     *
+     * @return the number of points that were not placed.
+     */
+    public int countDropped() {
+        return dropped.length;
+    }
+
+    /**
+     * Returns the input positions of the points that lost their site
+     * to another claim (an existing occupant or another point), in
+     * increasing order; these points were either displaced or
+     * dropped.
+     *
+     * @return the input positions of the colliding points.
+     */
+    public int[] listCollisions() {
+        return collisions.clone();
+    }
+
+    /**
+     * Returns the input positions of the points that were not placed,
+     * in increasing order.
+     *
+     * @return the input positions of the dropped points.
+     */
+    public int[] listDropped() {
+        return dropped.clone();
+    }
+}
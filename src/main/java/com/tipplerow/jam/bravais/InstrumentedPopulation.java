@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.List;
+import java.util.Random;
+
+import com.tipplerow.jam.bravais.PopulationMonitor.Operation;
+import com.tipplerow.jam.math.Point;
+
+import lombok.Getter;
+
+/**
+ * Decorates a population so that its principal operations are
+ * counted and timed by a {@link PopulationMonitor}.
+ *
+ * <p>The decorator forwards each instrumented call to the underlying
+ * population.  Code that uses the population directly is unaffected:
+ * instrumentation costs nothing unless a population is accessed
+ * through this wrapper, and other operations remain available through
+ * {@code getPopulation()}.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class InstrumentedPopulation<T> {
+    /**
+     * The underlying population.
+     */
+    @Getter
+    private final Population<T> population;
+
+    /**
+     * The monitor that records the instrumented operations.
+     */
+    @Getter
+    private final PopulationMonitor monitor;
+
+    private InstrumentedPopulation(Population<T> population, int sampleInterval) {
+        this.population = population;
+        this.monitor = new PopulationMonitor(population, sampleInterval);
+    }
+
+    /**
+     * Instruments a population, timing one call in every
+     * {@code DEFAULT_SAMPLE_INTERVAL} (on average).
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param population the population to instrument.
+     *
+     * @return an instrumented view of the specified population.
+     */
+    public static <T> InstrumentedPopulation<T> wrap(Population<T> population) {
+        return wrap(population, PopulationMonitor.DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Instruments a population.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param population the population to instrument.
+     *
+     * @param sampleInterval the average number of calls per timed
+     * call ({@code 1} to time every call).
+     *
+     * @return an instrumented view of the specified population.
+     *
+     * @throws IllegalArgumentException unless the sample interval is
+     * positive.
+     */
+    public static <T> InstrumentedPopulation<T> wrap(Population<T> population, int sampleInterval) {
+        return new InstrumentedPopulation<>(population, sampleInterval);
+    }
+
+    /**
+     * Instrumented version of {@link Population#indexOf(Object)}.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the absolute index of the specified occupant.
+     */
+    public UnitIndex indexOf(T occupant) {
+        long start = monitor.start(Operation.INDEX_OF);
+        UnitIndex index = population.indexOf(occupant);
+        monitor.stop(Operation.INDEX_OF, start);
+        return index;
+    }
+
+    /**
+     * Instrumented version of {@link Population#neighborsOf(Object)}.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the nearest neighbors of the specified occupant.
+     */
+    public List<T> neighborsOf(T occupant) {
+        long start = monitor.start(Operation.NEIGHBORS_OF);
+        List<T> neighbors = population.neighborsOf(occupant);
+        monitor.stop(Operation.NEIGHBORS_OF, start);
+        return neighbors;
+    }
+
+    /**
+     * Instrumented version of {@link Population#occupantAt(Point)}.
+     *
+     * @param point a continuous-space coordinate to examine.
+     *
+     * @return the occupant of the unit cell containing the point.
+     */
+    public T occupantAt(Point point) {
+        long start = monitor.start(Operation.OCCUPANT_AT);
+        T occupant = population.occupantAt(point);
+        monitor.stop(Operation.OCCUPANT_AT, start);
+        return occupant;
+    }
+
+    /**
+     * Instrumented version of {@link Population#occupantAt(UnitIndex)}.
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the occupant of the specified unit cell.
+     */
+    public T occupantAt(UnitIndex index) {
+        long start = monitor.start(Operation.OCCUPANT_AT);
+        T occupant = population.occupantAt(index);
+        monitor.stop(Operation.OCCUPANT_AT, start);
+        return occupant;
+    }
+
+    /**
+     * Instrumented version of {@link Population#place(Object, Point)}.
+     *
+     * @param occupant the occupant to place on the lattice.
+     *
+     * @param point the continuous-space coordinate of the desired
+     * location.
+     *
+     * @return the previous occupant of the unit cell.
+     */
+    public T place(T occupant, Point point) {
+        long start = monitor.start(Operation.PLACE);
+        T prevOcc = population.place(occupant, point);
+        monitor.stop(Operation.PLACE, start);
+        return prevOcc;
+    }
+
+    /**
+     * Instrumented version of {@link Population#place(Object, UnitIndex)}.
+     *
+     * @param occupant the occupant to place on the lattice.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the previous occupant of the unit cell.
+     */
+    public T place(T occupant, UnitIndex index) {
+        long start = monitor.start(Operation.PLACE);
+        T prevOcc = population.place(occupant, index);
+        monitor.stop(Operation.PLACE, start);
+        return prevOcc;
+    }
+
+    /**
+     * Instrumented version of {@link Population#remove(Object)}.
+     *
+     * @param occupant the occupant to remove.
+     */
+    public void remove(T occupant) {
+        long start = monitor.start(Operation.REMOVE);
+        population.remove(occupant);
+        monitor.stop(Operation.REMOVE, start);
+    }
+
+    /**
+     * Instrumented version of {@link Population#replace(Object, Object)}.
+     *
+     * @param oldOccupant the existing occupant to replace.
+     *
+     * @param newOccupant the new occupant to add.
+     */
+    public void replace(T oldOccupant, T newOccupant) {
+        long start = monitor.start(Operation.REPLACE);
+        population.replace(oldOccupant, newOccupant);
+        monitor.stop(Operation.REPLACE, start);
+    }
+
+    /**
+     * Instrumented version of {@link Population#selectFrontier(Random)}.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return an occupant selected at random from the growth frontier.
+     */
+    public T selectFrontier(Random random) {
+        long start = monitor.start(Operation.SELECT_FRONTIER);
+        T occupant = population.selectFrontier(random);
+        monitor.stop(Operation.SELECT_FRONTIER, start);
+        return occupant;
+    }
+
+    /**
+     * Instrumented version of {@link Population#swap(Object, Object)}.
+     *
+     * @param occ1 the first occupant to swap.
+     *
+     * @param occ2 the second occupant to swap.
+     */
+    public void swap(T occ1, T occ2) {
+        long start = monitor.start(Operation.SWAP);
+        population.swap(occ1, occ2);
+        monitor.stop(Operation.SWAP, start);
+    }
+
+    /**
+     * Instrumented version of {@link Population#unoccupiedNeighbors(UnitIndex)}.
+     *
+     * @param index the (absolute) index of a lattice site.
+     *
+     * @return the unoccupied nearest neighbors of the specified site.
+     */
+    public List<UnitIndex> unoccupiedNeighbors(UnitIndex index) {
+        long start = monitor.start(Operation.UNOCCUPIED_NEIGHBORS);
+        List<UnitIndex> neighbors = population.unoccupiedNeighbors(index);
+        monitor.stop(Operation.UNOCCUPIED_NEIGHBORS, start);
+        return neighbors;
+    }
+}
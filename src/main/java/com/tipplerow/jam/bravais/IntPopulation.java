@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import lombok.Getter;
+
+/**
+ * Tracks a population of integer occupant identifiers on a Bravais
+ * lattice without boxing: a site table maps site ordinals to
+ * occupants and a reverse table maps occupants to site ordinals.
+ *
+ * <p>The API mirrors that of {@code Population}, with two
+ * differences: occupant identifiers must lie in the fixed range
+ * {@code [0, occupantCapacity)}, and occupants are located by the
+ * periodic images of their unit indexes (absolute indexes are not
+ * retained).  No method that operates on site ordinals allocates.
+ *
+ * @author Scott Shaffer
+ */
+public final class IntPopulation {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    // Occupants indexed by site ordinal...
+    private final int[] occupants;
+
+    // Site ordinals indexed by occupant...
+    private final int[] sites;
+
+    private int occupantCount = 0;
+
+    /**
+     * The occupant identifier and site ordinal reported for vacant
+     * sites and missing occupants.
+     */
+    public static final int VACANT = -1;
+
+    private IntPopulation(Lattice lattice, int occupantCapacity) {
+        if (occupantCapacity < 0)
+            throw new IllegalArgumentException("Negative occupant capacity.");
+
+        this.lattice = lattice;
+        this.occupants = new int[lattice.siteCapacity()];
+        this.sites = new int[occupantCapacity];
+
+        Arrays.fill(occupants, VACANT);
+        Arrays.fill(sites, VACANT);
+    }
+
+    /**
+     * Creates a new empty population whose occupant identifiers may
+     * range up to the number of lattice sites.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @return a new empty population.
+     */
+    public static IntPopulation empty(Lattice lattice) {
+        return new IntPopulation(lattice, lattice.siteCapacity());
+    }
+
+    /**
+     * Creates a new empty population.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @param occupantCapacity the exclusive upper bound for occupant
+     * identifiers.
+     *
+     * @return a new empty population.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public static IntPopulation empty(Lattice lattice, int occupantCapacity) {
+        return new IntPopulation(lattice, occupantCapacity);
+    }
+
+    /**
+     * Identifies occupants on this lattice.
+     *
+     * @param occupant an occupant to examine.
+     *
+     * @return {@code true} iff this lattice contains the specified
+     * occupant.
+     */
+    public boolean contains(int occupant) {
+        return siteOf(occupant) != VACANT;
+    }
+
+    /**
+     * Returns the number of occupants on this lattice.
+     *
+     * @return the number of occupants on this lattice.
+     */
+    public int countOccupants() {
+        return occupantCount;
+    }
+
+    /**
+     * Applies an action to every occupant on this lattice (in the
+     * order of their site ordinals).
+     *
+     * @param action the action to apply.
+     */
+    public void forEachOccupant(IntConsumer action) {
+        for (int site = 0; site < occupants.length; ++site)
+            if (occupants[site] != VACANT)
+                action.accept(occupants[site]);
+    }
+
+    /**
+     * Returns the periodic image of the unit cell occupied by an
+     * occupant on this lattice.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the periodic image of the unit cell occupied by the
+     * specified occupant ({@code null} if this lattice does not
+     * contain the occupant).
+     */
+    public UnitIndex indexOf(int occupant) {
+        int site = siteOf(occupant);
+
+        if (site == VACANT)
+            return null;
+        else
+            return lattice.indexAt(site);
+    }
+
+    /**
+     * Identifies empty lattices.
+     *
+     * @return {@code true} iff this lattice contains no occupants.
+     */
+    public boolean isEmpty() {
+        return occupantCount == 0;
+    }
+
+    /**
+     * Identifies completely full lattices.
+     *
+     * @return {@code true} iff every site in this lattice is
+     * occupied.
+     */
+    public boolean isFull() {
+        return occupantCount == lattice.countSites();
+    }
+
+    /**
+     * Identifies occupied sites.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return {@code true} iff the specified site is occupied.
+     */
+    public boolean isOccupied(int site) {
+        return occupants[site] != VACANT;
+    }
+
+    /**
+     * Identifies occupied unit cells.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return {@code true} iff the specified unit cell is occupied.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        return isOccupied(lattice.siteOf(index));
+    }
+
+    /**
+     * Applies an action to the nearest neighbors of an occupant on
+     * this lattice (has no effect if the lattice does not contain the
+     * occupant).
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @param action the action to apply to each neighboring occupant.
+     */
+    public void neighborsOf(int occupant, IntConsumer action) {
+        int site = siteOf(occupant);
+
+        if (site == VACANT)
+            return;
+
+        for (int k = 0; k < lattice.countNeighbors(); ++k) {
+            int neighbor = occupants[lattice.neighborSite(site, k)];
+
+            if (neighbor != VACANT)
+                action.accept(neighbor);
+        }
+    }
+
+    /**
+     * Returns the occupant of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the occupant of the specified site ({@code VACANT} if
+     * the site is vacant).
+     */
+    public int occupantAt(int site) {
+        return occupants[site];
+    }
+
+    /**
+     * Returns the occupant of a unit cell.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the occupant of the specified unit cell ({@code VACANT}
+     * if the cell is vacant).
+     */
+    public int occupantAt(UnitIndex index) {
+        return occupantAt(lattice.siteOf(index));
+    }
+
+    /**
+     * Places an occupant on a site, moving it from its previous site
+     * and displacing any previous occupant of the destination.
+     *
+     * @param occupant the occupant to place.
+     *
+     * @param site the ordinal of the destination site.
+     *
+     * @return the previous occupant of the destination ({@code
+     * VACANT} if the site was vacant).
+     *
+     * @throws IllegalArgumentException unless the occupant lies in
+     * the range {@code [0, occupantCapacity)}.
+     */
+    public int place(int occupant, int site) {
+        validateOccupant(occupant);
+
+        int prevOcc = occupants[site];
+
+        if (prevOcc == occupant)
+            return prevOcc;
+
+        if (prevOcc != VACANT)
+            sites[prevOcc] = VACANT;
+        else
+            ++occupantCount;
+
+        int prevSite = sites[occupant];
+
+        if (prevSite != VACANT) {
+            occupants[prevSite] = VACANT;
+            --occupantCount;
+        }
+
+        occupants[site] = occupant;
+        sites[occupant] = site;
+
+        return prevOcc;
+    }
+
+    /**
+     * Places an occupant in a unit cell, moving it from its previous
+     * site and displacing any previous occupant of the destination.
+     *
+     * @param occupant the occupant to place.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the previous occupant of the destination ({@code
+     * VACANT} if the cell was vacant).
+     *
+     * @throws IllegalArgumentException unless the occupant lies in
+     * the range {@code [0, occupantCapacity)}.
+     */
+    public int place(int occupant, UnitIndex index) {
+        return place(occupant, lattice.siteOf(index));
+    }
+
+    /**
+     * Removes an occupant from this lattice (has no effect if the
+     * occupant is not present).
+     *
+     * @param occupant the occupant to remove.
+     */
+    public void remove(int occupant) {
+        int site = siteOf(occupant);
+
+        if (site != VACANT) {
+            occupants[site] = VACANT;
+            sites[occupant] = VACANT;
+            --occupantCount;
+        }
+    }
+
+    /**
+     * Removes an existing lattice occupant and adds a new occupant at
+     * the same location.
+     *
+     * @param oldOccupant the existing occupant to replace.
+     *
+     * @param newOccupant the new occupant to add.
+     *
+     * @throws IllegalArgumentException unless this lattice contains
+     * the old occupant.
+     */
+    public void replace(int oldOccupant, int newOccupant) {
+        int site = siteOf(oldOccupant);
+
+        if (site != VACANT)
+            place(newOccupant, site);
+        else
+            throw new IllegalArgumentException("Missing lattice occupant.");
+    }
+
+    /**
+     * Returns the site ordinal of an occupant on this lattice.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the site ordinal of the specified occupant ({@code
+     * VACANT} if this lattice does not contain the occupant).
+     */
+    public int siteOf(int occupant) {
+        if (0 <= occupant && occupant < sites.length)
+            return sites[occupant];
+        else
+            return VACANT;
+    }
+
+    /**
+     * Swaps the locations of two occupants on this lattice.
+     *
+     * @param occ1 the first occupant to swap.
+     *
+     * @param occ2 the second occupant to swap.
+     *
+     * @throws IllegalArgumentException unless this lattice contains
+     * both occupants.
+     */
+    public void swap(int occ1, int occ2) {
+        int site1 = siteOf(occ1);
+        int site2 = siteOf(occ2);
+
+        if (site1 == VACANT || site2 == VACANT)
+            throw new IllegalArgumentException("Missing lattice occupant.");
+
+        occupants[site1] = occ2;
+        occupants[site2] = occ1;
+        sites[occ1] = site2;
+        sites[occ2] = site1;
+    }
+
+    /**
+     * Applies an action to the unoccupied nearest neighbors of a
+     * lattice site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param action the action to apply to each unoccupied neighbor
+     * site ordinal.
+     */
+    public void unoccupiedNeighbors(int site, IntConsumer action) {
+        for (int k = 0; k < lattice.countNeighbors(); ++k) {
+            int neighbor = lattice.neighborSite(site, k);
+
+            if (occupants[neighbor] == VACANT)
+                action.accept(neighbor);
+        }
+    }
+
+    private void validateOccupant(int occupant) {
+        if (occupant < 0 || occupant >= sites.length)
+            throw new IllegalArgumentException("Invalid occupant identifier.");
+    }
+}
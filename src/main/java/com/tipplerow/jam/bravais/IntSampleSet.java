@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Maintains a set of non-negative integers below a fixed capacity
+ * (typically site ordinals) with constant-time insertion, removal,
+ * and uniform random selection, without boxing or allocation.
+ *
+ * @author Scott Shaffer
+ */
+final class IntSampleSet {
+    private final int[] elements;
+    private final int[] slots;
+    private int size = 0;
+
+    private static final int ABSENT = -1;
+
+    /**
+     * Creates a new empty set.
+     *
+     * @param capacity the exclusive upper bound for the elements.
+     */
+    IntSampleSet(int capacity) {
+        this.elements = new int[capacity];
+        this.slots = new int[capacity];
+        Arrays.fill(slots, ABSENT);
+    }
+
+    /**
+     * Adds an element to this set (has no effect if the element is
+     * already present).
+     *
+     * @param element the element to add.
+     *
+     * @return {@code true} iff the element was added.
+     */
+    boolean add(int element) {
+        if (slots[element] != ABSENT)
+            return false;
+
+        slots[element] = size;
+        elements[size] = element;
+        ++size;
+
+        return true;
+    }
+
+    /**
+     * Returns the exclusive upper bound for the elements.
+     *
+     * @return the exclusive upper bound for the elements.
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Removes all elements from this set.
+     */
+    void clear() {
+        for (int slot = 0; slot < size; ++slot)
+            slots[elements[slot]] = ABSENT;
+
+        size = 0;
+    }
+
+    /**
+     * Identifies elements of this set.
+     *
+     * @param element the element to examine.
+     *
+     * @return {@code true} iff this set contains the element.
+     */
+    boolean contains(int element) {
+        return slots[element] != ABSENT;
+    }
+
+    /**
+     * Applies an action to every element in this set (in no
+     * particular order); the set must not be modified by the action.
+     *
+     * @param action the action to apply.
+     */
+    void forEach(IntConsumer action) {
+        for (int slot = 0; slot < size; ++slot)
+            action.accept(elements[slot]);
+    }
+
+    /**
+     * Returns the element stored in a given slot.
+     *
+     * @param slot the slot index, which must lie in the range
+     * {@code [0, size())}.
+     *
+     * @return the element stored in the specified slot.
+     */
+    int get(int slot) {
+        return elements[slot];
+    }
+
+    /**
+     * Removes an element from this set (has no effect if the element
+     * is not present).
+     *
+     * @param element the element to remove.
+     *
+     * @return {@code true} iff the element was removed.
+     */
+    boolean remove(int element) {
+        int slot = slots[element];
+
+        if (slot == ABSENT)
+            return false;
+
+        --size;
+
+        int last = elements[size];
+        elements[slot] = last;
+        slots[last] = slot;
+        slots[element] = ABSENT;
+
+        return true;
+    }
+
+    /**
+     * Selects one element at random (with equal probability).
+     *
+     * @param random the source of random deviates.
+     *
+     * @return an element selected at random ({@code -1} if this set
+     * is empty).
+     */
+    int select(Random random) {
+        if (size == 0)
+            return ABSENT;
+        else
+            return elements[random.nextInt(size)];
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set.
+     */
+    int size() {
+        return size;
+    }
+}
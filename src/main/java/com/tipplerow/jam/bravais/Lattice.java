@@ -43,12 +43,42 @@ public final class Lattice {
     @Getter
     private final UnitCell unitCell;
 
+    // The neighbor translation vectors, copied into an array for
+    // fast site-ordinal neighbor lookups...
+    private final UnitIndex[] transVecs;
+
+    // Neighbor ordinal offsets for interior sites (null unless the
+    // sites are ordered in row-major order)...
+    private final NeighborDeltas deltas;
+
+    // The translation of a site by one full period along each period
+    // dimension, packed DIMENSIONALITY components per dimension...
+    private final double[] periodShifts;
+
+    // Shared immutable tables, fetched from the process-wide cache
+    // on first use...
+    private volatile NeighborTable neighborTable;
+    private volatile CoordinateTable coordinateTable;
+
     private Lattice(UnitCell unitCell, Period period) {
         if (period.dimensionality() != unitCell.dimensionality())
             throw new IllegalArgumentException("Inconsistent unit cell and period dimensionality.");
 
         this.period = period;
         this.unitCell = unitCell;
+        this.transVecs = unitCell.viewNeighborTranslationVectors().toArray(new UnitIndex[0]);
+
+        if (period.ordering() == SiteOrdering.ROW_MAJOR)
+            this.deltas = new NeighborDeltas(period, unitCell.viewNeighborTranslationVectors());
+        else
+            this.deltas = null;
+
+        int dimensionality = unitCell.dimensionality();
+        this.periodShifts = new double[dimensionality * dimensionality];
+
+        for (int dim = 0; dim < dimensionality; ++dim)
+            for (int comp = 0; comp < dimensionality; ++comp)
+                periodShifts[dim * dimensionality + comp] = period.period(dim) * unitCell.viewBasis().get(dim).get(comp);
     }
 
     /**
@@ -67,6 +97,27 @@ public final class Lattice {
         return new Lattice(unitCell, period);
     }
 
+    /**
+     * Creates a new lattice with a fixed unit cell, period, and site
+     * ordering.
+     *
+     * @param unitCell the unit cell for the lattice.
+     *
+     * @param period the periodic dimensions of the lattice.
+     *
+     * @param ordering the ordering of the sites within the periodic
+     * box (overriding the ordering of the input period).
+     *
+     * @return a new empty lattice with the specified unit cell,
+     * period, and site ordering.
+     *
+     * @throws IllegalArgumentException unless the unit cell and lattice
+     * period have the same dimensionality.
+     */
+    public static Lattice create(UnitCell unitCell, Period period, SiteOrdering ordering) {
+        return new Lattice(unitCell, period.withOrdering(ordering));
+    }
+
     /**
      * Identifies points whose absolute coordinates (not periodic
      * images) lie within the primary box for this lattice.
@@ -80,6 +131,69 @@ public final class Lattice {
         return period.contains(unitCell.indexOf(point));
     }
 
+    /**
+     * Returns the number of nearest neighbors for each lattice site.
+     *
+     * @return the number of nearest neighbors for each lattice site.
+     */
+    public int countNeighbors() {
+        return transVecs.length;
+    }
+
+    /**
+     * Identifies ordinals that correspond to sites on this lattice.
+     *
+     * @param site the ordinal to examine.
+     *
+     * @return {@code true} iff the ordinal corresponds to a site on
+     * this lattice.
+     */
+    public boolean containsSite(int site) {
+        return period.containsSite(site);
+    }
+
+    /**
+     * Returns one continuous-space coordinate of an absolute unit
+     * index (not necessarily a primary site), computed from the
+     * coordinate table and the periodic shift vectors without
+     * allocation.
+     *
+     * @param index an absolute unit index.
+     *
+     * @param dim the coordinate dimension.
+     *
+     * @return the specified coordinate of the unit cell origin.
+     */
+    public double coord(UnitIndex index, int dim) {
+        int dimensionality = dimensionality();
+        double value = siteCoord(period.siteOf(index), dim);
+
+        for (int axis = 0; axis < dimensionality; ++axis) {
+            int wraps = Math.floorDiv(index.coord(axis), period.period(axis));
+            value += wraps * periodShifts[axis * dimensionality + dim];
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the table of continuous-space site coordinates for this
+     * lattice, which is shared by all lattices with the same unit
+     * cell, period, and site ordering.
+     *
+     * @return the table of continuous-space site coordinates.
+     */
+    public CoordinateTable coordinateTable() {
+        CoordinateTable table = coordinateTable;
+
+        if (table == null) {
+            table = LatticeTableCache.coordinateTable(this);
+            coordinateTable = table;
+        }
+
+        return table;
+    }
+
     /**
      * Returns the number of unique (non-periodic) sites in this
      * lattice.
@@ -100,6 +214,63 @@ public final class Lattice {
         return unitCell.dimensionality();
     }
 
+    /**
+     * Writes the continuous-space coordinates of every primary site
+     * on this lattice into a point cloud, in the order returned by
+     * {@code listPoints()}, without creating any per-site objects.
+     *
+     * @param cloud the point cloud to receive the coordinates.
+     *
+     * @return the number of points written (the number of sites).
+     *
+     * @throws IllegalArgumentException unless the point cloud has the
+     * dimensionality of this lattice and room for every site.
+     */
+    public int exportPoints(PointCloud cloud) {
+        cloud.validateCapacity(dimensionality(), countSites());
+
+        BulkOperationEvent event = BulkOperationEvent.start();
+        int[] index = new int[dimensionality()];
+        int capacity = siteCapacity();
+        int point = 0;
+
+        for (int site = 0; site < capacity; ++site) {
+            if (period.containsSite(site)) {
+                period.indexAt(site, index);
+                cloud.put(point++, unitCell, index);
+            }
+        }
+
+        event.finish("Lattice.exportPoints", this, point);
+        return point;
+    }
+
+    /**
+     * Visits every site on this lattice with the ordinals of its
+     * nearest neighbors.  With the row-major site ordering, the
+     * neighbors of interior sites are computed by adding fixed
+     * ordinal offsets, and periodic wrapping is applied only in the
+     * boundary layer.
+     *
+     * @param visitor the visitor to receive each site.
+     */
+    public void forEachNeighborhood(NeighborhoodVisitor visitor) {
+        if (deltas != null) {
+            deltas.sweep(period, transVecs, visitor);
+            return;
+        }
+
+        int[] neighbors = new int[transVecs.length];
+        int capacity = siteCapacity();
+
+        for (int site = 0; site < capacity; ++site) {
+            if (period.containsSite(site)) {
+                neighborSites(site, neighbors);
+                visitor.visit(site, neighbors);
+            }
+        }
+    }
+
     /**
      * Returns the periodic image of a continuous-space point
      * coordinate.
@@ -123,6 +294,34 @@ public final class Lattice {
         return period.imageOf(index);
     }
 
+    /**
+     * Returns the primary (non-periodic) unit index at a given site
+     * ordinal.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the primary unit index at the specified site ordinal.
+     *
+     * @throws IndexOutOfBoundsException unless the site ordinal is
+     * valid.
+     */
+    public UnitIndex indexAt(int site) {
+        return period.indexAt(site);
+    }
+
+    /**
+     * Identifies interior sites: those whose nearest neighbors do
+     * not cross the periodic boundary.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return {@code true} iff the site ordering is row-major and no
+     * neighbor of the site crosses the periodic boundary.
+     */
+    public boolean isInterior(int site) {
+        return deltas != null && deltas.isInterior(site);
+    }
+
     /**
      * Returns a list of all primary (non-periodic) points on this
      * lattice.
@@ -169,8 +368,11 @@ public final class Lattice {
      *
      * @return a mapping from each primary unit index on this lattice
      * to a list of its nearest neighbors.
+     *
+     * @see #neighborTable()
      */
     public Map<UnitIndex, List<UnitIndex>> mapIndexNeighbors(CoordType coordType) {
+        BulkOperationEvent event = BulkOperationEvent.start();
         List<UnitIndex> indexes = period.enumerate();
         Map<UnitIndex, List<UnitIndex>> neighborMap = new LinkedHashMap<>(indexes.size());
 
@@ -187,9 +389,176 @@ public final class Lattice {
             throw JamException.runtime("Unknown coordinate type: [%s].", coordType);
         }
 
+        event.finish("Lattice.mapIndexNeighbors", this, indexes.size());
         return neighborMap;
     }
 
+    /**
+     * Returns the site ordinal of a nearest neighbor to a primary
+     * lattice site (applying periodic boundary conditions).
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param k the index of the neighbor translation vector, in the
+     * order returned by {@code UnitCell.viewNeighborTranslationVectors()}.
+     *
+     * @return the site ordinal of the specified nearest neighbor.
+     */
+    public int neighborSite(int site, int k) {
+        return period.translate(site, transVecs[k]);
+    }
+
+    /**
+     * Computes the site ordinals of all nearest neighbors of a site,
+     * adding fixed ordinal offsets for interior sites.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param neighbors an array of length at least
+     * {@code countNeighbors()} to receive the neighbor ordinals, in
+     * the order returned by {@code UnitCell.viewNeighborTranslationVectors()}.
+     */
+    public void neighborSites(int site, int[] neighbors) {
+        if (deltas != null) {
+            deltas.fill(site, deltas.isInterior(site), period, transVecs, neighbors);
+        }
+        else {
+            for (int k = 0; k < transVecs.length; ++k)
+                neighbors[k] = period.translate(site, transVecs[k]);
+        }
+    }
+
+    /**
+     * Returns the table of nearest-neighbor site ordinals for this
+     * lattice, which is shared by all lattices with the same unit
+     * cell type, period, and site ordering.  The table is built on
+     * first use; lookups through the table avoid all translation
+     * arithmetic.
+     *
+     * @return the table of nearest-neighbor site ordinals.
+     */
+    public NeighborTable neighborTable() {
+        NeighborTable table = neighborTable;
+
+        if (table == null) {
+            table = LatticeTableCache.neighborTable(this);
+            neighborTable = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns the memory occupied by the neighbor table of this
+     * lattice (without building the table).
+     *
+     * @return the size of the neighbor table in bytes (zero if the
+     * table has not been built).
+     */
+    long neighborTableBytes() {
+        NeighborTable table = neighborTable;
+        return (table != null) ? table.byteSize() : 0L;
+    }
+
+    /**
+     * Returns the continuous-space location of an absolute unit index
+     * (not necessarily a primary site), computed from the coordinate
+     * table and the periodic shift vectors.
+     *
+     * @param index an absolute unit index.
+     *
+     * @return the continuous-space location of the unit cell origin.
+     */
+    public Point pointAt(UnitIndex index) {
+        double[] coords = new double[dimensionality()];
+
+        for (int dim = 0; dim < coords.length; ++dim)
+            coords[dim] = coord(index, dim);
+
+        return Point.at(coords);
+    }
+
+    /**
+     * Returns the length required for arrays indexed by site ordinal
+     * (which exceeds the number of sites if the site ordering pads
+     * the periodic box).
+     *
+     * @return the length required for arrays indexed by site ordinal.
+     *
+     * @throws IllegalStateException if this lattice is too large to
+     * be indexed by a Java array.
+     */
+    public int siteCapacity() {
+        long capacity = period.siteCapacity();
+
+        if (capacity > Integer.MAX_VALUE)
+            throw new IllegalStateException("Lattice is too large for array storage.");
+
+        return (int) capacity;
+    }
+
+    /**
+     * Returns the site ordinal of the periodic image of an absolute
+     * unit index.
+     *
+     * @param index an absolute unit index.
+     *
+     * @return the site ordinal of the periodic image of the specified
+     * unit index.
+     */
+    public int siteOf(UnitIndex index) {
+        return period.siteOf(index);
+    }
+
+    /**
+     * Returns the {@code x}-coordinate of a primary site from the
+     * coordinate table (without allocation).
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the {@code x}-coordinate of the specified site.
+     */
+    public double x(int site) {
+        return siteCoord(site, 0);
+    }
+
+    /**
+     * Returns the {@code y}-coordinate of a primary site from the
+     * coordinate table (without allocation).
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the {@code y}-coordinate of the specified site.
+     *
+     * @throws IndexOutOfBoundsException unless this lattice has at
+     * least two dimensions.
+     */
+    public double y(int site) {
+        return siteCoord(site, 1);
+    }
+
+    /**
+     * Returns the {@code z}-coordinate of a primary site from the
+     * coordinate table (without allocation).
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the {@code z}-coordinate of the specified site.
+     *
+     * @throws IndexOutOfBoundsException unless this lattice has three
+     * dimensions.
+     */
+    public double z(int site) {
+        return siteCoord(site, 2);
+    }
+
+    private double siteCoord(int site, int dim) {
+        if (dim >= dimensionality())
+            throw new IndexOutOfBoundsException("Invalid coordinate dimension.");
+
+        return coordinateTable().coord(site, dim);
+    }
+
     private void mapAbsoluteIndexNeighbors(List<UnitIndex> indexes, Map<UnitIndex, List<UnitIndex>> neighborMap) {
         for (UnitIndex index : indexes)
             neighborMap.put(index, unitCell.getNeighbors(index));
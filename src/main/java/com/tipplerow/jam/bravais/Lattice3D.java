@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.function.IntConsumer;
+
+import com.tipplerow.jam.math.Point;
+
+import lombok.Getter;
+
+/**
+ * Provides allocation-free access to a three-dimensional lattice
+ * through raw integer coordinates and site ordinals.
+ *
+ * <p>The dimensionality, unit cell, and period are validated once
+ * when the view is created, so no method validates its arguments or
+ * dispatches on dimensionality.  Site-ordinal methods still delegate
+ * to the site layout of the period, which is called virtually (one
+ * implementation per site ordering).
+ *
+ * @author Scott Shaffer
+ */
+public final class Lattice3D {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    private final UnitCell3D unitCell;
+    private final SiteLayout layout;
+
+    private final int nx;
+    private final int ny;
+    private final int nz;
+
+    // The neighbor translation vectors, by component...
+    private final int[] di;
+    private final int[] dj;
+    private final int[] dk;
+
+    private Lattice3D(Lattice lattice) {
+        if (lattice.dimensionality() != 3)
+            throw new IllegalArgumentException("Lattice is not three-dimensional.");
+
+        if (!(lattice.getUnitCell() instanceof UnitCell3D) || !(lattice.getPeriod() instanceof Period3D))
+            throw new IllegalArgumentException("Unsupported unit cell or period implementation.");
+
+        Period3D period = (Period3D) lattice.getPeriod();
+
+        this.lattice = lattice;
+        this.unitCell = (UnitCell3D) lattice.getUnitCell();
+        this.layout = period.layout();
+
+        this.nx = period.period(0);
+        this.ny = period.period(1);
+        this.nz = period.period(2);
+
+        int count = lattice.countNeighbors();
+
+        this.di = new int[count];
+        this.dj = new int[count];
+        this.dk = new int[count];
+
+        for (int k = 0; k < count; ++k) {
+            UnitIndex vector = unitCell.viewNeighborTranslationVectors().get(k);
+
+            di[k] = vector.coord(0);
+            dj[k] = vector.coord(1);
+            dk[k] = vector.coord(2);
+        }
+    }
+
+    /**
+     * Creates a specialized view of a three-dimensional lattice.
+     *
+     * @param lattice the lattice to view.
+     *
+     * @return a specialized view of the lattice.
+     *
+     * @throws IllegalArgumentException unless the lattice is
+     * three-dimensional with a built-in unit cell and period.
+     */
+    public static Lattice3D of(Lattice lattice) {
+        return new Lattice3D(lattice);
+    }
+
+    /**
+     * Returns the number of nearest neighbors for each lattice site.
+     *
+     * @return the number of nearest neighbors for each lattice site.
+     */
+    public int countNeighbors() {
+        return di.length;
+    }
+
+    /**
+     * Applies an action to the site ordinal of every nearest
+     * neighbor of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param action the action to apply.
+     */
+    public void forEachNeighbor(int site, IntConsumer action) {
+        for (int k = 0; k < di.length; ++k)
+            action.accept(layout.translate(site, di[k], dj[k], dk[k]));
+    }
+
+    /**
+     * Returns the {@code i}-coordinate of the periodic image at a
+     * site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the {@code i}-coordinate of the image at the site.
+     */
+    public int i(int site) {
+        return layout.x(site);
+    }
+
+    /**
+     * Returns the {@code j}-coordinate of the periodic image at a
+     * site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the {@code j}-coordinate of the image at the site.
+     */
+    public int j(int site) {
+        return layout.y(site);
+    }
+
+    /**
+     * Returns the {@code k}-coordinate of the periodic image at a
+     * site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the {@code k}-coordinate of the image at the site.
+     */
+    public int k(int site) {
+        return layout.z(site);
+    }
+
+    /**
+     * Returns the periodic image of an absolute {@code i}-coordinate.
+     *
+     * @param i an absolute {@code i}-coordinate.
+     *
+     * @return the periodic image of the coordinate.
+     */
+    public int imageI(int i) {
+        return Period.imageOf(i, nx);
+    }
+
+    /**
+     * Returns the periodic image of an absolute {@code j}-coordinate.
+     *
+     * @param j an absolute {@code j}-coordinate.
+     *
+     * @return the periodic image of the coordinate.
+     */
+    public int imageJ(int j) {
+        return Period.imageOf(j, ny);
+    }
+
+    /**
+     * Returns the periodic image of an absolute {@code k}-coordinate.
+     *
+     * @param k an absolute {@code k}-coordinate.
+     *
+     * @return the periodic image of the coordinate.
+     */
+    public int imageK(int k) {
+        return Period.imageOf(k, nz);
+    }
+
+    /**
+     * Returns the unit index of the cell containing a point.
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @param z the {@code z}-coordinate of the point.
+     *
+     * @return the (absolute) unit index of the cell containing the
+     * point.
+     */
+    public UnitIndex indexOf(double x, double y, double z) {
+        return UnitIndex.at(unitCell.indexI(x, y, z), unitCell.indexJ(x, y, z), unitCell.indexK(x, y, z));
+    }
+
+    /**
+     * Returns the site ordinal of a nearest neighbor.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param k the neighbor number, in the range
+     * {@code [0, countNeighbors())}.
+     *
+     * @return the ordinal of the specified neighbor.
+     */
+    public int neighborSite(int site, int k) {
+        return layout.translate(site, di[k], dj[k], dk[k]);
+    }
+
+    /**
+     * Returns the origin of a unit cell.
+     *
+     * @param i the (absolute) {@code i}-coordinate of the cell.
+     *
+     * @param j the (absolute) {@code j}-coordinate of the cell.
+     *
+     * @param k the (absolute) {@code k}-coordinate of the cell.
+     *
+     * @return the origin of the specified unit cell.
+     */
+    public Point pointAt(int i, int j, int k) {
+        return Point.at(unitCell.pointX(i, j, k), unitCell.pointY(i, j, k), unitCell.pointZ(i, j, k));
+    }
+
+    /**
+     * Returns the site ordinal of the periodic image of a unit cell.
+     *
+     * @param i the (absolute) {@code i}-coordinate of the cell.
+     *
+     * @param j the (absolute) {@code j}-coordinate of the cell.
+     *
+     * @param k the (absolute) {@code k}-coordinate of the cell.
+     *
+     * @return the site ordinal of the periodic image of the cell.
+     */
+    public int siteOf(int i, int j, int k) {
+        return layout.siteOf(imageI(i), imageJ(j), imageK(k));
+    }
+
+    /**
+     * Returns the site ordinal of the periodic image of the unit cell
+     * containing a point.
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @param z the {@code z}-coordinate of the point.
+     *
+     * @return the site ordinal of the cell containing the point.
+     */
+    public int siteOf(double x, double y, double z) {
+        return siteOf(unitCell.indexI(x, y, z), unitCell.indexJ(x, y, z), unitCell.indexK(x, y, z));
+    }
+}
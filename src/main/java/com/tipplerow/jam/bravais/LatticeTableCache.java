@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.ToLongFunction;
+
+import com.tipplerow.jam.lang.JamException;
+
+/**
+ * Maintains a process-wide, memory-bounded cache of the immutable
+ * neighbor, coordinate, and coarse-grid bin tables shared by
+ * identical lattices.
+ *
+ * <p>Neighbor tables are keyed by the neighbor translation vectors
+ * of the unit cell type, the periodic dimensions, and the site
+ * ordering; coordinate tables are keyed additionally by the unit cell
+ * basis, and bin tables by the bin sizes (but not the unit cell).
+ * Each table is built once, by the first thread to request it, while
+ * other threads requesting the same table wait for it.
+ *
+ * <p>Tables are evicted in least-recently-used order when their total
+ * size exceeds the cache capacity.  Evicted tables are retained only
+ * weakly: a table still held by a live lattice is reused rather than
+ * rebuilt when it is requested again.
+ *
+ * <p>If a table directory is assigned, neighbor and coordinate tables
+ * are also persisted as memory-mappable files in that directory, so
+ * that later processes map each table instead of rebuilding it.  A
+ * file is used only if its header matches the unit cell type,
+ * periodic dimensions, site ordering, and file format version of the
+ * requested table; missing or stale files are rebuilt and replaced.
+ * The directory is purely a cache: a table is still returned if its
+ * file cannot be written.
+ *
+ * @author Scott Shaffer
+ */
+public final class LatticeTableCache {
+    /**
+     * The default cache capacity in bytes.
+     */
+    public static final long DEFAULT_CAPACITY = 256L << 20;
+
+    private static final Object LOCK = new Object();
+
+    // Tables in least-recently-used order...
+    private static final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Evicted tables that may still be referenced by live lattices...
+    private static final Map<Key, WeakReference<Object>> retired = new HashMap<>();
+
+    private static long capacity = DEFAULT_CAPACITY;
+    private static long weight = 0;
+    private static Path directory = null;
+
+    private LatticeTableCache() {
+    }
+
+    private static final class Key {
+        private final Object[] parts;
+        private final int hashCode;
+
+        private Key(Object... parts) {
+            this.parts = parts;
+            this.hashCode = Arrays.deepHashCode(parts);
+        }
+
+        @Override public boolean equals(Object obj) {
+            return (obj instanceof Key) && Arrays.deepEquals(this.parts, ((Key) obj).parts);
+        }
+
+        @Override public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final FutureTask<Object> task;
+        private Object table = null;
+        private long bytes = 0;
+
+        private Entry(FutureTask<Object> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * Returns the capacity of the cache in bytes.
+     *
+     * @return the capacity of the cache in bytes.
+     */
+    public static long capacity() {
+        synchronized (LOCK) {
+            return capacity;
+        }
+    }
+
+    /**
+     * Removes all tables from the cache (lattices that already hold
+     * a table continue to use it).
+     */
+    public static void clear() {
+        synchronized (LOCK) {
+            entries.clear();
+            retired.clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * Returns the number of tables held in the cache.
+     *
+     * @return the number of tables held in the cache.
+     */
+    public static int countTables() {
+        synchronized (LOCK) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the directory for persistent table files.
+     *
+     * @return the directory for persistent table files ({@code null}
+     * if tables are not persisted).
+     */
+    public static Path directory() {
+        synchronized (LOCK) {
+            return directory;
+        }
+    }
+
+    /**
+     * Assigns the capacity of the cache and evicts tables as needed
+     * to respect the new capacity.
+     *
+     * @param bytes the new capacity in bytes.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public static void setCapacity(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("Negative cache capacity.");
+
+        synchronized (LOCK) {
+            capacity = bytes;
+            trim();
+        }
+    }
+
+    /**
+     * Assigns the directory for persistent table files.  Tables
+     * already held in memory are unaffected.
+     *
+     * @param dir an existing, writable directory, or {@code null} to
+     * stop persisting tables.
+     */
+    public static void setDirectory(Path dir) {
+        synchronized (LOCK) {
+            directory = dir;
+        }
+    }
+
+    /**
+     * Returns the total size of the tables held in the cache.
+     *
+     * @return the total size of the tables held in the cache, in
+     * bytes.
+     */
+    public static long weight() {
+        synchronized (LOCK) {
+            return weight;
+        }
+    }
+
+    /**
+     * Returns the shared coarse-grid bin table for a lattice, building
+     * it if necessary.
+     *
+     * @param lattice the lattice to partition.
+     *
+     * @param binSizes the number of unit cells spanned by each bin
+     * along each axis.
+     *
+     * @return the shared bin table for the lattice and bin sizes.
+     */
+    static int[] binTable(Lattice lattice, int[] binSizes) {
+        Key key = new Key(CoarseGrid.class,
+                          periodDims(lattice.getPeriod()),
+                          lattice.getPeriod().ordering(),
+                          binSizes.clone());
+
+        return fetch(key, () -> CoarseGrid.buildTable(lattice, binSizes), table -> 4L * table.length);
+    }
+
+    /**
+     * Returns the shared coordinate table for a lattice, building it
+     * if necessary.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @return the shared coordinate table for the lattice.
+     */
+    static CoordinateTable coordinateTable(Lattice lattice) {
+        Key key = new Key(CoordinateTable.class,
+                          lattice.getUnitCell().getClass(),
+                          flattenBasis(lattice.getUnitCell()),
+                          periodDims(lattice.getPeriod()),
+                          lattice.getPeriod().ordering());
+
+        Path dir = directory();
+        return fetch(key, () -> CoordinateTable.load(lattice, dir), CoordinateTable::byteSize);
+    }
+
+    /**
+     * Returns the shared neighbor table for a lattice, building it if
+     * necessary.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @return the shared neighbor table for the lattice.
+     */
+    static NeighborTable neighborTable(Lattice lattice) {
+        Key key = new Key(NeighborTable.class,
+                          lattice.getUnitCell().viewNeighborTranslationVectors(),
+                          periodDims(lattice.getPeriod()),
+                          lattice.getPeriod().ordering());
+
+        Path dir = directory();
+        return fetch(key, () -> NeighborTable.load(lattice, dir), NeighborTable::byteSize);
+    }
+
+    static double[] flattenBasis(UnitCell unitCell) {
+        int dimensionality = unitCell.dimensionality();
+        double[] flat = new double[dimensionality * dimensionality];
+
+        for (int vec = 0; vec < dimensionality; ++vec)
+            for (int dim = 0; dim < dimensionality; ++dim)
+                flat[vec * dimensionality + dim] = unitCell.viewBasis().get(vec).get(dim);
+
+        return flat;
+    }
+
+    private static int[] periodDims(Period period) {
+        int[] dims = new int[period.dimensionality()];
+
+        for (int dim = 0; dim < dims.length; ++dim)
+            dims[dim] = period.period(dim);
+
+        return dims;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fetch(Key key, Callable<T> builder, ToLongFunction<T> sizer) {
+        Entry entry;
+        boolean owner = false;
+
+        synchronized (LOCK) {
+            entry = entries.get(key);
+
+            if (entry == null) {
+                entry = new Entry(new FutureTask<>(reviveOrBuild(key, builder)));
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+
+        if (!owner)
+            return (T) await(entry.task);
+
+        T table;
+        entry.task.run();
+
+        try {
+            table = (T) await(entry.task);
+        }
+        catch (RuntimeException | Error ex) {
+            synchronized (LOCK) {
+                entries.remove(key, entry);
+            }
+
+            throw ex;
+        }
+
+        synchronized (LOCK) {
+            // The cache may have been cleared while the table was built...
+            if (entries.get(key) == entry) {
+                entry.table = table;
+                entry.bytes = sizer.applyAsLong(table);
+                weight += entry.bytes;
+                trim();
+            }
+        }
+
+        return table;
+    }
+
+    private static Callable<Object> reviveOrBuild(Key key, Callable<?> builder) {
+        WeakReference<Object> ref = retired.remove(key);
+        Object table = (ref != null) ? ref.get() : null;
+
+        if (table != null)
+            return () -> table;
+        else
+            return builder::call;
+    }
+
+    private static Object await(FutureTask<Object> task) {
+        try {
+            return task.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted while building a lattice table.");
+        }
+        catch (ExecutionException ex) {
+            // Table builders throw only unchecked exceptions...
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            else
+                throw (RuntimeException) ex.getCause();
+        }
+    }
+
+    private static void trim() {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+
+        while (weight > capacity && iterator.hasNext()) {
+            Map.Entry<Key, Entry> eldest = iterator.next();
+            Entry entry = eldest.getValue();
+
+            // Tables still being built are not yet counted...
+            if (entry.table == null)
+                continue;
+
+            iterator.remove();
+            weight -= entry.bytes;
+            retired.put(eldest.getKey(), new WeakReference<>(entry.table));
+        }
+
+        retired.values().removeIf(ref -> ref.get() == null);
+    }
+}
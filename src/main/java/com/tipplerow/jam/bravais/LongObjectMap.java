@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Maps primitive {@code long} keys to non-null values in an open
+ * addressing hash table (linear probing with backward-shift deletion),
+ * without boxing the keys.
+ *
+ * @author Scott Shaffer
+ */
+final class LongObjectMap<V> {
+    private long[] keys;
+    private Object[] values;
+
+    private int mask;
+    private int size = 0;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Creates a new empty map.
+     */
+    LongObjectMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(long key) {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key the key of interest.
+     *
+     * @return the value mapped to the specified key ({@code null} if
+     * there is no mapping).
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        for (int slot = slotOf(key); values[slot] != null; slot = (slot + 1) & mask)
+            if (keys[slot] == key)
+                return (V) values[slot];
+
+        return null;
+    }
+
+    /**
+     * Maps a key to a value.
+     *
+     * @param key the key to map.
+     *
+     * @param value the (non-null) value to map.
+     *
+     * @return the value previously mapped to the key ({@code null} if
+     * there was no mapping).
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (value == null)
+            throw new NullPointerException("Null values are not permitted.");
+
+        int slot = slotOf(key);
+
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V prev = (V) values[slot];
+                values[slot] = value;
+                return prev;
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        // Keep the load factor at or below one-half...
+        if (++size > keys.length / 2)
+            rehash(2 * keys.length);
+
+        return null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int oldSlot = 0; oldSlot < oldKeys.length; ++oldSlot) {
+            if (oldValues[oldSlot] == null)
+                continue;
+
+            int slot = slotOf(oldKeys[oldSlot]);
+
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+
+            keys[slot] = oldKeys[oldSlot];
+            values[slot] = oldValues[oldSlot];
+        }
+    }
+
+    /**
+     * Removes the mapping for a key.
+     *
+     * @param key the key to remove.
+     *
+     * @return the value previously mapped to the key ({@code null} if
+     * there was no mapping).
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int slot = slotOf(key);
+
+        while (values[slot] != null && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if (values[slot] == null)
+            return null;
+
+        V prev = (V) values[slot];
+        --size;
+
+        //
+        // Shift subsequent entries in the probe sequence backward to
+        // fill the gap (no tombstones)...
+        //
+        int gap = slot;
+
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next]);
+
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+
+        values[gap] = null;
+        return prev;
+    }
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * Stores a population of occupant identifiers in a memory-mapped
+ * file that may be shared by several processes: one process creates
+ * the file and updates the population, while any number of other
+ * processes attach to the file read-only and query the population
+ * without copying it.
+ *
+ * <p>The file contains a header, an occupancy bitmap, and an array
+ * of occupant identifiers, both indexed by site ordinal.  Updates
+ * are guarded by a sequence lock: the writer increments a sequence
+ * number in the header before and after each update (or batch of
+ * updates), and readers retry any query that overlaps an update, so
+ * every query observes a state between two updates.
+ *
+ * <p>Occupant identifiers must be non-negative; the identifiers are
+ * not required to be unique.
+ *
+ * @author Scott Shaffer
+ */
+public final class MappedPopulation implements Closeable {
+    private final Lattice lattice;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+    private final int capacity;
+    private final int idOffset;
+
+    // The number of nested batches in progress (writer only)...
+    private int batchDepth = 0;
+
+    /**
+     * The identifier returned for vacant sites.
+     */
+    public static final long VACANT = -1L;
+
+    private static final long MAGIC = 0x4A414D5042524156L;
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int DIM_OFFSET = 12;
+    private static final int PERIOD_OFFSET = 16;
+    private static final int ORDERING_OFFSET = 28;
+    private static final int CAPACITY_OFFSET = 32;
+    private static final int SEQUENCE_OFFSET = 40;
+    private static final int COUNT_OFFSET = 48;
+    private static final int BITMAP_OFFSET = 64;
+
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private MappedPopulation(Lattice lattice, FileChannel channel, boolean writable) throws IOException {
+        this.lattice = lattice;
+        this.channel = channel;
+        this.writable = writable;
+        this.capacity = lattice.siteCapacity();
+        this.idOffset = BITMAP_OFFSET + 8 * wordCount(capacity);
+
+        long fileSize = idOffset + 8L * capacity;
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+
+        if (fileSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Lattice is too large for a mapped population.");
+
+        if (!writable && channel.size() < fileSize)
+            throw new IllegalArgumentException("Mapped population file is truncated.");
+
+        this.buffer = channel.map(mode, 0, fileSize);
+        this.buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private static int wordCount(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    /**
+     * Creates a new empty population in a memory-mapped file (which
+     * is replaced if it already exists) and opens it for writing.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @param path the path of the file to create.
+     *
+     * @return the new writable population.
+     *
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public static MappedPopulation create(Lattice lattice, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                                               StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            MappedPopulation population = new MappedPopulation(lattice, channel, true);
+            population.writeHeader();
+            return population;
+        }
+        catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Attaches read-only to a population created by another process
+     * (or by this process).
+     *
+     * @param lattice the Bravais lattice that contains the occupants,
+     * which must have the same period and site ordering as the
+     * lattice used to create the file.
+     *
+     * @param path the path of the shared file.
+     *
+     * @return a read-only view of the shared population.
+     *
+     * @throws IOException if the file cannot be opened or mapped.
+     *
+     * @throws IllegalArgumentException unless the file contains a
+     * population on a lattice with the same period and site ordering.
+     */
+    public static MappedPopulation attach(Lattice lattice, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            MappedPopulation population = new MappedPopulation(lattice, channel, false);
+            population.validateHeader();
+            return population;
+        }
+        catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Applies a sequence of updates as a single atomic update:
+     * readers observe either none of the updates or all of them.
+     *
+     * @param updates the updates to apply.
+     *
+     * @throws IllegalStateException if this population is read-only.
+     */
+    public void batch(Runnable updates) {
+        beginUpdate();
+
+        try {
+            updates.run();
+        }
+        finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Removes all occupants from this population.
+     *
+     * @throws IllegalStateException if this population is read-only.
+     */
+    public void clear() {
+        beginUpdate();
+
+        try {
+            for (int word = 0; word < wordCount(capacity); ++word)
+                buffer.putLong(BITMAP_OFFSET + 8 * word, 0L);
+
+            buffer.putLong(COUNT_OFFSET, 0L);
+        }
+        finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Closes the underlying file channel.  The mapping itself remains
+     * valid until it is garbage collected.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Counts the occupied nearest neighbors of a site.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the number of occupied nearest neighbors of the
+     * specified site.
+     */
+    public int countNeighbors(UnitIndex index) {
+        int site = lattice.siteOf(index);
+        return read(population -> population.countNeighborsUnlocked(site));
+    }
+
+    /**
+     * Returns the number of occupants in this population.
+     *
+     * @return the number of occupants in this population.
+     */
+    public long countOccupants() {
+        return read(population -> population.buffer.getLong(COUNT_OFFSET));
+    }
+
+    /**
+     * Returns the underlying Bravais lattice.
+     *
+     * @return the underlying Bravais lattice.
+     */
+    public Lattice getLattice() {
+        return lattice;
+    }
+
+    /**
+     * Returns the current sequence number, which is odd while an
+     * update is in progress and increases by two with each completed
+     * update.
+     *
+     * @return the current sequence number.
+     */
+    public long getSequence() {
+        return (long) LONG_VIEW.getAcquire(buffer, SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Identifies occupied sites.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return {@code true} iff the specified site is occupied.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        int site = lattice.siteOf(index);
+        return read(population -> population.isOccupiedUnlocked(site));
+    }
+
+    /**
+     * Identifies writable populations.
+     *
+     * @return {@code true} iff this population was opened for writing.
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Returns the identifiers of the occupied nearest neighbors of a
+     * site.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the identifiers of the occupants of the nearest
+     * neighbors of the specified site.
+     */
+    public long[] neighborsOf(UnitIndex index) {
+        int site = lattice.siteOf(index);
+        return read(population -> population.neighborsOfUnlocked(site));
+    }
+
+    /**
+     * Returns the identifier of the occupant of a site.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the identifier of the occupant of the specified site
+     * ({@code VACANT} if the site is vacant).
+     */
+    public long occupantAt(UnitIndex index) {
+        int site = lattice.siteOf(index);
+        return read(population -> population.occupantAtUnlocked(site));
+    }
+
+    /**
+     * Places an occupant on a site.
+     *
+     * @param occupant the identifier of the occupant.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the identifier of the previous occupant of the site
+     * ({@code VACANT} if the site was vacant).
+     *
+     * @throws IllegalArgumentException if the identifier is negative.
+     *
+     * @throws IllegalStateException if this population is read-only.
+     */
+    public long place(long occupant, UnitIndex index) {
+        if (occupant < 0)
+            throw new IllegalArgumentException("Negative occupant identifier.");
+
+        int site = lattice.siteOf(index);
+        beginUpdate();
+
+        try {
+            long prevOcc = occupantAtUnlocked(site);
+
+            if (prevOcc == VACANT) {
+                setOccupied(site, true);
+                buffer.putLong(COUNT_OFFSET, buffer.getLong(COUNT_OFFSET) + 1);
+            }
+
+            buffer.putLong(idOffset + 8 * site, occupant);
+            return prevOcc;
+        }
+        finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Runs a query against a consistent state of this population,
+     * retrying the query if the writer updates the population while
+     * the query runs.  The query must not modify the population and
+     * must tolerate inconsistent reads on the attempts that are
+     * discarded.
+     *
+     * @param <R> the type of the query result.
+     *
+     * @param query the query to run.
+     *
+     * @return the result of the query from an attempt that did not
+     * overlap an update.
+     */
+    public <R> R read(Function<MappedPopulation, R> query) {
+        if (writable)
+            return query.apply(this);
+
+        while (true) {
+            long before = (long) LONG_VIEW.getAcquire(buffer, SEQUENCE_OFFSET);
+
+            if ((before & 1L) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            R result = query.apply(this);
+
+            VarHandle.loadLoadFence();
+            long after = (long) LONG_VIEW.getVolatile(buffer, SEQUENCE_OFFSET);
+
+            if (before == after)
+                return result;
+        }
+    }
+
+    /**
+     * Removes the occupant of a site.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the identifier of the removed occupant ({@code VACANT}
+     * if the site was vacant).
+     *
+     * @throws IllegalStateException if this population is read-only.
+     */
+    public long remove(UnitIndex index) {
+        int site = lattice.siteOf(index);
+        beginUpdate();
+
+        try {
+            long prevOcc = occupantAtUnlocked(site);
+
+            if (prevOcc != VACANT) {
+                setOccupied(site, false);
+                buffer.putLong(COUNT_OFFSET, buffer.getLong(COUNT_OFFSET) - 1);
+            }
+
+            return prevOcc;
+        }
+        finally {
+            endUpdate();
+        }
+    }
+
+    private void beginUpdate() {
+        if (!writable)
+            throw new IllegalStateException("Population is read-only.");
+
+        if (batchDepth++ > 0)
+            return;
+
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+
+        // The odd sequence number must be visible before any of the
+        // updated data...
+        LONG_VIEW.setVolatile(buffer, SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    private void endUpdate() {
+        if (--batchDepth > 0)
+            return;
+
+        long sequence = buffer.getLong(SEQUENCE_OFFSET);
+        LONG_VIEW.setRelease(buffer, SEQUENCE_OFFSET, sequence + 1);
+    }
+
+    private int countNeighborsUnlocked(int site) {
+        int count = 0;
+
+        for (int k = 0; k < lattice.countNeighbors(); ++k)
+            if (isOccupiedUnlocked(lattice.neighborSite(site, k)))
+                ++count;
+
+        return count;
+    }
+
+    private boolean isOccupiedUnlocked(int site) {
+        return ((buffer.getLong(BITMAP_OFFSET + 8 * (site >>> 6)) >>> (site & 63)) & 1L) != 0;
+    }
+
+    private long[] neighborsOfUnlocked(int site) {
+        long[] neighbors = new long[countNeighborsUnlocked(site)];
+        int count = 0;
+
+        for (int k = 0; k < lattice.countNeighbors() && count < neighbors.length; ++k) {
+            long neighbor = occupantAtUnlocked(lattice.neighborSite(site, k));
+
+            if (neighbor != VACANT)
+                neighbors[count++] = neighbor;
+        }
+
+        return neighbors;
+    }
+
+    private long occupantAtUnlocked(int site) {
+        if (isOccupiedUnlocked(site))
+            return buffer.getLong(idOffset + 8 * site);
+        else
+            return VACANT;
+    }
+
+    private void setOccupied(int site, boolean occupied) {
+        int offset = BITMAP_OFFSET + 8 * (site >>> 6);
+        long mask = 1L << (site & 63);
+        long word = buffer.getLong(offset);
+
+        buffer.putLong(offset, occupied ? (word | mask) : (word & ~mask));
+    }
+
+    private void validateHeader() {
+        Period period = lattice.getPeriod();
+
+        if (buffer.getLong(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION)
+            throw new IllegalArgumentException("File does not contain a mapped population.");
+
+        boolean matches =
+            buffer.getInt(DIM_OFFSET) == period.dimensionality()
+            && buffer.getInt(ORDERING_OFFSET) == period.ordering().ordinal()
+            && buffer.getInt(CAPACITY_OFFSET) == capacity;
+
+        for (int dim = 0; dim < period.dimensionality(); ++dim)
+            matches = matches && buffer.getInt(PERIOD_OFFSET + 4 * dim) == period.period(dim);
+
+        if (!matches)
+            throw new IllegalArgumentException("Mapped population does not match the lattice.");
+    }
+
+    private void writeHeader() {
+        Period period = lattice.getPeriod();
+
+        buffer.putLong(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(DIM_OFFSET, period.dimensionality());
+
+        for (int dim = 0; dim < period.dimensionality(); ++dim)
+            buffer.putInt(PERIOD_OFFSET + 4 * dim, period.period(dim));
+
+        buffer.putInt(ORDERING_OFFSET, period.ordering().ordinal());
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(SEQUENCE_OFFSET, 0L);
+        buffer.putLong(COUNT_OFFSET, 0L);
+    }
+}
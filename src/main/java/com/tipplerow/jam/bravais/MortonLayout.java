@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Orders sites along a Z-order (Morton) space-filling curve, where
+ * the site ordinal interleaves the bits of the image coordinates.
+ *
+ * <p>Each box length is padded to the next power of two, and the
+ * bits are interleaved (x lowest, then y, then z) for as many levels
+ * as each padded length requires.  The ordinals are dense when every
+ * box length is a power of two; otherwise the ordinals of the padding
+ * sites are left unused.
+ *
+ * @author Scott Shaffer
+ */
+final class MortonLayout extends SiteLayout {
+    private final int xbits;
+    private final int ybits;
+    private final int zbits;
+    private final int maxBits;
+
+    // Whether the padded box is a cube (or square in two dimensions),
+    // so that the magic-number bit spreading applies...
+    private final boolean cubic2D;
+    private final boolean cubic3D;
+
+    // Whether the box is unpadded and cubic, so that translations
+    // may be computed by dilated-integer arithmetic...
+    private final boolean dilated;
+    private final int xmask;
+    private final int ymask;
+    private final int zmask;
+
+    MortonLayout(int nx, int ny, int nz) {
+        super(nx, ny, nz);
+        validatePackable();
+
+        this.xbits = bitsFor(nx);
+        this.ybits = bitsFor(ny);
+        this.zbits = bitsFor(nz);
+        this.maxBits = Math.max(xbits, Math.max(ybits, zbits));
+
+        if (xbits + ybits + zbits > 30)
+            throw new IllegalArgumentException("Period is too large for the Morton ordering.");
+
+        this.cubic2D = (zbits == 0) && (xbits == ybits);
+        this.cubic3D = (xbits == ybits) && (ybits == zbits);
+
+        this.dilated = (cubic2D || cubic3D) && capacity() == (long) nx * ny * nz;
+
+        if (cubic3D) {
+            this.xmask = (int) (capacity() - 1) & 0x09249249;
+            this.ymask = xmask << 1;
+            this.zmask = xmask << 2;
+        }
+        else if (cubic2D) {
+            this.xmask = (int) (capacity() - 1) & 0x55555555;
+            this.ymask = xmask << 1;
+            this.zmask = 0;
+        }
+        else {
+            this.xmask = 0;
+            this.ymask = 0;
+            this.zmask = 0;
+        }
+    }
+
+    /**
+     * Returns the number of bits required to represent the
+     * coordinates in a padded box dimension.
+     *
+     * @param length the box length.
+     *
+     * @return the base-two logarithm of the smallest power of two
+     * that is greater than or equal to the box length.
+     */
+    static int bitsFor(int length) {
+        return 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    /**
+     * Spreads the low ten bits of an integer so that two zero bits
+     * separate adjacent bits.
+     *
+     * @param x the integer to spread.
+     *
+     * @return the spread integer.
+     */
+    static int spread3(int x) {
+        x &= 0x000003FF;
+        x = (x | (x << 16)) & 0x030000FF;
+        x = (x | (x <<  8)) & 0x0300F00F;
+        x = (x | (x <<  4)) & 0x030C30C3;
+        x = (x | (x <<  2)) & 0x09249249;
+        return x;
+    }
+
+    /**
+     * Inverts {@code spread3}: compacts every third bit of an integer.
+     *
+     * @param x the integer to compact.
+     *
+     * @return the compacted integer.
+     */
+    static int compact3(int x) {
+        x &= 0x09249249;
+        x = (x ^ (x >>>  2)) & 0x030C30C3;
+        x = (x ^ (x >>>  4)) & 0x0300F00F;
+        x = (x ^ (x >>>  8)) & 0xFF0000FF;
+        x = (x ^ (x >>> 16)) & 0x000003FF;
+        return x;
+    }
+
+    /**
+     * Spreads the low sixteen bits of an integer so that one zero bit
+     * separates adjacent bits.
+     *
+     * @param x the integer to spread.
+     *
+     * @return the spread integer.
+     */
+    static int spread2(int x) {
+        x &= 0x0000FFFF;
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        return x;
+    }
+
+    /**
+     * Inverts {@code spread2}: compacts every second bit of an
+     * integer.
+     *
+     * @param x the integer to compact.
+     *
+     * @return the compacted integer.
+     */
+    static int compact2(int x) {
+        x &= 0x55555555;
+        x = (x ^ (x >>> 1)) & 0x33333333;
+        x = (x ^ (x >>> 2)) & 0x0F0F0F0F;
+        x = (x ^ (x >>> 4)) & 0x00FF00FF;
+        x = (x ^ (x >>> 8)) & 0x0000FFFF;
+        return x;
+    }
+
+    @Override long capacity() {
+        return 1 << (xbits + ybits + zbits);
+    }
+
+    @Override boolean contains(int site) {
+        if (site < 0 || site >= capacity())
+            return false;
+
+        long coords = decode(site);
+
+        return unpackX(coords) < nx
+            && unpackY(coords) < ny
+            && unpackZ(coords) < nz;
+    }
+
+    @Override long decode(int site) {
+        if (cubic3D)
+            return pack(compact3(site), compact3(site >>> 1), compact3(site >>> 2));
+
+        if (cubic2D)
+            return pack(compact2(site), compact2(site >>> 1), 0);
+
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        int shift = 0;
+
+        for (int level = 0; level < maxBits; ++level) {
+            if (level < xbits)
+                i |= ((site >>> shift++) & 1) << level;
+
+            if (level < ybits)
+                j |= ((site >>> shift++) & 1) << level;
+
+            if (level < zbits)
+                k |= ((site >>> shift++) & 1) << level;
+        }
+
+        return pack(i, j, k);
+    }
+
+    @Override int translate(int site, int di, int dj, int dk) {
+        if (!dilated)
+            return super.translate(site, di, dj, dk);
+
+        // Add each translation component in its dilated bit field:
+        // setting the bits of the other fields propagates the carry
+        // across them, and masking discards the carry out of the top
+        // bit, which wraps the coordinate around the periodic box...
+        int sx;
+        int sy;
+        int sz;
+
+        if (cubic3D) {
+            sx = spread3(di & (nx - 1));
+            sy = spread3(dj & (ny - 1)) << 1;
+            sz = spread3(dk & (nz - 1)) << 2;
+        }
+        else {
+            sx = spread2(di & (nx - 1));
+            sy = spread2(dj & (ny - 1)) << 1;
+            sz = 0;
+        }
+
+        return (((site | ~xmask) + sx) & xmask)
+            |  (((site | ~ymask) + sy) & ymask)
+            |  (((site | ~zmask) + sz) & zmask);
+    }
+
+    @Override int siteOf(int i, int j, int k) {
+        if (cubic3D)
+            return spread3(i) | (spread3(j) << 1) | (spread3(k) << 2);
+
+        if (cubic2D)
+            return spread2(i) | (spread2(j) << 1);
+
+        int site = 0;
+        int shift = 0;
+
+        for (int level = 0; level < maxBits; ++level) {
+            if (level < xbits)
+                site |= ((i >>> level) & 1) << shift++;
+
+            if (level < ybits)
+                site |= ((j >>> level) & 1) << shift++;
+
+            if (level < zbits)
+                site |= ((k >>> level) & 1) << shift++;
+        }
+
+        return site;
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+
+/**
+ * Tracks a population of occupants on a Bravais lattice where each
+ * site may hold up to a fixed number of occupants.
+ *
+ * <p>Occupants are stored in a single slot array: site {@code s}
+ * owns the contiguous slots {@code [s * K, s * K + count(s))}, where
+ * {@code K} is the site capacity.  Removing an occupant moves the
+ * last occupant of the same site into the vacated slot, so placement,
+ * removal, moves between sites, and per-site counts all take constant
+ * time.  Sites are identified by the ordinals of their periodic
+ * images; unlike {@code Population}, this class does not record the
+ * absolute unit indexes of its occupants.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class MultiPopulation<T> {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    /**
+     * The maximum number of occupants at each site.
+     */
+    @Getter
+    private final int capacity;
+
+    // Occupants in per-site blocks of slots...
+    private final Object[] slots;
+
+    // The number of occupants at each site...
+    private final byte[] counts;
+
+    // Mapping from occupants to their slot index...
+    private final Map<T, Integer> slotMap = new HashMap<>();
+
+    /**
+     * The maximum site capacity.
+     */
+    public static final int MAX_CAPACITY = Byte.MAX_VALUE;
+
+    private MultiPopulation(Lattice lattice, int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Invalid site capacity.");
+
+        long slotCount = (long) lattice.siteCapacity() * capacity;
+
+        if (slotCount > Integer.MAX_VALUE)
+            throw new IllegalStateException("Lattice is too large for array storage.");
+
+        this.lattice = lattice;
+        this.capacity = capacity;
+        this.slots = new Object[(int) slotCount];
+        this.counts = new byte[lattice.siteCapacity()];
+    }
+
+    /**
+     * Creates a new empty population.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @param capacity the maximum number of occupants at each site.
+     *
+     * @return a new empty population.
+     *
+     * @throws IllegalArgumentException unless the capacity lies
+     * between one and {@code MAX_CAPACITY} (inclusive).
+     */
+    public static <T> MultiPopulation<T> empty(Lattice lattice, int capacity) {
+        return new MultiPopulation<>(lattice, capacity);
+    }
+
+    /**
+     * Identifies occupants on this lattice.
+     *
+     * @param occupant an occupant to examine.
+     *
+     * @return {@code true} iff this lattice contains the specified
+     * occupant.
+     */
+    public boolean contains(T occupant) {
+        return slotMap.containsKey(occupant);
+    }
+
+    /**
+     * Returns the number of occupants on this lattice.
+     *
+     * @return the number of occupants on this lattice.
+     */
+    public int countOccupants() {
+        return slotMap.size();
+    }
+
+    /**
+     * Returns the number of occupants at a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the number of occupants at the specified site.
+     */
+    public int countOccupants(int site) {
+        return counts[site];
+    }
+
+    /**
+     * Returns the number of occupants in a unit cell (applying
+     * periodic boundary conditions if necessary).
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the number of occupants in the specified unit cell.
+     */
+    public int countOccupants(UnitIndex index) {
+        return countOccupants(lattice.siteOf(index));
+    }
+
+    /**
+     * Applies an action to every occupant of the nearest neighbors of
+     * a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param action the action to apply to each occupant of each
+     * neighboring site.
+     */
+    public void forEachNeighbor(int site, Consumer<? super T> action) {
+        for (int k = 0; k < lattice.countNeighbors(); ++k)
+            forEachOccupant(lattice.neighborSite(site, k), action);
+    }
+
+    /**
+     * Applies an action to every occupant of the sites neighboring an
+     * occupant (the occupants sharing its own site are not visited).
+     *
+     * @param occupant the occupant of interest.
+     *
+     * @param action the action to apply to each occupant of each
+     * neighboring site.
+     */
+    public void forEachNeighbor(T occupant, Consumer<? super T> action) {
+        int site = siteOf(occupant);
+
+        if (site >= 0)
+            forEachNeighbor(site, action);
+    }
+
+    /**
+     * Applies an action to every occupant of a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param action the action to apply to each occupant.
+     */
+    public void forEachOccupant(int site, Consumer<? super T> action) {
+        int first = site * capacity;
+        int last  = first + counts[site];
+
+        for (int slot = first; slot < last; ++slot)
+            action.accept(occupantAtSlot(slot));
+    }
+
+    /**
+     * Returns the primary (periodic image) unit index of the site
+     * occupied by an occupant.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the primary unit index of the specified occupant
+     * ({@code null} if this lattice does not contain the occupant).
+     */
+    public UnitIndex indexOf(T occupant) {
+        int site = siteOf(occupant);
+
+        if (site >= 0)
+            return lattice.indexAt(site);
+        else
+            return null;
+    }
+
+    /**
+     * Identifies empty lattices.
+     *
+     * @return {@code true} iff this lattice contains no occupants.
+     */
+    public boolean isEmpty() {
+        return slotMap.isEmpty();
+    }
+
+    /**
+     * Identifies lattice sites filled to capacity.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return {@code true} iff the specified site is filled to
+     * capacity.
+     */
+    public boolean isFull(int site) {
+        return counts[site] == capacity;
+    }
+
+    /**
+     * Moves an occupant to a new lattice site, provided that the
+     * destination is not filled to capacity.
+     *
+     * @param occupant the occupant to move.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return {@code true} iff the occupant was moved (or was already
+     * at the destination).
+     *
+     * @throws IllegalArgumentException unless this lattice contains
+     * the occupant.
+     */
+    public boolean move(T occupant, UnitIndex index) {
+        if (contains(occupant))
+            return place(occupant, index);
+        else
+            throw new IllegalArgumentException("Missing lattice occupant.");
+    }
+
+    /**
+     * Returns an occupant of a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param rank the position of the occupant within the site, which
+     * must lie in the range {@code [0, countOccupants(site))}.
+     *
+     * @return the occupant with the specified rank at the specified
+     * site.
+     *
+     * @throws IndexOutOfBoundsException unless the rank is valid.
+     */
+    public T occupantAt(int site, int rank) {
+        if (rank < 0 || rank >= counts[site])
+            throw new IndexOutOfBoundsException("Invalid occupant rank.");
+
+        return occupantAtSlot(site * capacity + rank);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T occupantAtSlot(int slot) {
+        return (T) slots[slot];
+    }
+
+    /**
+     * Places an occupant in a given unit cell, provided that the cell
+     * is not filled to capacity.  An occupant already on the lattice
+     * is moved to the new location.
+     *
+     * @param occupant the occupant to place on this lattice.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return {@code true} iff the occupant was placed (or was already
+     * in the destination cell), {@code false} if the destination was
+     * filled to capacity.
+     */
+    public boolean place(T occupant, UnitIndex index) {
+        int site = lattice.siteOf(index);
+        Integer prevSlot = slotMap.get(occupant);
+
+        if (prevSlot != null && prevSlot / capacity == site)
+            return true;
+
+        if (isFull(site))
+            return false;
+
+        if (prevSlot != null)
+            vacate(prevSlot);
+
+        int slot = site * capacity + counts[site];
+
+        slots[slot] = occupant;
+        slotMap.put(occupant, slot);
+        ++counts[site];
+
+        return true;
+    }
+
+    /**
+     * Removes an occupant from this lattice (has no effect if the
+     * occupant is not present).
+     *
+     * @param occupant the occupant to remove.
+     */
+    public void remove(T occupant) {
+        Integer slot = slotMap.remove(occupant);
+
+        if (slot != null)
+            vacate(slot);
+    }
+
+    /**
+     * Returns the site ordinal occupied by an occupant.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the site ordinal occupied by the specified occupant
+     * ({@code -1} if this lattice does not contain the occupant).
+     */
+    public int siteOf(T occupant) {
+        Integer slot = slotMap.get(occupant);
+
+        if (slot != null)
+            return slot / capacity;
+        else
+            return -1;
+    }
+
+    private void vacate(int slot) {
+        //
+        // Move the last occupant of the site into the vacated slot to
+        // keep the occupied slots contiguous...
+        //
+        int site = slot / capacity;
+        int last = site * capacity + counts[site] - 1;
+
+        if (slot != last) {
+            T moved = occupantAtSlot(last);
+
+            slots[slot] = moved;
+            slotMap.put(moved, slot);
+        }
+
+        slots[last] = null;
+        --counts[site];
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.List;
+
+/**
+ * Precomputes the site-ordinal offsets of the nearest neighbors on a
+ * lattice with row-major site ordering, where the neighbors of every
+ * interior site (one whose neighbors do not cross the periodic
+ * boundary) lie at fixed offsets from the site itself.
+ *
+ * @author Scott Shaffer
+ */
+final class NeighborDeltas {
+    private final int nx;
+    private final int ny;
+    private final int nz;
+
+    // The extent of the neighbor shell along each direction, which
+    // is the width of the boundary layer...
+    private final int hx;
+    private final int hy;
+    private final int hz;
+
+    private final int[] deltas;
+
+    NeighborDeltas(Period period, List<UnitIndex> transVecs) {
+        int dim = period.dimensionality();
+
+        this.nx = period.period(0);
+        this.ny = (dim > 1) ? period.period(1) : 1;
+        this.nz = (dim > 2) ? period.period(2) : 1;
+
+        int maxI = 0;
+        int maxJ = 0;
+        int maxK = 0;
+
+        this.deltas = new int[transVecs.size()];
+
+        for (int n = 0; n < deltas.length; ++n) {
+            UnitIndex vector = transVecs.get(n);
+
+            int di = vector.coord(0);
+            int dj = (dim > 1) ? vector.coord(1) : 0;
+            int dk = (dim > 2) ? vector.coord(2) : 0;
+
+            maxI = Math.max(maxI, Math.abs(di));
+            maxJ = Math.max(maxJ, Math.abs(dj));
+            maxK = Math.max(maxK, Math.abs(dk));
+
+            deltas[n] = di + nx * (dj + ny * dk);
+        }
+
+        this.hx = maxI;
+        this.hy = maxJ;
+        this.hz = maxK;
+    }
+
+    /**
+     * Returns the ordinal offset of a neighbor of an interior site.
+     *
+     * @param k the neighbor number.
+     *
+     * @return the ordinal offset of the specified neighbor.
+     */
+    int delta(int k) {
+        return deltas[k];
+    }
+
+    /**
+     * Identifies rows of sites that lie away from the boundary along
+     * the {@code y}- and {@code z}-directions.
+     *
+     * @param j the {@code y}-coordinate of the row.
+     *
+     * @param k the {@code z}-coordinate of the row.
+     *
+     * @return {@code true} iff the row lies away from the boundary.
+     */
+    boolean isInteriorRow(int j, int k) {
+        return hy <= j && j < ny - hy && hz <= k && k < nz - hz;
+    }
+
+    /**
+     * Identifies interior sites.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return {@code true} iff no neighbor of the site crosses the
+     * periodic boundary.
+     */
+    boolean isInterior(int site) {
+        int row = site / nx;
+        int i = site - row * nx;
+
+        return hx <= i && i < nx - hx && isInteriorRow(row % ny, row / ny);
+    }
+
+    /**
+     * Fills an array with the neighbor ordinals of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param interior whether the site is an interior site.
+     *
+     * @param period the lattice period (for boundary sites).
+     *
+     * @param transVecs the neighbor translation vectors (for boundary
+     * sites).
+     *
+     * @param neighbors the array to fill.
+     */
+    void fill(int site, boolean interior, Period period, UnitIndex[] transVecs, int[] neighbors) {
+        if (interior) {
+            for (int k = 0; k < deltas.length; ++k)
+                neighbors[k] = site + deltas[k];
+        }
+        else {
+            for (int k = 0; k < deltas.length; ++k)
+                neighbors[k] = period.translate(site, transVecs[k]);
+        }
+    }
+
+    /**
+     * Visits every site in ordinal order, computing the neighbors of
+     * interior sites by offset and those of boundary sites by
+     * periodic translation.
+     *
+     * @param period the lattice period.
+     *
+     * @param transVecs the neighbor translation vectors.
+     *
+     * @param visitor the visitor to receive each site.
+     */
+    void sweep(Period period, UnitIndex[] transVecs, NeighborhoodVisitor visitor) {
+        int[] neighbors = new int[deltas.length];
+        int site = 0;
+
+        for (int k = 0; k < nz; ++k) {
+            for (int j = 0; j < ny; ++j) {
+                boolean interiorRow = isInteriorRow(j, k);
+
+                for (int i = 0; i < nx; ++i, ++site) {
+                    fill(site, interiorRow && hx <= i && i < nx - hx, period, transVecs, neighbors);
+                    visitor.visit(site, neighbors);
+                }
+            }
+        }
+    }
+}
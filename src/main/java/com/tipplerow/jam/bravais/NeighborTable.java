@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Stores the nearest-neighbor site ordinals of every site on a
+ * lattice in flat, immutable buffers.
+ *
+ * <p>Neighbor tables are shared through the {@link LatticeTableCache}:
+ * lattices with the same neighbor topology, periodic dimensions, and
+ * site ordering share a single table.  When the cache has a table
+ * directory, tables are mapped from files in that directory instead
+ * of being rebuilt.
+ *
+ * @author Scott Shaffer
+ */
+public final class NeighborTable {
+    private final int neighborCount;
+    private final int siteCapacity;
+    private final ByteBuffer[] bytes;
+    private final IntBuffer[] chunks;
+
+    /**
+     * The file name extension for neighbor table files.
+     */
+    static final String KIND = "nbrs";
+
+    private NeighborTable(int neighborCount, int siteCapacity, ByteBuffer[] bytes) {
+        this.neighborCount = neighborCount;
+        this.siteCapacity = siteCapacity;
+        this.bytes = bytes;
+        this.chunks = new IntBuffer[bytes.length];
+
+        for (int chunk = 0; chunk < bytes.length; ++chunk)
+            chunks[chunk] = bytes[chunk].asIntBuffer();
+    }
+
+    /**
+     * Builds the neighbor table for a lattice.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @return the neighbor table for the specified lattice.
+     */
+    static NeighborTable build(Lattice lattice) {
+        BulkOperationEvent event = BulkOperationEvent.start();
+        int neighborCount = lattice.countNeighbors();
+        int siteCapacity = lattice.siteCapacity();
+
+        NeighborTable table =
+            new NeighborTable(neighborCount, siteCapacity, TableFile.allocate(siteCapacity, 4 * neighborCount));
+
+        // Padding ordinals (if any) have no neighbors...
+        for (IntBuffer chunk : table.chunks)
+            while (chunk.hasRemaining())
+                chunk.put(-1);
+
+        lattice.forEachNeighborhood((site, neighbors) -> {
+                IntBuffer chunk = table.chunks[site >>> TableFile.CHUNK_SHIFT];
+                int offset = (site & TableFile.CHUNK_MASK) * neighborCount;
+
+                for (int k = 0; k < neighborCount; ++k)
+                    chunk.put(offset + k, neighbors[k]);
+            });
+
+        event.finish("NeighborTable.build", lattice, siteCapacity);
+        return table;
+    }
+
+    /**
+     * Maps the neighbor table for a lattice from a table directory,
+     * or builds the table and stores it in the directory if no valid
+     * table file exists.
+     *
+     * @param lattice the lattice to tabulate.
+     *
+     * @param directory the table directory ({@code null} to build the
+     * table in memory only).
+     *
+     * @return the neighbor table for the specified lattice.
+     */
+    static NeighborTable load(Lattice lattice, Path directory) {
+        if (directory == null)
+            return build(lattice);
+
+        int neighborCount = lattice.countNeighbors();
+        TableFile file = new TableFile(directory, KIND, lattice, flattenTransVecs(lattice.getUnitCell()), neighborCount, 4);
+
+        try {
+            ByteBuffer[] mapped = file.map();
+
+            if (mapped != null)
+                return new NeighborTable(neighborCount, lattice.siteCapacity(), mapped);
+        }
+        catch (IOException ex) {
+            // An unreadable file is rebuilt and replaced...
+        }
+
+        NeighborTable table = build(lattice);
+
+        try {
+            file.write(table.bytes);
+        }
+        catch (IOException ex) {
+            // The directory is only a cache: the table is still valid...
+        }
+
+        return table;
+    }
+
+    private static double[] flattenTransVecs(UnitCell unitCell) {
+        List<UnitIndex> transVecs = unitCell.viewNeighborTranslationVectors();
+        int dimensionality = unitCell.dimensionality();
+        double[] flat = new double[transVecs.size() * dimensionality];
+
+        for (int k = 0; k < transVecs.size(); ++k)
+            for (int dim = 0; dim < dimensionality; ++dim)
+                flat[k * dimensionality + dim] = transVecs.get(k).coord(dim);
+
+        return flat;
+    }
+
+    /**
+     * Returns the number of bytes occupied by this table.
+     *
+     * @return the number of bytes occupied by this table.
+     */
+    long byteSize() {
+        return 4L * neighborCount * siteCapacity;
+    }
+
+    /**
+     * Returns the number of nearest neighbors for each site.
+     *
+     * @return the number of nearest neighbors for each site.
+     */
+    public int countNeighbors() {
+        return neighborCount;
+    }
+
+    /**
+     * Applies an action to the ordinal of each nearest neighbor of a
+     * site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param action the action to apply.
+     */
+    public void forEachNeighbor(int site, IntConsumer action) {
+        IntBuffer chunk = chunks[site >>> TableFile.CHUNK_SHIFT];
+        int offset = (site & TableFile.CHUNK_MASK) * neighborCount;
+
+        for (int k = 0; k < neighborCount; ++k)
+            action.accept(chunk.get(offset + k));
+    }
+
+    /**
+     * Returns the site ordinal of a nearest neighbor.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param k the index of the neighbor translation vector, in the
+     * order returned by {@code UnitCell.viewNeighborTranslationVectors()}.
+     *
+     * @return the site ordinal of the specified nearest neighbor.
+     */
+    public int neighborSite(int site, int k) {
+        return chunks[site >>> TableFile.CHUNK_SHIFT].get((site & TableFile.CHUNK_MASK) * neighborCount + k);
+    }
+
+    /**
+     * Copies the site ordinals of all nearest neighbors of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param neighbors an array of length at least
+     * {@code countNeighbors()} to receive the neighbor ordinals.
+     */
+    public void neighborSites(int site, int[] neighbors) {
+        IntBuffer chunk = chunks[site >>> TableFile.CHUNK_SHIFT];
+        int offset = (site & TableFile.CHUNK_MASK) * neighborCount;
+
+        for (int k = 0; k < neighborCount; ++k)
+            neighbors[k] = chunk.get(offset + k);
+    }
+
+    /**
+     * Returns the number of site ordinals covered by this table.
+     *
+     * @return the number of site ordinals covered by this table.
+     */
+    public int siteCapacity() {
+        return siteCapacity;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Receives the nearest-neighbor site ordinals of each site in a sweep
+ * over a lattice.
+ *
+ * @author Scott Shaffer
+ */
+@FunctionalInterface
+public interface NeighborhoodVisitor {
+    /**
+     * Visits one lattice site.
+     *
+     * @param site the ordinal of the lattice site.
+     *
+     * @param neighbors the site ordinals of the nearest neighbors, in
+     * the order returned by {@code UnitCell.viewNeighborTranslationVectors()};
+     * the array is reused for every site and must not be retained.
+     */
+    void visit(int site, int[] neighbors);
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongConsumer;
+
+import lombok.Getter;
+
+/**
+ * Stores occupant identifiers and species on a lattice too large for
+ * Java arrays, in direct (off-heap) buffers indexed by {@code long}
+ * site ordinals.
+ *
+ * <p>Sites are numbered in row-major order (with the {@code
+ * x}-coordinate varying fastest) regardless of the site ordering of
+ * the lattice period.  Each site occupies nine bytes of native
+ * memory: an eight-byte occupant identifier and a species byte.  The
+ * heap footprint is independent of the lattice size, and the garbage
+ * collector never scans the occupant storage.
+ *
+ * <p>Occupant identifiers must be non-negative; they are not required
+ * to be unique.
+ *
+ * @author Scott Shaffer
+ */
+public final class OffHeapPopulation {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    private final long siteCount;
+    private final int dimensionality;
+    private final int[] lengths = new int[] { 1, 1, 1 };
+    private final int[][] transVecs;
+
+    // Occupant identifiers and species ordinals (plus one, so that
+    // the zero-filled buffers start vacant), in chunks of CHUNK_SIZE
+    // sites...
+    private final ByteBuffer[] idChunks;
+    private final ByteBuffer[] speciesChunks;
+
+    private long occupantCount = 0;
+
+    /**
+     * The maximum number of species.
+     */
+    public static final int MAX_SPECIES = Byte.MAX_VALUE;
+
+    /**
+     * The identifier and species ordinal reported for vacant sites.
+     */
+    public static final int VACANT = -1;
+
+    private static final int CHUNK_BITS = 27;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private OffHeapPopulation(Lattice lattice) {
+        Period period = lattice.getPeriod();
+
+        this.lattice = lattice;
+        this.siteCount = period.countSites();
+        this.dimensionality = period.dimensionality();
+
+        for (int dim = 0; dim < dimensionality; ++dim)
+            lengths[dim] = period.period(dim);
+
+        this.transVecs = lattice.getUnitCell().viewNeighborTranslationVectors().stream()
+            .map(vector -> {
+                    int[] coords = new int[3];
+
+                    for (int dim = 0; dim < dimensionality; ++dim)
+                        coords[dim] = vector.coord(dim);
+
+                    return coords;
+                })
+            .toArray(int[][]::new);
+
+        int chunkCount = (int) ((siteCount + CHUNK_MASK) >>> CHUNK_BITS);
+
+        this.idChunks = new ByteBuffer[chunkCount];
+        this.speciesChunks = new ByteBuffer[chunkCount];
+
+        for (int chunk = 0; chunk < chunkCount; ++chunk) {
+            int chunkSites = (int) Math.min(CHUNK_SIZE, siteCount - (chunk * CHUNK_SIZE));
+
+            idChunks[chunk] = ByteBuffer.allocateDirect(8 * chunkSites).order(ByteOrder.nativeOrder());
+            speciesChunks[chunk] = ByteBuffer.allocateDirect(chunkSites);
+        }
+    }
+
+    /**
+     * Allocates an empty off-heap population.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @return a new empty population.
+     *
+     * @throws OutOfMemoryError if the native memory cannot be
+     * allocated (see the {@code -XX:MaxDirectMemorySize} option).
+     */
+    public static OffHeapPopulation allocate(Lattice lattice) {
+        return new OffHeapPopulation(lattice);
+    }
+
+    /**
+     * Counts the occupied nearest neighbors of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the number of occupied nearest neighbors of the site.
+     */
+    public int countNeighbors(long site) {
+        int count = 0;
+
+        for (int k = 0; k < transVecs.length; ++k)
+            if (isOccupied(neighborSite(site, k)))
+                ++count;
+
+        return count;
+    }
+
+    /**
+     * Returns the number of occupants in this population.
+     *
+     * @return the number of occupants in this population.
+     */
+    public long countOccupants() {
+        return occupantCount;
+    }
+
+    /**
+     * Returns the number of sites on the underlying lattice.
+     *
+     * @return the number of sites on the underlying lattice.
+     */
+    public long countSites() {
+        return siteCount;
+    }
+
+    /**
+     * Applies an action to the identifiers of the occupants of the
+     * nearest neighbors of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param action the action to apply.
+     */
+    public void forEachNeighbor(long site, LongConsumer action) {
+        for (int k = 0; k < transVecs.length; ++k) {
+            long neighbor = neighborSite(site, k);
+
+            if (isOccupied(neighbor))
+                action.accept(occupantAt(neighbor));
+        }
+    }
+
+    /**
+     * Returns the unit index of the periodic image at a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the unit index of the periodic image at the site.
+     *
+     * @throws IndexOutOfBoundsException unless the ordinal is valid.
+     */
+    public UnitIndex indexAt(long site) {
+        validateSite(site);
+
+        int[] coords = new int[dimensionality];
+
+        for (int dim = 0; dim < dimensionality; ++dim) {
+            coords[dim] = (int) (site % lengths[dim]);
+            site /= lengths[dim];
+        }
+
+        return UnitIndex.at(coords);
+    }
+
+    /**
+     * Identifies occupied sites.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return {@code true} iff the site is occupied.
+     */
+    public boolean isOccupied(long site) {
+        return speciesChunks[chunk(site)].get(offset(site)) != 0;
+    }
+
+    /**
+     * Identifies occupied sites.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return {@code true} iff the site is occupied.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        return isOccupied(siteOf(index));
+    }
+
+    /**
+     * Returns the ordinal of a nearest neighbor of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @param k the neighbor number, in the range {@code [0,
+     * lattice.countNeighbors())}.
+     *
+     * @return the ordinal of the specified neighbor.
+     */
+    public long neighborSite(long site, int k) {
+        int[] vector = transVecs[k];
+
+        long quotient = site / lengths[0];
+        long rest = quotient / lengths[1];
+
+        int i = (int) (site - quotient * lengths[0]);
+        int j = (int) (quotient - rest * lengths[1]);
+        int l = (int) rest;
+
+        return rowMajor(Period.imageOf(i + vector[0], lengths[0]),
+                        Period.imageOf(j + vector[1], lengths[1]),
+                        Period.imageOf(l + vector[2], lengths[2]));
+    }
+
+    /**
+     * Returns the identifier of the occupant of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the identifier of the occupant of the site ({@code
+     * VACANT} if the site is vacant).
+     */
+    public long occupantAt(long site) {
+        if (isOccupied(site))
+            return idChunks[chunk(site)].getLong(8 * offset(site));
+        else
+            return VACANT;
+    }
+
+    /**
+     * Returns the identifier of the occupant of a site.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the identifier of the occupant of the site ({@code
+     * VACANT} if the site is vacant).
+     */
+    public long occupantAt(UnitIndex index) {
+        return occupantAt(siteOf(index));
+    }
+
+    /**
+     * Places an occupant on a site.
+     *
+     * @param occupant the identifier of the occupant.
+     *
+     * @param species the species of the occupant.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the identifier of the previous occupant ({@code VACANT}
+     * if the site was vacant).
+     *
+     * @throws IllegalArgumentException if the identifier is negative
+     * or the species is invalid.
+     */
+    public long place(long occupant, int species, long site) {
+        if (occupant < 0)
+            throw new IllegalArgumentException("Negative occupant identifier.");
+
+        if (species < 0 || species >= MAX_SPECIES)
+            throw new IllegalArgumentException("Invalid species ordinal.");
+
+        long prevOcc = occupantAt(site);
+
+        if (prevOcc == VACANT)
+            ++occupantCount;
+
+        idChunks[chunk(site)].putLong(8 * offset(site), occupant);
+        speciesChunks[chunk(site)].put(offset(site), (byte) (species + 1));
+
+        return prevOcc;
+    }
+
+    /**
+     * Places an occupant on a site.
+     *
+     * @param occupant the identifier of the occupant.
+     *
+     * @param species the species of the occupant.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @return the identifier of the previous occupant ({@code VACANT}
+     * if the site was vacant).
+     *
+     * @throws IllegalArgumentException if the identifier is negative
+     * or the species is invalid.
+     */
+    public long place(long occupant, int species, UnitIndex index) {
+        return place(occupant, species, siteOf(index));
+    }
+
+    /**
+     * Removes the occupant of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the identifier of the removed occupant ({@code VACANT}
+     * if the site was vacant).
+     */
+    public long remove(long site) {
+        long prevOcc = occupantAt(site);
+
+        if (prevOcc != VACANT) {
+            speciesChunks[chunk(site)].put(offset(site), (byte) 0);
+            --occupantCount;
+        }
+
+        return prevOcc;
+    }
+
+    /**
+     * Returns the row-major ordinal of the periodic image of an
+     * absolute unit index.
+     *
+     * @param index an absolute unit index.
+     *
+     * @return the row-major ordinal of the periodic image.
+     */
+    public long siteOf(UnitIndex index) {
+        if (index.dimensionality() != dimensionality)
+            throw new IllegalArgumentException("Inconsistent index dimensionality.");
+
+        int i = Period.imageOf(index.coord(0), lengths[0]);
+        int j = (dimensionality > 1) ? Period.imageOf(index.coord(1), lengths[1]) : 0;
+        int k = (dimensionality > 2) ? Period.imageOf(index.coord(2), lengths[2]) : 0;
+
+        return rowMajor(i, j, k);
+    }
+
+    /**
+     * Returns the species of the occupant of a site.
+     *
+     * @param site the ordinal of a lattice site.
+     *
+     * @return the species of the occupant of the site ({@code VACANT}
+     * if the site is vacant).
+     */
+    public int speciesAt(long site) {
+        return speciesChunks[chunk(site)].get(offset(site)) - 1;
+    }
+
+    private static int chunk(long site) {
+        return (int) (site >>> CHUNK_BITS);
+    }
+
+    private static int offset(long site) {
+        return (int) (site & CHUNK_MASK);
+    }
+
+    private long rowMajor(int i, int j, int k) {
+        return i + lengths[0] * (j + (long) lengths[1] * k);
+    }
+
+    private void validateSite(long site) {
+        if (site < 0 || site >= siteCount)
+            throw new IndexOutOfBoundsException("Invalid site ordinal.");
+    }
+}
@@ -92,6 +92,23 @@ public interface Period {
         }
     }
 
+    /**
+     * Creates an arbitrary lattice period with a given site ordering.
+     *
+     * @param ordering the ordering of the sites within the box.
+     *
+     * @param period the periodic length along each direction.
+     *
+     * @return a lattice period with the specified site ordering and
+     * dimensions.
+     *
+     * @throws IllegalArgumentException unless the dimensionality lies
+     * between one and three (inclusive).
+     */
+    static Period box(SiteOrdering ordering, int... period) {
+        return box(period).withOrdering(ordering);
+    }
+
     /**
      * Creates an N-dimensional box with sides of equal length.
      *
@@ -164,6 +181,18 @@ public interface Period {
      */
     boolean contains(UnitIndex index);
 
+    /**
+     * Identifies ordinals that correspond to sites in this periodic
+     * box (site orderings that pad the box leave some ordinals below
+     * {@code siteCapacity()} unused).
+     *
+     * @param site the ordinal to examine.
+     *
+     * @return {@code true} iff the ordinal corresponds to a site in
+     * this periodic box.
+     */
+    boolean containsSite(int site);
+
     /**
      * Returns the dimensionality of this lattice period.
      *
@@ -189,6 +218,90 @@ public interface Period {
      */
     UnitIndex imageOf(UnitIndex index);
 
+    /**
+     * Returns the periodic image at a given site ordinal.  Site
+     * ordinals number the images according to the site ordering of
+     * this period; they lie in the range {@code [0, siteCapacity())},
+     * and orderings that pad the box leave some of them unused (see
+     * {@code containsSite()}).  Images are listed by {@code
+     * enumerate()} in increasing ordinal order, so the ordinal equals
+     * the list position only when the box is not padded.
+     *
+     * @param site the ordinal of a site in this periodic box.
+     *
+     * @return the periodic image at the specified site ordinal.
+     *
+     * @throws IndexOutOfBoundsException unless {@code containsSite(site)}
+     * is {@code true}.
+     */
+    UnitIndex indexAt(int site);
+
+    /**
+     * Copies the coordinates of the periodic image at a given site
+     * ordinal into an array (without allocating a unit index).
+     *
+     * @param site the ordinal of a site in this periodic box (see
+     * {@code indexAt(int)}).
+     *
+     * @param coords an array of length at least
+     * {@code dimensionality()} to receive the image coordinates.
+     *
+     * @throws IndexOutOfBoundsException unless {@code containsSite(site)}
+     * is {@code true}.
+     */
+    default void indexAt(int site, int[] coords) {
+        UnitIndex index = indexAt(site);
+
+        for (int dim = 0; dim < dimensionality(); ++dim)
+            coords[dim] = index.coord(dim);
+    }
+
+    /**
+     * Returns the ordering of the sites within the box defined by
+     * this period.
+     *
+     * @return the ordering of the sites within the box defined by
+     * this period.
+     */
+    SiteOrdering ordering();
+
+    /**
+     * Returns the site ordinal of the periodic image of an absolute
+     * unit index, as assigned by the site ordering of this period
+     * (see {@code indexAt(int)}).
+     *
+     * @param index an absolute unit index.
+     *
+     * @return the site ordinal of the periodic image of the specified
+     * index.
+     */
+    int siteOf(UnitIndex index);
+
+    /**
+     * Translates a site by a lattice vector and returns the site
+     * ordinal of the periodic image of the result (without creating
+     * any intermediate unit indexes).
+     *
+     * @param site the site ordinal of a periodic image.
+     *
+     * @param vector the translation vector.
+     *
+     * @return the site ordinal of the periodic image of the
+     * translated site.
+     */
+    int translate(int site, UnitIndex vector);
+
+    /**
+     * Returns a period with the same dimensions as this period and a
+     * given site ordering.
+     *
+     * @param ordering the desired site ordering.
+     *
+     * @return a period with the same dimensions as this period and
+     * the specified site ordering.
+     */
+    Period withOrdering(SiteOrdering ordering);
+
     /**
      * Returns the number of distinct sites on a lattice with this
      * period.
@@ -199,7 +312,17 @@ public interface Period {
     long countSites();
 
     /**
-     * Enumerates all images in the box defined by this period.
+     * Returns the exclusive upper bound for the site ordinals in
+     * this periodic box, which equals {@code countSites()} unless
+     * the site ordering pads the box.
+     *
+     * @return the exclusive upper bound for the site ordinals.
+     */
+    long siteCapacity();
+
+    /**
+     * Enumerates all images in the box defined by this period (in
+     * the order of their site ordinals).
      *
      * @return a list containing all images in the box defined
      * by this period.
@@ -37,6 +37,35 @@ final class Period1D extends AbstractPeriod {
         return UnitIndex.at(Period.imageOf(index.coord(0), nx));
     }
 
+    @Override public UnitIndex indexAt(int site) {
+        validateSite(site);
+        return UnitIndex.at(site);
+    }
+
+    @Override public void indexAt(int site, int[] coords) {
+        validateSite(site);
+        coords[0] = site;
+    }
+
+    @Override public SiteOrdering ordering() {
+        return SiteOrdering.ROW_MAJOR;
+    }
+
+    @Override public int siteOf(UnitIndex index) {
+        validateDimensionality(index);
+        return Period.imageOf(index.coord(0), nx);
+    }
+
+    @Override public int translate(int site, UnitIndex vector) {
+        UnitIndex1D vec1D = (UnitIndex1D) vector;
+        return Period.imageOf(site + vec1D.index, nx);
+    }
+
+    @Override public Period withOrdering(SiteOrdering ordering) {
+        // The site ordering has no effect in one dimension...
+        return this;
+    }
+
     @Override public int period(int dim) {
         if (dim == 0)
             return nx;
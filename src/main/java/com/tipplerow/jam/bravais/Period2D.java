@@ -22,12 +22,25 @@ final class Period2D extends AbstractPeriod {
     private final int nx;
     private final int ny;
 
+    private final SiteOrdering ordering;
+    private final SiteLayout layout;
+
     Period2D(int nx, int ny) {
+        this(nx, ny, SiteOrdering.ROW_MAJOR);
+    }
+
+    Period2D(int nx, int ny, SiteOrdering ordering) {
         validateDimension(nx);
         validateDimension(ny);
 
         this.nx = nx;
         this.ny = ny;
+        this.ordering = ordering;
+        this.layout = ordering.createLayout(nx, ny, 1);
+    }
+
+    @Override public boolean containsSite(int site) {
+        return layout.contains(site);
     }
 
     @Override public int dimensionality() {
@@ -41,6 +54,51 @@ final class Period2D extends AbstractPeriod {
                             Period.imageOf(index.coord(1), ny));
     }
 
+    @Override public UnitIndex indexAt(int site) {
+        validateSite(site);
+        return UnitIndex.at(layout.x(site), layout.y(site));
+    }
+
+    @Override public void indexAt(int site, int[] coords) {
+        validateSite(site);
+        coords[0] = layout.x(site);
+        coords[1] = layout.y(site);
+    }
+
+    /**
+     * Returns the site layout for this period.
+     *
+     * @return the site layout for this period.
+     */
+    SiteLayout layout() {
+        return layout;
+    }
+
+    @Override public SiteOrdering ordering() {
+        return ordering;
+    }
+
+    @Override public long siteCapacity() {
+        return layout.capacity();
+    }
+
+    @Override public int siteOf(UnitIndex index) {
+        validateDimensionality(index);
+
+        return layout.siteOf(Period.imageOf(index.coord(0), nx),
+                             Period.imageOf(index.coord(1), ny),
+                             0);
+    }
+
+    @Override public int translate(int site, UnitIndex vector) {
+        UnitIndex2D vec2D = (UnitIndex2D) vector;
+        return layout.translate(site, vec2D.i, vec2D.j, 0);
+    }
+
+    @Override public Period withOrdering(SiteOrdering ordering) {
+        return new Period2D(nx, ny, ordering);
+    }
+
     @Override public int period(int dim) {
         switch (dim) {
         case 0:
@@ -55,11 +113,13 @@ final class Period2D extends AbstractPeriod {
     }
 
     @Override public List<UnitIndex> enumerate() {
-        List<UnitIndex> images = new ArrayList<>(nx * ny);
+        int siteCount = nx * ny;
+        int capacity = Math.toIntExact(layout.capacity());
+        List<UnitIndex> images = new ArrayList<>(siteCount);
 
-        for (int j = 0; j < ny; ++j)
-            for (int i = 0; i < nx; ++i)
-                images.add(UnitIndex.at(i, j));
+        for (int site = 0; site < capacity; ++site)
+            if (layout.contains(site))
+                images.add(UnitIndex.at(layout.x(site), layout.y(site)));
 
         assert images.size() == countSites();
         return images;
@@ -23,7 +23,14 @@ final class Period3D extends AbstractPeriod {
     private final int ny;
     private final int nz;
 
+    private final SiteOrdering ordering;
+    private final SiteLayout layout;
+
     Period3D(int nx, int ny, int nz) {
+        this(nx, ny, nz, SiteOrdering.ROW_MAJOR);
+    }
+
+    Period3D(int nx, int ny, int nz, SiteOrdering ordering) {
         validateDimension(nx);
         validateDimension(ny);
         validateDimension(nz);
@@ -31,6 +38,12 @@ final class Period3D extends AbstractPeriod {
         this.nx = nx;
         this.ny = ny;
         this.nz = nz;
+        this.ordering = ordering;
+        this.layout = ordering.createLayout(nx, ny, nz);
+    }
+
+    @Override public boolean containsSite(int site) {
+        return layout.contains(site);
     }
 
     @Override public int dimensionality() {
@@ -45,6 +58,52 @@ final class Period3D extends AbstractPeriod {
                             Period.imageOf(index.coord(2), nz));
     }
 
+    @Override public UnitIndex indexAt(int site) {
+        validateSite(site);
+        return UnitIndex.at(layout.x(site), layout.y(site), layout.z(site));
+    }
+
+    @Override public void indexAt(int site, int[] coords) {
+        validateSite(site);
+        coords[0] = layout.x(site);
+        coords[1] = layout.y(site);
+        coords[2] = layout.z(site);
+    }
+
+    /**
+     * Returns the site layout for this period.
+     *
+     * @return the site layout for this period.
+     */
+    SiteLayout layout() {
+        return layout;
+    }
+
+    @Override public SiteOrdering ordering() {
+        return ordering;
+    }
+
+    @Override public long siteCapacity() {
+        return layout.capacity();
+    }
+
+    @Override public int siteOf(UnitIndex index) {
+        validateDimensionality(index);
+
+        return layout.siteOf(Period.imageOf(index.coord(0), nx),
+                             Period.imageOf(index.coord(1), ny),
+                             Period.imageOf(index.coord(2), nz));
+    }
+
+    @Override public int translate(int site, UnitIndex vector) {
+        UnitIndex3D vec3D = (UnitIndex3D) vector;
+        return layout.translate(site, vec3D.i, vec3D.j, vec3D.k);
+    }
+
+    @Override public Period withOrdering(SiteOrdering ordering) {
+        return new Period3D(nx, ny, nz, ordering);
+    }
+
     @Override public int period(int dim) {
         switch (dim) {
         case 0:
@@ -62,12 +121,13 @@ final class Period3D extends AbstractPeriod {
     }
 
     @Override public List<UnitIndex> enumerate() {
-        List<UnitIndex> images = new ArrayList<>(nx * ny * nz);
+        int siteCount = nx * ny * nz;
+        int capacity = Math.toIntExact(layout.capacity());
+        List<UnitIndex> images = new ArrayList<>(siteCount);
 
-        for (int k = 0; k < nz; ++k)
-            for (int j = 0; j < ny; ++j)
-                for (int i = 0; i < nx; ++i)
-                    images.add(UnitIndex.at(i, j, k));
+        for (int site = 0; site < capacity; ++site)
+            if (layout.contains(site))
+                images.add(UnitIndex.at(layout.x(site), layout.y(site), layout.z(site)));
 
         assert images.size() == countSites();
         return images;
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import com.tipplerow.jam.math.Point;
+
+/**
+ * Stores a cloud of continuous-space points in structure-of-arrays
+ * form: one primitive coordinate array per dimension.
+ *
+ * <p>Point clouds wrap their coordinate arrays without copying them,
+ * so the arrays may be filled by (or handed to) bulk numerical code
+ * directly; callers must not resize or modify the arrays while the
+ * cloud is in use.
+ *
+ * @author Scott Shaffer
+ */
+public final class PointCloud {
+    private final double[][] coords;
+
+    private PointCloud(double[][] coords) {
+        this.coords = coords;
+    }
+
+    /**
+     * Creates a new point cloud backed by existing coordinate arrays.
+     *
+     * @param coords the coordinate arrays, one per dimension (e.g.,
+     * {@code x}, {@code y}, and {@code z}).
+     *
+     * @return a point cloud backed by the specified arrays.
+     *
+     * @throws IllegalArgumentException unless one to three arrays of
+     * equal length are specified.
+     */
+    public static PointCloud of(double[]... coords) {
+        if (coords.length < 1 || coords.length > 3)
+            throw new IllegalArgumentException("Point clouds must have one to three dimensions.");
+
+        for (double[] array : coords)
+            if (array.length != coords[0].length)
+                throw new IllegalArgumentException("Coordinate arrays must have equal lengths.");
+
+        return new PointCloud(coords.clone());
+    }
+
+    /**
+     * Creates a new point cloud with all coordinates equal to zero.
+     *
+     * @param dimensionality the dimensionality of the points.
+     *
+     * @param size the number of points.
+     *
+     * @return a new point cloud with the specified dimensionality and
+     * size.
+     *
+     * @throws IllegalArgumentException unless the dimensionality is
+     * between one and three and the size is non-negative.
+     */
+    public static PointCloud zeros(int dimensionality, int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("Negative point cloud size.");
+
+        return of(new double[dimensionality][size]);
+    }
+
+    /**
+     * Returns one coordinate of a point.
+     *
+     * @param point the index of the point.
+     *
+     * @param dim the coordinate dimension.
+     *
+     * @return the specified coordinate of the specified point.
+     */
+    public double coord(int point, int dim) {
+        return coords[dim][point];
+    }
+
+    /**
+     * Returns the dimensionality of the points.
+     *
+     * @return the dimensionality of the points.
+     */
+    public int dimensionality() {
+        return coords.length;
+    }
+
+    /**
+     * Returns one point as a {@code Point} object.
+     *
+     * @param point the index of the point.
+     *
+     * @return the specified point.
+     */
+    public Point pointAt(int point) {
+        double[] values = new double[coords.length];
+
+        for (int dim = 0; dim < coords.length; ++dim)
+            values[dim] = coords[dim][point];
+
+        return Point.at(values);
+    }
+
+    /**
+     * Returns the number of points in this cloud.
+     *
+     * @return the number of points in this cloud.
+     */
+    public int size() {
+        return coords[0].length;
+    }
+
+    /**
+     * Returns the backing array for one coordinate dimension.
+     *
+     * @param dim the coordinate dimension.
+     *
+     * @return the backing array for the specified dimension (not a
+     * copy).
+     */
+    public double[] viewCoords(int dim) {
+        return coords[dim];
+    }
+
+    /**
+     * Ensures that this cloud can receive a given number of points.
+     *
+     * @param dimensionality the required dimensionality.
+     *
+     * @param count the number of points to receive.
+     *
+     * @throws IllegalArgumentException unless this cloud has the
+     * required dimensionality and at least {@code count} points.
+     */
+    void validateCapacity(int dimensionality, long count) {
+        if (dimensionality != coords.length)
+            throw new IllegalArgumentException("Inconsistent point dimensionality.");
+
+        if (count > size())
+            throw new IllegalArgumentException("Point cloud is too small.");
+    }
+
+    /**
+     * Assigns one point to the origin of a unit cell (without
+     * allocation).
+     *
+     * @param point the index of the point to assign.
+     *
+     * @param unitCell the unit cell of the lattice.
+     *
+     * @param index the coordinates of the unit cell index.
+     */
+    void put(int point, UnitCell unitCell, int[] index) {
+        if (unitCell instanceof UnitCell3D) {
+            UnitCell3D cell = (UnitCell3D) unitCell;
+
+            coords[0][point] = cell.pointX(index[0], index[1], index[2]);
+            coords[1][point] = cell.pointY(index[0], index[1], index[2]);
+            coords[2][point] = cell.pointZ(index[0], index[1], index[2]);
+        }
+        else if (unitCell instanceof UnitCell2D) {
+            UnitCell2D cell = (UnitCell2D) unitCell;
+
+            coords[0][point] = cell.pointX(index[0], index[1]);
+            coords[1][point] = cell.pointY(index[0], index[1]);
+        }
+        else {
+            // The basis vectors are the columns of the basis matrix...
+            for (int row = 0; row < coords.length; ++row) {
+                double value = 0.0;
+
+                for (int col = 0; col < coords.length; ++col)
+                    value += unitCell.viewBasis().get(col).get(row) * index[col];
+
+                coords[row][point] = value;
+            }
+        }
+    }
+
+    /**
+     * Snaps a contiguous range of points to their nearest lattice
+     * sites, using the batch nearest-site lookups of two- and
+     * three-dimensional unit cells.
+     *
+     * @param lattice the lattice to receive the points.
+     *
+     * @param from the index of the first point (inclusive).
+     *
+     * @param to the index of the last point (exclusive).
+     *
+     * @param indexes an array to receive the absolute unit indexes
+     * of the nearest sites.
+     *
+     * @param sites an array to receive the ordinals of the nearest
+     * sites.
+     */
+    void snap(Lattice lattice, int from, int to, UnitIndex[] indexes, int[] sites) {
+        UnitCell unitCell = lattice.getUnitCell();
+        int count = to - from;
+
+        if (unitCell instanceof UnitCell3D) {
+            int[] i = new int[count];
+            int[] j = new int[count];
+            int[] k = new int[count];
+
+            ((UnitCell3D) unitCell).nearestIndex(coords[0], coords[1], coords[2], from, i, j, k, count);
+
+            for (int m = 0; m < count; ++m)
+                indexes[from + m] = UnitIndex.at(i[m], j[m], k[m]);
+        }
+        else if (unitCell instanceof UnitCell2D) {
+            int[] i = new int[count];
+            int[] j = new int[count];
+
+            ((UnitCell2D) unitCell).nearestIndex(coords[0], coords[1], from, i, j, count);
+
+            for (int m = 0; m < count; ++m)
+                indexes[from + m] = UnitIndex.at(i[m], j[m]);
+        }
+        else {
+            for (int m = from; m < to; ++m)
+                indexes[m] = unitCell.nearestIndex(pointAt(m));
+        }
+
+        for (int m = from; m < to; ++m)
+            sites[m] = lattice.siteOf(indexes[m]);
+    }
+}
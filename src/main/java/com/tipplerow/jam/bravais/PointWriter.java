@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams point clouds to a byte channel (typically a file channel)
+ * through a fixed buffer, as comma-separated text or as raw binary
+ * coordinates, without creating any per-point objects.
+ *
+ * <p>The binary format contains the coordinates of each point in
+ * turn (for example, {@code x0 y0 z0 x1 y1 z1 ...}) as little-endian
+ * IEEE doubles, with no header.  The text format begins with a
+ * header line ({@code x,y,z}) followed by one line per point with a
+ * fixed number of decimal places.
+ *
+ * <p>Data are passed to the channel whenever the buffer fills; call
+ * {@code flush()} after the last point.  The writer does not own the
+ * channel and never closes it.
+ *
+ * @author Scott Shaffer
+ */
+public final class PointWriter implements Flushable {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    // The number of decimal places in text output (negative for
+    // binary output)...
+    private final int decimals;
+    private final long scale;
+
+    // Scratch space for formatting integer digits...
+    private final byte[] digits = new byte[20];
+
+    // The dimensionality of the points written so far (zero until
+    // the first write)...
+    private int dimensionality = 0;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_DECIMALS = 12;
+
+    // Longest text representation of one coordinate, including the
+    // separator...
+    private static final int MAX_FIELD = 32 + MAX_DECIMALS;
+
+    private static final String[] COLUMN_NAMES = { "x", "y", "z" };
+
+    private PointWriter(WritableByteChannel channel, int decimals) {
+        this.channel = channel;
+        this.decimals = decimals;
+        this.scale = (decimals >= 0) ? pow10(decimals) : 0;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+
+        for (int k = 0; k < exponent; ++k)
+            result *= 10;
+
+        return result;
+    }
+
+    /**
+     * Creates a writer for raw little-endian binary coordinates.
+     *
+     * @param channel the destination channel.
+     *
+     * @return a new binary writer for the specified channel.
+     */
+    public static PointWriter binary(WritableByteChannel channel) {
+        return new PointWriter(channel, -1);
+    }
+
+    /**
+     * Creates a writer for comma-separated text.
+     *
+     * @param channel the destination channel.
+     *
+     * @param decimals the number of decimal places for each
+     * coordinate.
+     *
+     * @return a new text writer for the specified channel.
+     *
+     * @throws IllegalArgumentException unless the number of decimal
+     * places lies in the range {@code [0, 12]}.
+     */
+    public static PointWriter csv(WritableByteChannel channel, int decimals) {
+        if (decimals < 0 || decimals > MAX_DECIMALS)
+            throw new IllegalArgumentException("Invalid number of decimal places.");
+
+        return new PointWriter(channel, decimals);
+    }
+
+    /**
+     * Passes all buffered data to the channel.
+     *
+     * @throws IOException if the channel cannot be written.
+     */
+    @Override public void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        buffer.clear();
+    }
+
+    /**
+     * Writes every point in a point cloud.
+     *
+     * @param cloud the points to write.
+     *
+     * @throws IllegalArgumentException unless the points have the
+     * same dimensionality as those written previously.
+     *
+     * @throws IOException if the channel cannot be written.
+     */
+    public void write(PointCloud cloud) throws IOException {
+        write(cloud, 0, cloud.size());
+    }
+
+    /**
+     * Writes a contiguous range of points from a point cloud.
+     *
+     * @param cloud the points to write.
+     *
+     * @param from the index of the first point to write (inclusive).
+     *
+     * @param to the index of the last point to write (exclusive).
+     *
+     * @throws IllegalArgumentException unless the points have the
+     * same dimensionality as those written previously.
+     *
+     * @throws IndexOutOfBoundsException unless the range is valid.
+     *
+     * @throws IOException if the channel cannot be written.
+     */
+    public void write(PointCloud cloud, int from, int to) throws IOException {
+        if (from < 0 || to > cloud.size() || from > to)
+            throw new IndexOutOfBoundsException("Invalid point range.");
+
+        BulkOperationEvent event = BulkOperationEvent.start();
+        start(cloud.dimensionality());
+
+        if (decimals < 0)
+            writeBinary(cloud, from, to);
+        else
+            writeText(cloud, from, to);
+
+        event.finish("PointWriter.write", to - from);
+    }
+
+    private void start(int dims) throws IOException {
+        if (dimensionality == dims)
+            return;
+
+        if (dimensionality != 0)
+            throw new IllegalArgumentException("Inconsistent point dimensionality.");
+
+        dimensionality = dims;
+
+        if (decimals >= 0) {
+            for (int dim = 0; dim < dims; ++dim) {
+                if (dim > 0)
+                    buffer.put((byte) ',');
+
+                buffer.put(COLUMN_NAMES[dim].getBytes(StandardCharsets.US_ASCII));
+            }
+
+            buffer.put((byte) '\n');
+        }
+    }
+
+    private void writeBinary(PointCloud cloud, int from, int to) throws IOException {
+        int rowBytes = 8 * dimensionality;
+
+        for (int point = from; point < to; ++point) {
+            if (buffer.remaining() < rowBytes)
+                flush();
+
+            for (int dim = 0; dim < dimensionality; ++dim)
+                buffer.putDouble(cloud.coord(point, dim));
+        }
+    }
+
+    private void writeText(PointCloud cloud, int from, int to) throws IOException {
+        int rowBytes = MAX_FIELD * dimensionality;
+
+        for (int point = from; point < to; ++point) {
+            if (buffer.remaining() < rowBytes)
+                flush();
+
+            for (int dim = 0; dim < dimensionality; ++dim) {
+                if (dim > 0)
+                    buffer.put((byte) ',');
+
+                putDecimal(cloud.coord(point, dim));
+            }
+
+            buffer.put((byte) '\n');
+        }
+    }
+
+    private void putDecimal(double value) {
+        // Values too large for fixed-point formatting are rare enough
+        // to format as strings...
+        if (!Double.isFinite(value) || Math.abs(value) >= 1.0E18 / scale) {
+            buffer.put(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        long scaled = Math.round(Math.abs(value) * scale);
+
+        if (value < 0.0 && scaled != 0)
+            buffer.put((byte) '-');
+
+        putDigits(scaled / scale, 1);
+
+        if (decimals > 0) {
+            buffer.put((byte) '.');
+            putDigits(scaled % scale, decimals);
+        }
+    }
+
+    private void putDigits(long value, int minDigits) {
+        int count = 0;
+
+        while (value > 0 || count < minDigits) {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        while (count > 0)
+            buffer.put(digits[--count]);
+    }
+}
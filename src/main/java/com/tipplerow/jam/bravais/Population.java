@@ -16,15 +16,26 @@
 package com.tipplerow.jam.bravais;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 
+import com.tipplerow.jam.lang.JamException;
 import com.tipplerow.jam.math.Point;
 
 import lombok.Getter;
@@ -48,6 +59,13 @@ public final class Population<T> {
     // of their unit cell indexes...
     private final BiMap<UnitIndex, T> imageBiMap = HashBiMap.create();
 
+    // Occupants with at least one unoccupied neighbor, built on the
+    // first frontier query and maintained incrementally thereafter...
+    private SampleSet<T> frontier = null;
+
+    // The number of points snapped by each parallel ingestion task...
+    private static final int SNAP_CHUNK = 1 << 16;
+
     private Population(Lattice lattice) {
         this.lattice = lattice;
     }
@@ -93,6 +111,16 @@ public final class Population<T> {
         return true;
     }
 
+    /**
+     * Returns the number of occupants on the growth frontier (those
+     * with at least one unoccupied nearest neighbor).
+     *
+     * @return the number of occupants on the growth frontier.
+     */
+    public int countFrontier() {
+        return viewFrontierSet().size();
+    }
+
     /**
      * Returns the number of occupants on this lattice.
      *
@@ -102,6 +130,61 @@ public final class Population<T> {
         return indexMap.size();
     }
 
+    /**
+     * Writes the continuous-space positions of all occupants (in
+     * absolute coordinates, not as periodic images) into a point
+     * cloud, in the order returned by {@code listOccupants()},
+     * without creating any per-occupant objects.
+     *
+     * @param cloud the point cloud to receive the positions.
+     *
+     * @return the number of points written (the number of occupants).
+     *
+     * @throws IllegalArgumentException unless the point cloud has the
+     * dimensionality of this lattice and room for every occupant.
+     */
+    public int exportPoints(PointCloud cloud) {
+        return exportPoints(cloud, occupant -> {});
+    }
+
+    /**
+     * Writes the continuous-space positions of all occupants (in
+     * absolute coordinates, not as periodic images) into a point
+     * cloud, without creating any per-occupant objects, and passes
+     * each occupant to a consumer in the same order.
+     *
+     * @param cloud the point cloud to receive the positions.
+     *
+     * @param consumer the consumer to receive the occupants, in the
+     * order of their positions in the point cloud.
+     *
+     * @return the number of points written (the number of occupants).
+     *
+     * @throws IllegalArgumentException unless the point cloud has the
+     * dimensionality of this lattice and room for every occupant.
+     */
+    public int exportPoints(PointCloud cloud, Consumer<? super T> consumer) {
+        cloud.validateCapacity(lattice.dimensionality(), countOccupants());
+
+        BulkOperationEvent event = BulkOperationEvent.start();
+        UnitCell unitCell = lattice.getUnitCell();
+        int[] coords = new int[lattice.dimensionality()];
+        int point = 0;
+
+        for (var entry : indexMap.entrySet()) {
+            UnitIndex index = entry.getValue();
+
+            for (int dim = 0; dim < coords.length; ++dim)
+                coords[dim] = index.coord(dim);
+
+            cloud.put(point++, unitCell, coords);
+            consumer.accept(entry.getKey());
+        }
+
+        event.finish("Population.exportPoints", lattice, point);
+        return point;
+    }
+
     /**
      * Fills this lattice moving from left-to-right, bottom-to-top with
      * occupants created by a Supplier.  Any previous occupants will be
@@ -110,10 +193,13 @@ public final class Population<T> {
      * @param supplier the source of new occupants.
      */
     public void fill(Supplier<? extends T> supplier) {
+        BulkOperationEvent event = BulkOperationEvent.start();
         List<UnitIndex> images = lattice.getPeriod().enumerate();
 
         for (UnitIndex image : images)
             place(supplier.get(), image);
+
+        event.finish("Population.fill", lattice, images.size());
     }
 
     /**
@@ -130,6 +216,7 @@ public final class Population<T> {
         if (occupants.size() != lattice.getPeriod().countSites())
             throw new IllegalArgumentException("Occupants do not exactly fill the lattice.");
 
+        BulkOperationEvent event = BulkOperationEvent.start();
         List<UnitIndex> images = lattice.getPeriod().enumerate();
         assert occupants.size() == images.size();
 
@@ -139,6 +226,8 @@ public final class Population<T> {
             place(occupant, images.get(imageOrdinal));
             ++imageOrdinal;
         }
+
+        event.finish("Population.fill", lattice, imageOrdinal);
     }
 
     /**
@@ -155,6 +244,264 @@ public final class Population<T> {
         return indexMap.get(occupant);
     }
 
+    /**
+     * Places a cloud of new occupants on this lattice in bulk, on the
+     * calling thread.
+     *
+     * @param occupants the occupants to place, in the same order as
+     * the points.
+     *
+     * @param cloud the continuous-space locations of the occupants.
+     *
+     * @param policy the policy for resolving collisions.
+     *
+     * @return a summary of the ingestion.
+     *
+     * @throws IllegalArgumentException unless the occupants and points
+     * correspond one-to-one and the points have the dimensionality of
+     * this lattice, or if any occupant appears more than once or is
+     * already on this lattice.
+     *
+     * @see #ingest(List, PointCloud, CollisionPolicy, ExecutorService)
+     */
+    public IngestReport ingest(List<? extends T> occupants, PointCloud cloud, CollisionPolicy policy) {
+        return ingest(occupants, cloud, policy, null);
+    }
+
+    /**
+     * Places a cloud of new occupants on this lattice in bulk.
+     *
+     * <p>Each point is snapped to its nearest lattice site (using the
+     * exact Wigner-Seitz lookup of {@code UnitCell.nearestIndex}) in
+     * parallel batches.  Collisions between points, and between
+     * points and existing occupants, are then resolved sequentially
+     * in input order according to the collision policy, and the
+     * surviving points are committed in a single pass.
+     *
+     * @param occupants the occupants to place, in the same order as
+     * the points; the occupants must be distinct.
+     *
+     * @param cloud the continuous-space locations of the occupants.
+     *
+     * @param policy the policy for resolving collisions.
+     *
+     * @param executor the executor for the parallel snapping tasks
+     * ({@code null} to snap on the calling thread).
+     *
+     * @return a summary of the ingestion.
+     *
+     * @throws IllegalArgumentException unless the occupants and points
+     * correspond one-to-one and the points have the dimensionality of
+     * this lattice, or if any occupant appears more than once or is
+     * already on this lattice.
+     */
+    public IngestReport ingest(List<? extends T> occupants, PointCloud cloud,
+                               CollisionPolicy policy, ExecutorService executor) {
+        if (occupants.size() != cloud.size())
+            throw new IllegalArgumentException("Occupants and points do not correspond.");
+
+        if (cloud.dimensionality() != lattice.dimensionality())
+            throw new IllegalArgumentException("Inconsistent point dimensionality.");
+
+        Set<T> distinct = new HashSet<>(occupants.size());
+
+        for (T occupant : occupants) {
+            if (contains(occupant))
+                throw new IllegalArgumentException("Occupant is already on the lattice.");
+
+            if (!distinct.add(occupant))
+                throw new IllegalArgumentException("Duplicate occupant.");
+        }
+
+        BulkOperationEvent event = BulkOperationEvent.start();
+        int count = cloud.size();
+        int[] sites = new int[count];
+        UnitIndex[] indexes = new UnitIndex[count];
+
+        snap(cloud, indexes, sites, executor);
+
+        BitSet occupied = occupiedSites();
+        BitSet claimed = new BitSet(lattice.siteCapacity());
+        BitSet collided = new BitSet(count);
+        BitSet dropped = new BitSet(count);
+
+        int displaced = 0;
+        int evicted = 0;
+
+        // Allocated on the first displacement and reused thereafter...
+        VacancySearch search = null;
+
+        switch (policy) {
+        case KEEP_FIRST:
+        case DISPLACE:
+            long vacancies = lattice.countSites() - countOccupants();
+
+            for (int m = 0; m < count; ++m) {
+                int site = sites[m];
+
+                if (!claimed.get(site) && !occupied.get(site)) {
+                    claimed.set(site);
+                    --vacancies;
+                    continue;
+                }
+
+                collided.set(m);
+
+                if (policy == CollisionPolicy.DISPLACE && vacancies > 0) {
+                    if (search == null)
+                        search = new VacancySearch();
+
+                    int vacancy = search.nearest(site, claimed, occupied);
+                    claimed.set(vacancy);
+                    --vacancies;
+
+                    indexes[m] = lattice.indexAt(vacancy);
+                    ++displaced;
+                }
+                else {
+                    dropped.set(m);
+                }
+            }
+            break;
+
+        case KEEP_LAST:
+            for (int m = count - 1; m >= 0; --m) {
+                int site = sites[m];
+
+                if (claimed.get(site)) {
+                    collided.set(m);
+                    dropped.set(m);
+                }
+                else {
+                    claimed.set(site);
+
+                    if (occupied.get(site))
+                        ++evicted;
+                }
+            }
+            break;
+
+        default:
+            throw JamException.runtime("Unknown collision policy: [%s].", policy);
+        }
+
+        // Commit the survivors; the frontier is rebuilt on demand
+        // rather than updated once per occupant...
+        frontier = null;
+
+        int m = 0;
+
+        for (T occupant : occupants) {
+            if (!dropped.get(m))
+                place(occupant, indexes[m]);
+
+            ++m;
+        }
+
+        event.finish("Population.ingest", lattice, count);
+
+        return new IngestReport(count - dropped.cardinality(), displaced, evicted,
+                                collided.stream().toArray(), dropped.stream().toArray());
+    }
+
+    private void snap(PointCloud cloud, UnitIndex[] indexes, int[] sites, ExecutorService executor) {
+        int count = cloud.size();
+
+        if (executor == null) {
+            cloud.snap(lattice, 0, count, indexes, sites);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int from = 0; from < count; from += SNAP_CHUNK) {
+            int lower = from;
+            int upper = Math.min(count, from + SNAP_CHUNK);
+
+            tasks.add(() -> {
+                    cloud.snap(lattice, lower, upper, indexes, sites);
+                    return null;
+                });
+        }
+
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted during point-cloud ingestion.");
+        }
+        catch (ExecutionException ex) {
+            // Snapping throws only unchecked exceptions...
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            else
+                throw (RuntimeException) ex.getCause();
+        }
+    }
+
+    private BitSet occupiedSites() {
+        BitSet occupied = new BitSet(lattice.siteCapacity());
+
+        for (UnitIndex image : imageBiMap.keySet())
+            occupied.set(lattice.siteOf(image));
+
+        return occupied;
+    }
+
+    // Breadth-first search over nearest-neighbor shells.  The visited
+    // set and the primitive queue are reused across searches, and only
+    // the bits set by a search are cleared after it...
+    private final class VacancySearch {
+        private final int[] neighbors = new int[lattice.countNeighbors()];
+        private final BitSet visited = new BitSet(lattice.siteCapacity());
+
+        private int[] queue = new int[64];
+        private int tail;
+
+        // The caller guarantees that at least one vacancy exists...
+        private int nearest(int site, BitSet claimed, BitSet occupied) {
+            try {
+                return search(site, claimed, occupied);
+            }
+            finally {
+                for (int k = 0; k < tail; ++k)
+                    visited.clear(queue[k]);
+
+                tail = 0;
+            }
+        }
+
+        private int search(int site, BitSet claimed, BitSet occupied) {
+            visit(site);
+
+            for (int head = 0; head < tail; ++head) {
+                lattice.neighborSites(queue[head], neighbors);
+
+                for (int neighbor : neighbors) {
+                    if (visited.get(neighbor))
+                        continue;
+
+                    if (!claimed.get(neighbor) && !occupied.get(neighbor))
+                        return neighbor;
+
+                    visit(neighbor);
+                }
+            }
+
+            throw new IllegalStateException("No vacant site.");
+        }
+
+        private void visit(int site) {
+            if (tail == queue.length)
+                queue = Arrays.copyOf(queue, 2 * tail);
+
+            visited.set(site);
+            queue[tail++] = site;
+        }
+    }
+
     /**
      * Identifies empty lattices.
      *
@@ -164,6 +511,19 @@ public final class Population<T> {
         return indexMap.isEmpty();
     }
 
+    /**
+     * Identifies occupants on the growth frontier (those with at
+     * least one unoccupied nearest neighbor).
+     *
+     * @param occupant an occupant to examine.
+     *
+     * @return {@code true} iff this lattice contains the specified
+     * occupant and at least one of its nearest neighbors is vacant.
+     */
+    public boolean isFrontier(T occupant) {
+        return viewFrontierSet().contains(occupant);
+    }
+
     /**
      * Identifies completely full lattices.
      *
@@ -326,7 +686,11 @@ public final class Population<T> {
      * the cell was unoccupied).
      */
     public T place(T occupant, UnitIndex index) {
-        T prevOcc = imageBiMap.forcePut(lattice.imageOf(index), occupant);
+        SiteOperationEvent event = SiteOperationEvent.start();
+        UnitIndex image = lattice.imageOf(index);
+        UnitIndex prevIndex = indexMap.get(occupant);
+
+        T prevOcc = imageBiMap.forcePut(image, occupant);
 
         if (prevOcc != null && prevOcc != occupant)
             indexMap.remove(prevOcc);
@@ -334,9 +698,25 @@ public final class Population<T> {
         indexMap.put(occupant, index);
         assert indexMap.size() == imageBiMap.size();
 
+        if (frontier != null)
+            updateFrontier(occupant, index, image, prevOcc, prevIndex);
+
+        SiteOperationEvent.finish(event, "Population.place", index);
+
         return prevOcc;
     }
 
+    private void updateFrontier(T occupant, UnitIndex index, UnitIndex image, T prevOcc, UnitIndex prevIndex) {
+        if (prevOcc != null && prevOcc != occupant)
+            frontier.remove(prevOcc);
+
+        // An occupant that moved has vacated its previous site...
+        if (prevIndex != null && !image.equals(lattice.imageOf(prevIndex)))
+            frontierVacate(prevIndex);
+
+        frontierOccupy(occupant, index);
+    }
+
     /**
      * Removes an occupant from this lattice (has no effect if the
      * occupant is not present).
@@ -344,8 +724,16 @@ public final class Population<T> {
      * @param occupant the occupant to remove.
      */
     public void remove(T occupant) {
-        indexMap.remove(occupant);
+        SiteOperationEvent event = SiteOperationEvent.start();
+        UnitIndex index = indexMap.remove(occupant);
         imageBiMap.inverse().remove(occupant);
+
+        if (frontier != null && index != null) {
+            frontier.remove(occupant);
+            frontierVacate(index);
+        }
+
+        SiteOperationEvent.finish(event, "Population.remove", index);
     }
     
     /**
@@ -368,6 +756,19 @@ public final class Population<T> {
             throw new IllegalArgumentException("Missing lattice occupant.");
     }
     
+    /**
+     * Selects one occupant at random (with equal probability) from
+     * the growth frontier.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return an occupant selected at random from the growth frontier
+     * ({@code null} if the frontier is empty).
+     */
+    public T selectFrontier(Random random) {
+        return viewFrontierSet().select(random);
+    }
+
     /**
      * Swaps the locations of two occupants on this lattice.
      *
@@ -408,4 +809,82 @@ public final class Population<T> {
 
         return unoccupied;
     }
+
+    /**
+     * Returns a read-only view of the occupants on the growth
+     * frontier (those with at least one unoccupied nearest neighbor).
+     *
+     * <p>The frontier is built on the first call to any frontier
+     * method and then maintained incrementally: each subsequent call
+     * to {@code place} or {@code remove} examines only the nearest
+     * neighbors of the affected sites, so the cost of maintaining the
+     * frontier scales with its perimeter rather than the population
+     * volume.  The view reflects subsequent changes to the population
+     * and its iteration order is unspecified.
+     *
+     * @return a read-only view of the occupants on the growth
+     * frontier.
+     */
+    public List<T> viewFrontier() {
+        return viewFrontierSet().view();
+    }
+
+    private SampleSet<T> viewFrontierSet() {
+        if (frontier == null)
+            buildFrontier();
+
+        return frontier;
+    }
+
+    private void buildFrontier() {
+        frontier = new SampleSet<>();
+
+        for (var entry : indexMap.entrySet())
+            if (hasUnoccupiedNeighbor(entry.getValue()))
+                frontier.add(entry.getKey());
+    }
+
+    private boolean hasUnoccupiedNeighbor(UnitIndex index) {
+        for (UnitIndex transVec : lattice.getUnitCell().viewNeighborTranslationVectors())
+            if (!isOccupied(index.plus(transVec)))
+                return true;
+
+        return false;
+    }
+
+    private void frontierOccupy(T occupant, UnitIndex index) {
+        //
+        // The new occupant may or may not have vacant neighbors, and
+        // its occupied neighbors may have lost their last vacancy...
+        //
+        frontierRefresh(occupant, index);
+
+        for (UnitIndex transVec : lattice.getUnitCell().viewNeighborTranslationVectors()) {
+            UnitIndex neighborIndex = index.plus(transVec);
+            T neighborOccupant = occupantAt(neighborIndex);
+
+            if (neighborOccupant != null)
+                frontierRefresh(neighborOccupant, neighborIndex);
+        }
+    }
+
+    private void frontierRefresh(T occupant, UnitIndex index) {
+        if (hasUnoccupiedNeighbor(index))
+            frontier.add(occupant);
+        else
+            frontier.remove(occupant);
+    }
+
+    private void frontierVacate(UnitIndex index) {
+        //
+        // Every occupied neighbor of a vacated site now has at least
+        // one vacancy...
+        //
+        for (UnitIndex transVec : lattice.getUnitCell().viewNeighborTranslationVectors()) {
+            T neighborOccupant = occupantAt(index.plus(transVec));
+
+            if (neighborOccupant != null)
+                frontier.add(neighborOccupant);
+        }
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.tipplerow.jam.lang.JamException;
+
+/**
+ * Collects operation counts, occupancy, and sampled latencies for a
+ * population accessed through an {@link InstrumentedPopulation}.
+ *
+ * <p>Every call is counted in a striped {@link LongAdder}, so threads
+ * updating the same counter do not contend.  One call in
+ * {@code getSampleInterval()} (chosen at random) is also timed and
+ * recorded in a power-of-two latency histogram.
+ *
+ * <p>Populations that are not wrapped are not instrumented and pay
+ * nothing.
+ *
+ * @author Scott Shaffer
+ */
+public final class PopulationMonitor implements PopulationMonitorMXBean {
+    /**
+     * The instrumented population operations.
+     */
+    public enum Operation {
+        INDEX_OF,
+        NEIGHBORS_OF,
+        OCCUPANT_AT,
+        PLACE,
+        REMOVE,
+        REPLACE,
+        SELECT_FRONTIER,
+        SWAP,
+        UNOCCUPIED_NEIGHBORS
+    }
+
+    /**
+     * The default number of calls per timed call.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /**
+     * The number of buckets in each latency histogram.
+     */
+    public static final int HISTOGRAM_BUCKETS = 40;
+
+    /**
+     * The JMX domain for registered monitors.
+     */
+    public static final String DOMAIN = "com.tipplerow.jam.bravais";
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final Population<?> population;
+    private final int sampleInterval;
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final LongAdder[][] histograms = new LongAdder[OPERATIONS.length][HISTOGRAM_BUCKETS];
+
+    PopulationMonitor(Population<?> population, int sampleInterval) {
+        if (sampleInterval < 1)
+            throw new IllegalArgumentException("The sample interval must be positive.");
+
+        this.population = population;
+        this.sampleInterval = sampleInterval;
+
+        for (int op = 0; op < OPERATIONS.length; ++op) {
+            counts[op] = new LongAdder();
+
+            for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; ++bucket)
+                histograms[op][bucket] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the number of calls to an operation.
+     *
+     * @param operation the operation of interest.
+     *
+     * @return the number of calls to the specified operation.
+     */
+    public long count(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /**
+     * Returns the sampled latency histogram of an operation.
+     *
+     * @param operation the operation of interest.
+     *
+     * @return the sampled latency histogram of the specified
+     * operation (see {@link #getLatencyHistograms()}).
+     */
+    public long[] latencyHistogram(Operation operation) {
+        LongAdder[] histogram = histograms[operation.ordinal()];
+        long[] result = new long[HISTOGRAM_BUCKETS];
+
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; ++bucket)
+            result[bucket] = histogram[bucket].sum();
+
+        return result;
+    }
+
+    /**
+     * Registers this monitor with the platform MBean server.
+     *
+     * @param name the value of the {@code name} key in the object
+     * name (which has the form {@code DOMAIN:type=Population,name=...}).
+     *
+     * @return the object name under which this monitor is registered.
+     *
+     * @throws RuntimeException if the name is invalid or already
+     * registered.
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=Population,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        }
+        catch (JMException ex) {
+            throw JamException.runtime("Could not register population monitor [%s]: %s", name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters a monitor from the platform MBean server (has no
+     * effect if the name is not registered).
+     *
+     * @param objectName the object name returned by {@code register()}.
+     */
+    public static void unregister(ObjectName objectName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            if (server.isRegistered(objectName))
+                server.unregisterMBean(objectName);
+        }
+        catch (JMException ex) {
+            throw JamException.runtime("Could not unregister population monitor [%s]: %s", objectName, ex.getMessage());
+        }
+    }
+
+    @Override public long getCapacity() {
+        return population.getLattice().countSites();
+    }
+
+    @Override public double getFillFraction() {
+        return (double) population.countOccupants() / getCapacity();
+    }
+
+    @Override public Map<String, long[]> getLatencyHistograms() {
+        Map<String, long[]> result = new LinkedHashMap<>();
+
+        for (Operation operation : OPERATIONS)
+            result.put(operation.name(), latencyHistogram(operation));
+
+        return result;
+    }
+
+    @Override public long getNeighborTableBytes() {
+        return population.getLattice().neighborTableBytes();
+    }
+
+    @Override public int getOccupants() {
+        return population.countOccupants();
+    }
+
+    @Override public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+
+        for (Operation operation : OPERATIONS)
+            result.put(operation.name(), count(operation));
+
+        return result;
+    }
+
+    @Override public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override public void reset() {
+        for (int op = 0; op < OPERATIONS.length; ++op) {
+            counts[op].reset();
+
+            for (LongAdder bucket : histograms[op])
+                bucket.reset();
+        }
+    }
+
+    /**
+     * Records the start of an operation.
+     *
+     * @param operation the operation being started.
+     *
+     * @return the start time to pass to {@code stop()} if the call
+     * is sampled, or a sentinel value otherwise.
+     */
+    long start(Operation operation) {
+        counts[operation.ordinal()].increment();
+
+        if (sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0)
+            return System.nanoTime();
+        else
+            return NOT_SAMPLED;
+    }
+
+    /**
+     * Records the end of an operation.
+     *
+     * @param operation the operation being completed.
+     *
+     * @param start the value returned by {@code start()}.
+     */
+    void stop(Operation operation, long start) {
+        if (start == NOT_SAMPLED)
+            return;
+
+        long elapsed = System.nanoTime() - start;
+        int bucket = Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1L, elapsed)));
+
+        histograms[operation.ordinal()][bucket].increment();
+    }
+}
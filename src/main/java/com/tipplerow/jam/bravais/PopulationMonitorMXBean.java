@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the statistics collected by a
+ * {@link PopulationMonitor} through JMX.
+ *
+ * @author Scott Shaffer
+ */
+public interface PopulationMonitorMXBean {
+    /**
+     * Returns the number of sites in the population lattice.
+     *
+     * @return the number of sites in the population lattice.
+     */
+    long getCapacity();
+
+    /**
+     * Returns the fraction of lattice sites that are occupied.
+     *
+     * @return the fraction of lattice sites that are occupied.
+     */
+    double getFillFraction();
+
+    /**
+     * Returns the sampled latency histogram of each operation.
+     * Element {@code k} of each histogram counts the sampled calls
+     * that took at least {@code 2^k} and less than {@code 2^(k+1)}
+     * nanoseconds (element zero also counts faster calls).
+     *
+     * @return the sampled latency histograms keyed by operation name.
+     */
+    Map<String, long[]> getLatencyHistograms();
+
+    /**
+     * Returns the memory occupied by the neighbor table of the
+     * population lattice.
+     *
+     * @return the size of the neighbor table in bytes (zero if the
+     * table has not been built).
+     */
+    long getNeighborTableBytes();
+
+    /**
+     * Returns the number of occupants in the population.
+     *
+     * @return the number of occupants in the population.
+     */
+    int getOccupants();
+
+    /**
+     * Returns the number of calls to each operation.
+     *
+     * @return the number of calls keyed by operation name.
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * Returns the average number of calls per timed call.
+     *
+     * @return the average number of calls per timed call.
+     */
+    int getSampleInterval();
+
+    /**
+     * Resets the operation counts and latency histograms to zero.
+     */
+    void reset();
+}
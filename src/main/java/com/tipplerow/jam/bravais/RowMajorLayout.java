@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Orders sites with the {@code x}-coordinate varying fastest and the
+ * {@code z}-coordinate varying slowest.
+ *
+ * @author Scott Shaffer
+ */
+final class RowMajorLayout extends SiteLayout {
+    private final int nxy;
+
+    RowMajorLayout(int nx, int ny, int nz) {
+        super(nx, ny, nz);
+        this.nxy = nx * ny;
+    }
+
+    @Override long decode(int site) {
+        return pack(x(site), y(site), z(site));
+    }
+
+    @Override int siteOf(int i, int j, int k) {
+        return i + nx * j + nxy * k;
+    }
+
+    @Override int translate(int site, int di, int dj, int dk) {
+        int i  = site % nx;
+        int jk = site / nx;
+        int j  = jk % ny;
+        int k  = jk / ny;
+
+        return siteOf(Period.imageOf(i + di, nx),
+                      Period.imageOf(j + dj, ny),
+                      Period.imageOf(k + dk, nz));
+    }
+
+    @Override int x(int site) {
+        return site % nx;
+    }
+
+    @Override int y(int site) {
+        return (site / nx) % ny;
+    }
+
+    @Override int z(int site) {
+        return site / nxy;
+    }
+}
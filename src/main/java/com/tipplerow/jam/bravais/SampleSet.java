@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Maintains a set of objects with constant-time insertion, removal,
+ * and uniform random selection.
+ *
+ * <p>The elements are stored contiguously in a list; removal moves
+ * the last element into the vacated slot, so the iteration order is
+ * not stable across modifications.
+ *
+ * @author Scott Shaffer
+ */
+final class SampleSet<T> {
+    private final List<T> elements = new ArrayList<>();
+    private final Map<T, Integer> slots = new HashMap<>();
+
+    private final List<T> view = Collections.unmodifiableList(elements);
+
+    /**
+     * Adds an element to this set (has no effect if the element is
+     * already present).
+     *
+     * @param element the element to add.
+     *
+     * @return {@code true} iff the element was added.
+     */
+    boolean add(T element) {
+        if (slots.containsKey(element))
+            return false;
+
+        slots.put(element, elements.size());
+        elements.add(element);
+
+        return true;
+    }
+
+    /**
+     * Removes all elements from this set.
+     */
+    void clear() {
+        slots.clear();
+        elements.clear();
+    }
+
+    /**
+     * Identifies elements of this set.
+     *
+     * @param element the element to examine.
+     *
+     * @return {@code true} iff this set contains the element.
+     */
+    boolean contains(T element) {
+        return slots.containsKey(element);
+    }
+
+    /**
+     * Removes an element from this set (has no effect if the element
+     * is not present).
+     *
+     * @param element the element to remove.
+     *
+     * @return {@code true} iff the element was removed.
+     */
+    boolean remove(T element) {
+        Integer slot = slots.remove(element);
+
+        if (slot == null)
+            return false;
+
+        T last = elements.remove(elements.size() - 1);
+
+        if (slot < elements.size()) {
+            elements.set(slot, last);
+            slots.put(last, slot);
+        }
+
+        return true;
+    }
+
+    /**
+     * Selects one element at random (with equal probability).
+     *
+     * @param random the source of random deviates.
+     *
+     * @return an element selected at random ({@code null} if this set
+     * is empty).
+     */
+    T select(Random random) {
+        if (elements.isEmpty())
+            return null;
+        else
+            return elements.get(random.nextInt(elements.size()));
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set.
+     */
+    int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns a read-only view of the elements in this set.
+     *
+     * @return a read-only view of the elements in this set.
+     */
+    List<T> view() {
+        return view;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Maps the periodic images in a two- or three-dimensional box onto
+ * site ordinals (a bijection between image coordinates and the
+ * integers {@code [0, nx * ny * nz)}).
+ *
+ * <p>Two-dimensional boxes are represented with {@code nz == 1} and
+ * a {@code z}-coordinate of zero.
+ *
+ * <p>Layouts based on space-filling curves may pad the box, in which
+ * case the ordinals are drawn from the larger range
+ * {@code [0, capacity())} and some ordinals do not correspond to any
+ * site.
+ *
+ * @author Scott Shaffer
+ */
+abstract class SiteLayout {
+    /**
+     * The box length along the {@code x}-direction.
+     */
+    protected final int nx;
+
+    /**
+     * The box length along the {@code y}-direction.
+     */
+    protected final int ny;
+
+    /**
+     * The box length along the {@code z}-direction.
+     */
+    protected final int nz;
+
+    /**
+     * Creates a new layout for a fixed box.
+     *
+     * @param nx the box length along the {@code x}-direction.
+     *
+     * @param ny the box length along the {@code y}-direction.
+     *
+     * @param nz the box length along the {@code z}-direction.
+     */
+    protected SiteLayout(int nx, int ny, int nz) {
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+    }
+
+    /**
+     * The number of bits in each coordinate field of a packed
+     * coordinate triplet.
+     */
+    static final int COORD_BITS = 21;
+
+    /**
+     * The mask for one coordinate field of a packed coordinate
+     * triplet.
+     */
+    static final int COORD_MASK = (1 << COORD_BITS) - 1;
+
+    /**
+     * Packs three non-negative coordinates (each less than
+     * {@code 2^21}) into the fields of a single long value.
+     *
+     * @param i the coordinate along the {@code x}-direction.
+     *
+     * @param j the coordinate along the {@code y}-direction.
+     *
+     * @param k the coordinate along the {@code z}-direction.
+     *
+     * @return the packed coordinate triplet.
+     */
+    static long pack(long i, long j, long k) {
+        return i | (j << COORD_BITS) | (k << (2 * COORD_BITS));
+    }
+
+    /**
+     * Extracts the {@code x}-coordinate from a packed triplet.
+     *
+     * @param coords a packed coordinate triplet.
+     *
+     * @return the {@code x}-coordinate.
+     */
+    static int unpackX(long coords) {
+        return (int) (coords & COORD_MASK);
+    }
+
+    /**
+     * Extracts the {@code y}-coordinate from a packed triplet.
+     *
+     * @param coords a packed coordinate triplet.
+     *
+     * @return the {@code y}-coordinate.
+     */
+    static int unpackY(long coords) {
+        return (int) ((coords >>> COORD_BITS) & COORD_MASK);
+    }
+
+    /**
+     * Extracts the {@code z}-coordinate from a packed triplet.
+     *
+     * @param coords a packed coordinate triplet.
+     *
+     * @return the {@code z}-coordinate.
+     */
+    static int unpackZ(long coords) {
+        return (int) (coords >>> (2 * COORD_BITS));
+    }
+
+    /**
+     * Ensures that each box length fits in a packed coordinate field.
+     *
+     * @throws IllegalArgumentException unless each box length is less
+     * than {@code 2^21}.
+     */
+    protected void validatePackable() {
+        if (nx > COORD_MASK || ny > COORD_MASK || nz > COORD_MASK)
+            throw new IllegalArgumentException("Period is too large for the site ordering.");
+    }
+
+    /**
+     * Ensures that every site ordinal fits in an {@code int}, so that
+     * the ordinal arithmetic of the layout cannot overflow.
+     *
+     * @throws IllegalArgumentException if the box contains more than
+     * {@code Integer.MAX_VALUE} sites.
+     */
+    protected void validateIndexable() {
+        if ((long) nx * ny * nz > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Period is too large for the site ordering.");
+    }
+
+    /**
+     * Returns the exclusive upper bound for site ordinals.
+     *
+     * @return the exclusive upper bound for site ordinals (computed
+     * in {@code long} arithmetic, so that boxes too large for array
+     * storage are reported correctly).
+     */
+    long capacity() {
+        return (long) nx * ny * nz;
+    }
+
+    /**
+     * Identifies ordinals that correspond to sites in the box.
+     *
+     * @param site the ordinal to examine.
+     *
+     * @return {@code true} iff the ordinal corresponds to a site in
+     * the box.
+     */
+    boolean contains(int site) {
+        return 0 <= site && site < capacity();
+    }
+
+    /**
+     * Returns the coordinates of the image at a site.
+     *
+     * @param site a site ordinal.
+     *
+     * @return the coordinates of the image at the site, packed into a
+     * single long value.
+     */
+    abstract long decode(int site);
+
+    /**
+     * Returns the site ordinal of an image coordinate.
+     *
+     * @param i the image coordinate along the {@code x}-direction.
+     *
+     * @param j the image coordinate along the {@code y}-direction.
+     *
+     * @param k the image coordinate along the {@code z}-direction.
+     *
+     * @return the site ordinal of the specified image.
+     */
+    abstract int siteOf(int i, int j, int k);
+
+    /**
+     * Translates a site by a lattice vector and returns the site
+     * ordinal of the periodic image of the result.
+     *
+     * @param site the site ordinal of a periodic image.
+     *
+     * @param di the translation along the {@code x}-direction.
+     *
+     * @param dj the translation along the {@code y}-direction.
+     *
+     * @param dk the translation along the {@code z}-direction.
+     *
+     * @return the site ordinal of the translated image.
+     */
+    int translate(int site, int di, int dj, int dk) {
+        long coords = decode(site);
+
+        return siteOf(Period.imageOf(unpackX(coords) + di, nx),
+                      Period.imageOf(unpackY(coords) + dj, ny),
+                      Period.imageOf(unpackZ(coords) + dk, nz));
+    }
+
+    /**
+     * Returns the {@code x}-coordinate of the image at a site.
+     *
+     * @param site a site ordinal.
+     *
+     * @return the {@code x}-coordinate of the image at the site.
+     */
+    int x(int site) {
+        return unpackX(decode(site));
+    }
+
+    /**
+     * Returns the {@code y}-coordinate of the image at a site.
+     *
+     * @param site a site ordinal.
+     *
+     * @return the {@code y}-coordinate of the image at the site.
+     */
+    int y(int site) {
+        return unpackY(decode(site));
+    }
+
+    /**
+     * Returns the {@code z}-coordinate of the image at a site.
+     *
+     * @param site a site ordinal.
+     *
+     * @return the {@code z}-coordinate of the image at the site.
+     */
+    int z(int site) {
+        return unpackZ(decode(site));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Receives notification when a lattice site changes occupancy.
+ *
+ * <p>Listeners are invoked synchronously on the thread that modifies
+ * the population, so they should do constant work and must not
+ * modify the population themselves.
+ *
+ * @author Scott Shaffer
+ */
+public interface SiteListener {
+    /**
+     * Notifies this listener that a site has been occupied.
+     *
+     * @param site the ordinal of the primary lattice site.
+     *
+     * @param species the species of the new occupant.
+     */
+    void siteOccupied(int site, int species);
+
+    /**
+     * Notifies this listener that a site has been vacated.
+     *
+     * @param site the ordinal of the primary lattice site.
+     *
+     * @param species the species of the departed occupant.
+     */
+    void siteVacated(int site, int species);
+}
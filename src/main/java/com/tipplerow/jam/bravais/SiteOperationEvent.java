@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event emitted by single-site population updates.
+ *
+ * <p>These operations are called millions of times per simulation,
+ * so the event is disabled by default and, when enabled, records
+ * only the calls that exceed its duration threshold (for example, to
+ * catch updates stalled by garbage collection or rehashing).  Enable
+ * it and adjust the threshold in a recording configuration, e.g.
+ * {@code com.tipplerow.jam.bravais.SiteOperation#enabled=true}.
+ * While the event is disabled, no event objects are allocated.
+ *
+ * @author Scott Shaffer
+ */
+@Name(SiteOperationEvent.NAME)
+@Label("Lattice Site Operation")
+@Category({ "Jam", "Bravais" })
+@Description("A slow single-site update of a lattice population.")
+@Enabled(false)
+@Threshold("20 us")
+@StackTrace(false)
+final class SiteOperationEvent extends Event {
+    /**
+     * The name of this event type.
+     */
+    static final String NAME = "com.tipplerow.jam.bravais.SiteOperation";
+
+    // Reflects the settings of all running recordings...
+    private static final EventType TYPE = EventType.getEventType(SiteOperationEvent.class);
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Unit Index")
+    String index;
+
+    /**
+     * Creates and starts a new event if any running recording has
+     * enabled this event type.
+     *
+     * @return the started event, or {@code null} if this event type
+     * is disabled.
+     */
+    static SiteOperationEvent start() {
+        if (!TYPE.isEnabled())
+            return null;
+
+        SiteOperationEvent event = new SiteOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Completes an operation and commits its event if a recording
+     * requires it.
+     *
+     * @param event the event returned by {@code start()} ({@code null}
+     * if this event type was disabled, in which case nothing is done).
+     *
+     * @param operation the name of the operation.
+     *
+     * @param index the unit index that was updated ({@code null} if
+     * unknown).
+     */
+    static void finish(SiteOperationEvent event, String operation, UnitIndex index) {
+        if (event == null)
+            return;
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.index = String.valueOf(index);
+            event.commit();
+        }
+    }
+}
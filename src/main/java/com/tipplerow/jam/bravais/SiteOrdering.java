@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Enumerates the supported orderings of the sites in a periodic box,
+ * which determine the site ordinals, the order of the images returned
+ * by {@code Period.enumerate()}, and therefore the memory layout of
+ * every array indexed by site ordinal.
+ *
+ * <p>The ordering has no effect on one-dimensional periods.
+ *
+ * @author Scott Shaffer
+ */
+public enum SiteOrdering {
+    /**
+     * Orders sites with the {@code x}-coordinate varying fastest and
+     * the {@code z}-coordinate varying slowest (the default).
+     */
+    ROW_MAJOR {
+        @Override SiteLayout createLayout(int nx, int ny, int nz) {
+            return new RowMajorLayout(nx, ny, nz);
+        }
+    },
+
+    /**
+     * Orders sites in {@code 8 x 8 x 8} bricks (or {@code 32 x 32}
+     * tiles in two dimensions), which keeps most nearest neighbors
+     * within a few cache lines of each other.  Each box length must
+     * be less than {@code 2^21}.
+     */
+    TILED {
+        @Override SiteLayout createLayout(int nx, int ny, int nz) {
+            int tileLength = (nz == 1) ? TiledLayout.TILE_LENGTH_2D : TiledLayout.TILE_LENGTH_3D;
+            return new TiledLayout(nx, ny, nz, tileLength);
+        }
+    },
+
+    /**
+     * Orders sites along a Z-order (Morton) curve, which interleaves
+     * the bits of the image coordinates.  Box lengths that are not
+     * powers of two are padded, leaving some site ordinals unused,
+     * and the padded box may contain at most {@code 2^30} sites.
+     */
+    MORTON {
+        @Override SiteLayout createLayout(int nx, int ny, int nz) {
+            return new MortonLayout(nx, ny, nz);
+        }
+    },
+
+    /**
+     * Orders sites along a Hilbert curve, on which consecutive sites
+     * are always adjacent.  The box is padded to a cube (or square)
+     * with a power-of-two side, leaving some site ordinals unused;
+     * the side may not exceed {@code 1024} in three dimensions or
+     * {@code 32768} in two.
+     */
+    HILBERT {
+        @Override SiteLayout createLayout(int nx, int ny, int nz) {
+            return new HilbertLayout(nx, ny, nz);
+        }
+    };
+
+    /**
+     * Creates the site layout for a box with this ordering.
+     *
+     * @param nx the box length along the {@code x}-direction.
+     *
+     * @param ny the box length along the {@code y}-direction.
+     *
+     * @param nz the box length along the {@code z}-direction (one for
+     * two-dimensional boxes).
+     *
+     * @return the site layout for the specified box.
+     */
+    abstract SiteLayout createLayout(int nx, int ny, int nz);
+}
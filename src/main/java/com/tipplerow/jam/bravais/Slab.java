@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+
+/**
+ * Owns the occupants in one slab of a domain-decomposed lattice and
+ * keeps a read-only copy (the halo) of the adjacent layers owned by
+ * the neighboring slabs.
+ *
+ * <p>Kernels may read any site in the slab or its halo, but may only
+ * modify sites in the slab itself.  Moves and placements that target
+ * a site owned by another slab are sent to the owner as transfer
+ * requests, which the owner accepts at the next step barrier if the
+ * target site is still vacant; until then, the occupant remains at
+ * its original site and may not be moved or removed.
+ *
+ * <p>Halo contents reflect the state at the previous step barrier.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class Slab<T> {
+    /**
+     * The decomposition that contains this slab.
+     */
+    @Getter
+    private final SlabDecomposition<T> decomposition;
+
+    /**
+     * The position of this slab in the decomposition.
+     */
+    @Getter
+    private final int ordinal;
+
+    /**
+     * The first layer (inclusive) owned by this slab.
+     */
+    @Getter
+    private final int lower;
+
+    /**
+     * The last layer (exclusive) owned by this slab.
+     */
+    @Getter
+    private final int upper;
+
+    /**
+     * The source of random deviates for kernels running on this slab.
+     */
+    @Getter
+    private final Random random;
+
+    private final Period period;
+    private final UnitIndex[] transVecs;
+
+    private final int axis;
+    private final int axisLength;
+    private final int depth;
+    private final int halo;
+    private final int layerSize;
+
+    // Occupants of the slab and its halo, indexed by local site in
+    // row-major order with the decomposition axis varying slowest;
+    // local layer zero is the lowest halo layer...
+    private final Object[] cells;
+
+    // Interior sites with a transfer request in flight...
+    private final boolean[] pending;
+
+    // The occupied interior sites...
+    private final IntSampleSet occupied;
+
+    // Transfer requests sent by this slab, indexed by the owner...
+    private final List<List<Transfer<T>>> outbox;
+
+    // Move requests accepted by this slab, indexed by the sender...
+    private final List<List<Transfer<T>>> accepted;
+
+    // Reusable snapshot of the occupied sites...
+    private int[] snapshot = new int[0];
+
+    Slab(SlabDecomposition<T> decomposition, int ordinal, int lower, int upper, Random random) {
+        this.decomposition = decomposition;
+        this.ordinal = ordinal;
+        this.lower = lower;
+        this.upper = upper;
+        this.random = random;
+
+        Lattice lattice = decomposition.getLattice();
+
+        this.period = lattice.getPeriod();
+        this.transVecs = lattice.getUnitCell().viewNeighborTranslationVectors().toArray(new UnitIndex[0]);
+
+        this.axis = decomposition.getAxis();
+        this.axisLength = period.period(axis);
+        this.depth = upper - lower;
+        this.halo = decomposition.getHaloDepth();
+        this.layerSize = (int) (period.countSites() / axisLength);
+
+        int capacity = (depth + 2 * halo) * layerSize;
+
+        this.cells = new Object[capacity];
+        this.pending = new boolean[capacity];
+        this.occupied = new IntSampleSet(capacity);
+
+        int slabCount = decomposition.countSlabs();
+
+        this.outbox = new ArrayList<>(slabCount);
+        this.accepted = new ArrayList<>(slabCount);
+
+        for (int slab = 0; slab < slabCount; ++slab) {
+            outbox.add(new ArrayList<>());
+            accepted.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * A request to move or place an occupant on a site owned by
+     * another slab.
+     */
+    static final class Transfer<T> {
+        final T occupant;
+        final int origin;
+        final UnitIndex target;
+
+        Transfer(T occupant, int origin, UnitIndex target) {
+            this.occupant = occupant;
+            this.origin = origin;
+            this.target = target;
+        }
+    }
+
+    // The origin of a placement request...
+    private static final int NO_ORIGIN = -1;
+
+    /**
+     * Returns the number of nearest neighbors for each lattice site.
+     *
+     * @return the number of nearest neighbors for each lattice site.
+     */
+    public int countNeighbors() {
+        return transVecs.length;
+    }
+
+    /**
+     * Returns the number of occupants owned by this slab.
+     *
+     * @return the number of occupants owned by this slab.
+     */
+    public int countOccupants() {
+        return occupied.size();
+    }
+
+    /**
+     * Applies an action to the index of every site owned by this slab
+     * that is occupied when this method is called; sites vacated by
+     * the action before they are visited are skipped.
+     *
+     * @param action the action to apply.
+     */
+    public void forEachOccupied(Consumer<UnitIndex> action) {
+        int count = occupied.size();
+
+        if (snapshot.length < count)
+            snapshot = new int[count];
+
+        for (int slot = 0; slot < count; ++slot)
+            snapshot[slot] = occupied.get(slot);
+
+        for (int slot = 0; slot < count; ++slot)
+            if (occupied.contains(snapshot[slot]))
+                action.accept(indexOfLocal(snapshot[slot]));
+    }
+
+    /**
+     * Identifies occupied sites in this slab or its halo.
+     *
+     * @param index the unit index of the site to examine.
+     *
+     * @return {@code true} iff the site is occupied.
+     *
+     * @throws IllegalArgumentException unless the site lies in this
+     * slab or its halo.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        return cells[localSite(index)] != null;
+    }
+
+    /**
+     * Moves an occupant to another site.  A move within this slab
+     * takes effect immediately; a move into another slab is sent to
+     * the owner as a request that takes effect at the next barrier if
+     * the target site is still vacant then.
+     *
+     * @param source the unit index of an occupied site in this slab.
+     *
+     * @param target the unit index of a site in this slab or its halo.
+     *
+     * @return {@code true} if the occupant was moved or the request
+     * was sent, {@code false} if the target site is occupied.
+     *
+     * @throws IllegalArgumentException unless the source site is an
+     * occupied site in this slab and the target site lies in this
+     * slab or its halo.
+     *
+     * @throws IllegalStateException if the occupant already has a
+     * transfer request in flight.
+     */
+    public boolean move(UnitIndex source, UnitIndex target) {
+        int origin = ownedSite(source);
+        T occupant = occupantAtLocal(origin);
+
+        if (occupant == null)
+            throw new IllegalArgumentException("Source site is vacant.");
+
+        validateSettled(origin);
+
+        int destination = localSite(target);
+
+        if (cells[destination] != null)
+            return false;
+
+        if (isInterior(destination)) {
+            vacate(origin);
+            occupy(destination, occupant);
+        }
+        else {
+            pending[origin] = true;
+            send(new Transfer<>(occupant, origin, target));
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the unit index of a nearest neighbor.
+     *
+     * @param index the unit index of a lattice site.
+     *
+     * @param k the neighbor number, in the range
+     * {@code [0, countNeighbors())}.
+     *
+     * @return the unit index of the specified neighbor.
+     */
+    public UnitIndex neighborOf(UnitIndex index, int k) {
+        return index.plus(transVecs[k]);
+    }
+
+    /**
+     * Returns the occupant of a site in this slab or its halo.
+     *
+     * @param index the unit index of the site to examine.
+     *
+     * @return the occupant of the specified site ({@code null} if the
+     * site is vacant).
+     *
+     * @throws IllegalArgumentException unless the site lies in this
+     * slab or its halo.
+     */
+    public T occupantAt(UnitIndex index) {
+        return occupantAtLocal(localSite(index));
+    }
+
+    /**
+     * Identifies sites owned by this slab.
+     *
+     * @param index the unit index of the site to examine.
+     *
+     * @return {@code true} iff this slab owns the specified site.
+     */
+    public boolean owns(UnitIndex index) {
+        int layer = relativeLayer(index);
+        return 0 <= layer && layer < depth;
+    }
+
+    /**
+     * Places a new occupant on a vacant site.  A placement within
+     * this slab takes effect immediately; a placement in another slab
+     * is sent to the owner as a request that takes effect at the next
+     * barrier if the site is still vacant then.
+     *
+     * <p>Occupants must be distinct: placing an occupant that is
+     * already present elsewhere on the lattice has undefined results.
+     *
+     * @param occupant the occupant to place.
+     *
+     * @param index the unit index of a site in this slab or its halo.
+     *
+     * @return {@code true} if the occupant was placed or the request
+     * was sent, {@code false} if the site is occupied.
+     *
+     * @throws IllegalArgumentException unless the site lies in this
+     * slab or its halo.
+     */
+    public boolean place(T occupant, UnitIndex index) {
+        int site = localSite(index);
+
+        if (cells[site] != null)
+            return false;
+
+        if (isInterior(site))
+            occupy(site, occupant);
+        else
+            send(new Transfer<>(occupant, NO_ORIGIN, index));
+
+        return true;
+    }
+
+    /**
+     * Removes the occupant of a site in this slab.
+     *
+     * @param index the unit index of a site in this slab.
+     *
+     * @return the removed occupant ({@code null} if the site was
+     * vacant).
+     *
+     * @throws IllegalArgumentException unless the site lies in this
+     * slab.
+     *
+     * @throws IllegalStateException if the occupant has a transfer
+     * request in flight.
+     */
+    public T remove(UnitIndex index) {
+        int site = ownedSite(index);
+        validateSettled(site);
+
+        T occupant = occupantAtLocal(site);
+
+        if (occupant != null)
+            vacate(site);
+
+        return occupant;
+    }
+
+    /**
+     * Discards the requests sent during the previous step.
+     */
+    void clearOutbox() {
+        for (List<Transfer<T>> transfers : outbox)
+            transfers.clear();
+    }
+
+    /**
+     * Accepts the transfer requests addressed to this slab (in the
+     * order of the sending slabs) whose target sites are vacant.
+     *
+     * @param slabs all slabs in the decomposition.
+     */
+    void receive(List<Slab<T>> slabs) {
+        for (int sender = 0; sender < slabs.size(); ++sender) {
+            List<Transfer<T>> replies = accepted.get(sender);
+            replies.clear();
+
+            for (Transfer<T> transfer : slabs.get(sender).outbox.get(ordinal)) {
+                int site = ownedSite(transfer.target);
+
+                if (cells[site] != null)
+                    continue;
+
+                occupy(site, transfer.occupant);
+
+                if (transfer.origin != NO_ORIGIN)
+                    replies.add(transfer);
+            }
+        }
+    }
+
+    /**
+     * Vacates the origin of every move request accepted by another
+     * slab and releases the occupants of rejected requests.
+     *
+     * @param slabs all slabs in the decomposition.
+     */
+    void acknowledge(List<Slab<T>> slabs) {
+        for (Slab<T> owner : slabs)
+            for (Transfer<T> transfer : owner.accepted.get(ordinal))
+                vacate(transfer.origin);
+
+        for (List<Transfer<T>> transfers : outbox)
+            for (Transfer<T> transfer : transfers)
+                if (transfer.origin != NO_ORIGIN)
+                    pending[transfer.origin] = false;
+    }
+
+    /**
+     * Copies the boundary layers of the adjacent slabs into the halo
+     * of this slab.
+     *
+     * @param below the slab adjacent to the lower boundary.
+     *
+     * @param above the slab adjacent to the upper boundary.
+     */
+    void refreshHalo(Slab<T> below, Slab<T> above) {
+        int haloSize = halo * layerSize;
+
+        if (haloSize == 0)
+            return;
+
+        System.arraycopy(below.cells, below.depth * layerSize, cells, 0, haloSize);
+        System.arraycopy(above.cells, haloSize, cells, (halo + depth) * layerSize, haloSize);
+    }
+
+    /**
+     * Places an occupant on a site owned by this slab (while building
+     * the decomposition).
+     *
+     * @param occupant the occupant to place.
+     *
+     * @param index the unit index of a site in this slab.
+     */
+    void scatter(T occupant, UnitIndex index) {
+        occupy(ownedSite(index), occupant);
+    }
+
+    /**
+     * Places every occupant of this slab into a population.
+     *
+     * @param population the population to fill.
+     */
+    void gather(Population<T> population) {
+        for (int slot = 0; slot < occupied.size(); ++slot) {
+            int site = occupied.get(slot);
+            population.place(occupantAtLocal(site), indexOfLocal(site));
+        }
+    }
+
+    private UnitIndex indexOfLocal(int site) {
+        int[] coords = new int[period.dimensionality()];
+
+        for (int dim = 0; dim < axis; ++dim) {
+            int length = period.period(dim);
+
+            coords[dim] = site % length;
+            site /= length;
+        }
+
+        coords[axis] = site - halo + lower;
+        return UnitIndex.at(coords);
+    }
+
+    private boolean isInterior(int site) {
+        return halo * layerSize <= site && site < (halo + depth) * layerSize;
+    }
+
+    private int localSite(UnitIndex index) {
+        int layer = relativeLayer(index);
+
+        if (layer < -halo || layer >= depth + halo)
+            throw new IllegalArgumentException("Site lies outside the slab and its halo.");
+
+        int site = layer + halo;
+
+        for (int dim = axis - 1; dim >= 0; --dim)
+            site = site * period.period(dim) + Period.imageOf(index.coord(dim), period.period(dim));
+
+        return site;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T occupantAtLocal(int site) {
+        return (T) cells[site];
+    }
+
+    private void occupy(int site, T occupant) {
+        cells[site] = occupant;
+        occupied.add(site);
+    }
+
+    private int ownedSite(UnitIndex index) {
+        if (!owns(index))
+            throw new IllegalArgumentException("Site lies outside the slab.");
+
+        return localSite(index);
+    }
+
+    private int relativeLayer(UnitIndex index) {
+        // Layers beyond the upper halo wrap around to the lower halo...
+        int layer = Period.imageOf(index.coord(axis) - lower, axisLength);
+
+        if (layer >= depth + halo)
+            layer -= axisLength;
+
+        return layer;
+    }
+
+    private void send(Transfer<T> transfer) {
+        outbox.get(decomposition.ownerOf(transfer.target)).add(transfer);
+    }
+
+    private void vacate(int site) {
+        cells[site] = null;
+        occupied.remove(site);
+    }
+
+    private void validateSettled(int site) {
+        if (pending[site])
+            throw new IllegalStateException("Occupant has a transfer request in flight.");
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.tipplerow.jam.lang.JamException;
+
+import lombok.Getter;
+
+/**
+ * Divides a periodic lattice into slabs along its last dimension and
+ * advances the occupants of all slabs in parallel, one slab per task.
+ *
+ * <p>Each slab stores its own occupants and a halo that mirrors the
+ * adjacent layers of its neighbors, deep enough to contain every
+ * nearest neighbor of its boundary sites.  The first and last slabs
+ * are neighbors through the periodic boundary.  Each step proceeds
+ * in four phases separated by barriers:
+ * <ol>
+ *   <li>the kernel runs on every slab, reading the slab and its halo
+ *   and modifying the slab only, while transfers into other slabs
+ *   are queued as requests;</li>
+ *   <li>every slab accepts the requests addressed to it whose target
+ *   sites are vacant;</li>
+ *   <li>every slab vacates the origins of its accepted moves;</li>
+ *   <li>every slab refreshes its halo from its neighbors.</li>
+ * </ol>
+ *
+ * <p>Each slab has its own random number generator, seeded from the
+ * seed of the decomposition, so the results depend on the number of
+ * slabs but not on the number of threads or their scheduling.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class SlabDecomposition<T> {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    /**
+     * The dimension along which the lattice is divided.
+     */
+    @Getter
+    private final int axis;
+
+    /**
+     * The number of layers in each halo.
+     */
+    @Getter
+    private final int haloDepth;
+
+    private final int slabCount;
+    private final int[] owners;
+    private final List<Slab<T>> slabs;
+
+    private long stepCount = 0;
+
+    private SlabDecomposition(Lattice lattice, int slabCount, long seed) {
+        Period period = lattice.getPeriod();
+
+        this.lattice = lattice;
+        this.axis = period.dimensionality() - 1;
+
+        int axisLength = period.period(axis);
+
+        if (slabCount < 1 || slabCount > axisLength)
+            throw new IllegalArgumentException("Invalid slab count.");
+
+        this.slabCount = slabCount;
+        this.haloDepth = (slabCount == 1) ? 0 : computeHaloDepth(lattice, axis);
+
+        if (axisLength / slabCount < haloDepth)
+            throw new IllegalArgumentException("Slabs are thinner than their halos.");
+
+        this.owners = new int[axisLength];
+
+        List<Slab<T>> slabList = new ArrayList<>(slabCount);
+        Random seeder = new Random(seed);
+
+        for (int ordinal = 0; ordinal < slabCount; ++ordinal) {
+            int lower = boundary(ordinal, axisLength, slabCount);
+            int upper = boundary(ordinal + 1, axisLength, slabCount);
+
+            for (int layer = lower; layer < upper; ++layer)
+                owners[layer] = ordinal;
+
+            slabList.add(new Slab<>(this, ordinal, lower, upper, new Random(seeder.nextLong())));
+        }
+
+        this.slabs = Collections.unmodifiableList(slabList);
+    }
+
+    private static int boundary(int ordinal, int axisLength, int slabCount) {
+        return (int) ((long) ordinal * axisLength / slabCount);
+    }
+
+    private static int computeHaloDepth(Lattice lattice, int axis) {
+        int depth = 0;
+
+        for (UnitIndex vector : lattice.getUnitCell().viewNeighborTranslationVectors())
+            depth = Math.max(depth, Math.abs(vector.coord(axis)));
+
+        return depth;
+    }
+
+    /**
+     * Divides the occupants of a population among slabs of (nearly)
+     * equal thickness.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param population the population to divide.
+     *
+     * @param slabCount the number of slabs.
+     *
+     * @param seed the seed for the random number generators of the
+     * slabs.
+     *
+     * @return the new decomposition.
+     *
+     * @throws IllegalArgumentException unless the slab count is
+     * positive and every slab is at least as thick as its halos.
+     */
+    public static <T> SlabDecomposition<T> create(Population<T> population, int slabCount, long seed) {
+        SlabDecomposition<T> decomposition = new SlabDecomposition<>(population.getLattice(), slabCount, seed);
+
+        for (T occupant : population.listOccupants()) {
+            UnitIndex index = population.indexOf(occupant);
+            decomposition.slabs.get(decomposition.ownerOf(index)).scatter(occupant, index);
+        }
+
+        decomposition.refreshHalos();
+        return decomposition;
+    }
+
+    /**
+     * Returns the total number of occupants in all slabs.
+     *
+     * @return the total number of occupants in all slabs.
+     */
+    public long countOccupants() {
+        long count = 0;
+
+        for (Slab<T> slab : slabs)
+            count += slab.countOccupants();
+
+        return count;
+    }
+
+    /**
+     * Returns the number of slabs in this decomposition.
+     *
+     * @return the number of slabs in this decomposition.
+     */
+    public int countSlabs() {
+        return slabCount;
+    }
+
+    /**
+     * Returns the number of completed parallel steps.
+     *
+     * @return the number of completed parallel steps.
+     */
+    public long countSteps() {
+        return stepCount;
+    }
+
+    /**
+     * Returns a slab in this decomposition.
+     *
+     * @param ordinal the position of the slab, in the range
+     * {@code [0, countSlabs())}.
+     *
+     * @return the slab at the specified position.
+     */
+    public Slab<T> getSlab(int ordinal) {
+        return slabs.get(ordinal);
+    }
+
+    /**
+     * Identifies the slab that owns a lattice site.
+     *
+     * @param index the unit index of a lattice site.
+     *
+     * @return the position of the slab that owns the site.
+     */
+    public int ownerOf(UnitIndex index) {
+        return owners[Period.imageOf(index.coord(axis), owners.length)];
+    }
+
+    /**
+     * Advances every slab by one step and synchronizes the slabs.
+     *
+     * @param kernel the kernel to run on each slab.
+     *
+     * @param executor the executor that runs the slab tasks (with up
+     * to one thread per slab).
+     *
+     * @throws RuntimeException any exception thrown by the kernel.
+     */
+    public void step(SlabKernel<T> kernel, ExecutorService executor) {
+        runPhase(executor, slab -> {
+            slab.clearOutbox();
+            kernel.step(slab);
+        });
+
+        runPhase(executor, slab -> slab.receive(slabs));
+        runPhase(executor, slab -> slab.acknowledge(slabs));
+        runPhase(executor, this::refreshHalo);
+
+        ++stepCount;
+    }
+
+    /**
+     * Assembles the occupants of all slabs into a new population.
+     *
+     * @return a new population containing the occupants of all
+     * slabs.
+     */
+    public Population<T> toPopulation() {
+        Population<T> population = Population.empty(lattice);
+
+        for (Slab<T> slab : slabs)
+            slab.gather(population);
+
+        return population;
+    }
+
+    private void refreshHalo(Slab<T> slab) {
+        int ordinal = slab.getOrdinal();
+
+        Slab<T> below = slabs.get((ordinal + slabCount - 1) % slabCount);
+        Slab<T> above = slabs.get((ordinal + 1) % slabCount);
+
+        slab.refreshHalo(below, above);
+    }
+
+    private void refreshHalos() {
+        for (Slab<T> slab : slabs)
+            refreshHalo(slab);
+    }
+
+    private void runPhase(ExecutorService executor, Consumer<Slab<T>> phase) {
+        List<Callable<Void>> tasks = new ArrayList<>(slabCount);
+
+        for (Slab<T> slab : slabs)
+            tasks.add(() -> {
+                phase.accept(slab);
+                return null;
+            });
+
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted during a parallel step.");
+        }
+        catch (ExecutionException ex) {
+            // Phases throw only unchecked exceptions...
+            if (ex.getCause() instanceof Error)
+                throw (Error) ex.getCause();
+            else
+                throw (RuntimeException) ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tipplerow.jam.math.Point;
+
+import lombok.Getter;
+
+/**
+ * Tracks a population of occupants on an unbounded (aperiodic)
+ * Bravais lattice.
+ *
+ * <p>Occupants are stored in fixed-size chunks of 4096 sites
+ * ({@code 16 x 16 x 16} in three dimensions, {@code 64 x 64} in two,
+ * and {@code 4096} in one), which are allocated when their first site
+ * is occupied and released when their last occupant is removed.  The
+ * chunks are keyed by their packed chunk coordinates in a primitive
+ * hash map, so memory usage tracks the occupied region rather than
+ * its bounding box.  Neighbor lookups that stay within a chunk are
+ * plain array offsets; only lookups that cross a chunk boundary
+ * consult the chunk map.
+ *
+ * <p>Each coordinate of a unit index must lie within the range
+ * {@code [-2^24, 2^24)}.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class SparsePopulation<T> {
+    /**
+     * The unit cell for the unbounded lattice.
+     */
+    @Getter
+    private final UnitCell unitCell;
+
+    private final int dimensionality;
+
+    // The number of bits in the local coordinate along each axis...
+    private final int chunkBits;
+    private final int chunkMask;
+
+    // Neighbor translation vectors by component and their offsets
+    // within the chunk array...
+    private final int[][] transVecs;
+    private final int[] transOffsets;
+
+    // Mapping from occupants to their ABSOLUTE unit cell indexes...
+    private final Map<T, UnitIndex> indexMap = new HashMap<>();
+
+    // Occupied chunks keyed by their packed chunk coordinates...
+    private final LongObjectMap<Chunk> chunkMap = new LongObjectMap<>();
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private static final class Chunk {
+        private final Object[] occupants = new Object[CHUNK_SIZE];
+        private int count = 0;
+    }
+
+    private SparsePopulation(UnitCell unitCell) {
+        this.unitCell = unitCell;
+        this.dimensionality = unitCell.dimensionality();
+        this.chunkBits = 12 / dimensionality;
+        this.chunkMask = (1 << chunkBits) - 1;
+
+        List<UnitIndex> vectors = unitCell.viewNeighborTranslationVectors();
+
+        this.transVecs = new int[vectors.size()][];
+        this.transOffsets = new int[vectors.size()];
+
+        for (int k = 0; k < vectors.size(); ++k) {
+            transVecs[k] = vectors.get(k).toArray();
+            transOffsets[k] = localOffset(transVecs[k]);
+        }
+    }
+
+    /**
+     * Creates a new empty population on an unbounded lattice.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param unitCell the unit cell for the unbounded lattice.
+     *
+     * @return a new empty population.
+     */
+    public static <T> SparsePopulation<T> empty(UnitCell unitCell) {
+        return new SparsePopulation<>(unitCell);
+    }
+
+    private int localOffset(int[] coords) {
+        int offset = 0;
+
+        for (int dim = dimensionality - 1; dim >= 0; --dim)
+            offset = (offset << chunkBits) + coords[dim];
+
+        return offset;
+    }
+
+    private int localOffset(UnitIndex index) {
+        int offset = 0;
+
+        for (int dim = dimensionality - 1; dim >= 0; --dim)
+            offset = (offset << chunkBits) | (index.coord(dim) & chunkMask);
+
+        return offset;
+    }
+
+    private long chunkKey(UnitIndex index) {
+        long key = 0;
+
+        for (int dim = 0; dim < dimensionality; ++dim) {
+            int coord = index.coord(dim);
+
+            if (coord < -(1 << 24) || coord >= (1 << 24))
+                throw new IllegalArgumentException("Unit index coordinate out of range.");
+
+            key = (key << COORD_BITS) | ((coord >> chunkBits) & COORD_MASK);
+        }
+
+        return key;
+    }
+
+    /**
+     * Identifies occupants on this lattice.
+     *
+     * @param occupant an occupant to examine.
+     *
+     * @return {@code true} iff this lattice contains the specified
+     * occupant.
+     */
+    public boolean contains(T occupant) {
+        return indexMap.containsKey(occupant);
+    }
+
+    /**
+     * Returns the number of allocated storage chunks.
+     *
+     * @return the number of allocated storage chunks.
+     */
+    public int countChunks() {
+        return chunkMap.size();
+    }
+
+    /**
+     * Returns the number of occupants on this lattice.
+     *
+     * @return the number of occupants on this lattice.
+     */
+    public int countOccupants() {
+        return indexMap.size();
+    }
+
+    /**
+     * Returns the discrete-space index of the unit cell occupied by
+     * an occupant on this lattice.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the discrete-space index of the specified occupant
+     * ({@code null} if this lattice does not contain the occupant).
+     */
+    public UnitIndex indexOf(T occupant) {
+        return indexMap.get(occupant);
+    }
+
+    /**
+     * Identifies empty lattices.
+     *
+     * @return {@code true} iff this lattice contains no occupants.
+     */
+    public boolean isEmpty() {
+        return indexMap.isEmpty();
+    }
+
+    /**
+     * Identifies occupied unit cells.
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return {@code true} iff the unit cell with the specified
+     * discrete index is occupied.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        return occupantAt(index) != null;
+    }
+
+    /**
+     * Returns the continuous-space position of an occupant on this
+     * lattice.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the continuous-space position of the specified occupant
+     * ({@code null} if this lattice does not contain the occupant).
+     */
+    public Point locate(T occupant) {
+        UnitIndex index = indexOf(occupant);
+
+        if (index != null)
+            return unitCell.pointAt(index);
+        else
+            return null;
+    }
+
+    /**
+     * Returns the nearest neighbors of an occupant on this lattice.
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the nearest neighbors of the specified occupant (empty
+     * if this lattice does not contain the occupant).
+     */
+    public List<T> neighborsOf(T occupant) {
+        UnitIndex index = indexOf(occupant);
+
+        if (index == null)
+            return List.of();
+
+        List<T> neighbors = new ArrayList<>(transVecs.length);
+
+        Chunk chunk  = chunkMap.get(chunkKey(index));
+        int   offset = localOffset(index);
+
+        for (int k = 0; k < transVecs.length; ++k) {
+            T neighbor;
+
+            if (isLocal(index, k))
+                neighbor = occupantAt(chunk, offset + transOffsets[k]);
+            else
+                neighbor = occupantAt(index.plus(UnitIndex.at(transVecs[k])));
+
+            if (neighbor != null)
+                neighbors.add(neighbor);
+        }
+
+        return neighbors;
+    }
+
+    private boolean isLocal(UnitIndex index, int k) {
+        for (int dim = 0; dim < dimensionality; ++dim) {
+            int local = (index.coord(dim) & chunkMask) + transVecs[k][dim];
+
+            if (local < 0 || local > chunkMask)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the occupant of the unit cell containing a given point.
+     *
+     * @param point a continuous-space coordinate to examine.
+     *
+     * @return the occupant of the unit cell containing the specified
+     * point ({@code null} if the cell is unoccupied).
+     */
+    public T occupantAt(Point point) {
+        return occupantAt(unitCell.indexOf(point));
+    }
+
+    /**
+     * Returns the occupant of a unit cell.
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the occupant of the specified unit cell ({@code null}
+     * if the cell is unoccupied).
+     */
+    public T occupantAt(UnitIndex index) {
+        return occupantAt(chunkMap.get(chunkKey(index)), localOffset(index));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T occupantAt(Chunk chunk, int offset) {
+        if (chunk != null)
+            return (T) chunk.occupants[offset];
+        else
+            return null;
+    }
+
+    /**
+     * Places an occupant on this lattice in the unit cell containing
+     * a given point.
+     *
+     * @param occupant the occupant to place on this lattice.
+     *
+     * @param point the continuous-space coordinate of the desired
+     * location.
+     *
+     * @return the previous occupant of the unit cell ({@code null} if
+     * the cell was unoccupied).
+     */
+    public T place(T occupant, Point point) {
+        return place(occupant, unitCell.indexOf(point));
+    }
+
+    /**
+     * Places an occupant on this lattice in a given unit cell.  An
+     * occupant already on the lattice is moved to the new location.
+     *
+     * @param occupant the occupant to place on this lattice.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the previous occupant of the unit cell ({@code null} if
+     * the cell was unoccupied).
+     */
+    public T place(T occupant, UnitIndex index) {
+        if (index.dimensionality() != dimensionality)
+            throw new IllegalArgumentException("Inconsistent index dimensionality.");
+
+        long key = chunkKey(index);
+        UnitIndex prevIndex = indexMap.put(occupant, index);
+
+        if (prevIndex != null) {
+            if (prevIndex.equals(index))
+                return occupant;
+
+            vacate(prevIndex);
+        }
+
+        Chunk chunk = chunkMap.get(key);
+
+        if (chunk == null) {
+            chunk = new Chunk();
+            chunkMap.put(key, chunk);
+        }
+
+        int offset = localOffset(index);
+        T prevOcc = occupantAt(chunk, offset);
+
+        if (prevOcc == null)
+            ++chunk.count;
+        else
+            indexMap.remove(prevOcc);
+
+        chunk.occupants[offset] = occupant;
+        return prevOcc;
+    }
+
+    /**
+     * Removes an occupant from this lattice (has no effect if the
+     * occupant is not present).
+     *
+     * @param occupant the occupant to remove.
+     */
+    public void remove(T occupant) {
+        UnitIndex index = indexMap.remove(occupant);
+
+        if (index != null)
+            vacate(index);
+    }
+
+    /**
+     * Identifies unoccupied neighbors to a given lattice site.
+     *
+     * @param index the index of a lattice site.
+     *
+     * @return a list containing the indexes of all unoccupied nearest
+     * neighbors to the specified site.
+     */
+    public List<UnitIndex> unoccupiedNeighbors(UnitIndex index) {
+        List<UnitIndex> neighbors = unitCell.getNeighbors(index);
+        List<UnitIndex> unoccupied = new ArrayList<>(neighbors.size());
+
+        for (UnitIndex neighbor : neighbors)
+            if (!isOccupied(neighbor))
+                unoccupied.add(neighbor);
+
+        return unoccupied;
+    }
+
+    private void vacate(UnitIndex index) {
+        long key = chunkKey(index);
+        Chunk chunk = chunkMap.get(key);
+
+        chunk.occupants[localOffset(index)] = null;
+
+        if (--chunk.count == 0)
+            chunkMap.remove(key);
+    }
+}
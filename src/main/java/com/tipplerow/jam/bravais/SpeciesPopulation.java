@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import com.tipplerow.jam.math.Point;
+
+import lombok.Getter;
+
+/**
+ * Tracks a population of occupants belonging to a fixed number of
+ * species on a Bravais lattice.
+ *
+ * <p>Each occupant is assigned a species ordinal when it is placed on
+ * the lattice.  The species of every site is stored in a byte array
+ * indexed by site ordinal, and the occupied sites of each species are
+ * indexed separately, so species counts, random selection within a
+ * species, and species-specific neighbor queries take constant time
+ * and never examine the occupant objects.
+ *
+ * @param <T> the run-time type of the lattice occupants.
+ *
+ * @author Scott Shaffer
+ */
+public final class SpeciesPopulation<T> {
+    /**
+     * The underlying Bravais lattice.
+     */
+    @Getter
+    private final Lattice lattice;
+
+    // Mapping from occupants to their ABSOLUTE unit cell indexes...
+    private final Map<T, UnitIndex> indexMap = new HashMap<>();
+
+    // Occupants and their species indexed by site ordinal...
+    private final Object[] occupants;
+    private final byte[] speciesSites;
+
+    // The occupied sites for each species...
+    private final IntSampleSet[] speciesSets;
+
+    // Registered listeners, replaced (not modified) on registration...
+    private SiteListener[] listeners = NO_LISTENERS;
+
+    private static final SiteListener[] NO_LISTENERS = new SiteListener[0];
+
+    /**
+     * The maximum number of species in a population.
+     */
+    public static final int MAX_SPECIES = Byte.MAX_VALUE;
+
+    /**
+     * The species ordinal reported for vacant sites.
+     */
+    public static final int VACANT = -1;
+
+    private SpeciesPopulation(Lattice lattice, int speciesCount) {
+        if (speciesCount < 1 || speciesCount > MAX_SPECIES)
+            throw new IllegalArgumentException("Invalid species count.");
+
+        this.lattice = lattice;
+
+        int capacity = lattice.siteCapacity();
+
+        this.occupants = new Object[capacity];
+        this.speciesSites = new byte[capacity];
+        this.speciesSets = new IntSampleSet[speciesCount];
+
+        for (int species = 0; species < speciesCount; ++species)
+            speciesSets[species] = new IntSampleSet(capacity);
+
+        Arrays.fill(speciesSites, (byte) VACANT);
+    }
+
+    /**
+     * Creates a new empty population.
+     *
+     * @param <T> the run-time type of the lattice occupants.
+     *
+     * @param lattice the Bravais lattice to contain the occupants.
+     *
+     * @param speciesCount the number of distinct species.
+     *
+     * @return a new empty population.
+     *
+     * @throws IllegalArgumentException unless the species count lies
+     * between one and {@code MAX_SPECIES} (inclusive).
+     */
+    public static <T> SpeciesPopulation<T> empty(Lattice lattice, int speciesCount) {
+        return new SpeciesPopulation<>(lattice, speciesCount);
+    }
+
+    /**
+     * Registers a listener to be notified whenever a site of this
+     * population is occupied or vacated.  Moving an occupant is
+     * reported as a vacancy followed by an occupation.
+     *
+     * @param listener the listener to register.
+     */
+    public void addListener(SiteListener listener) {
+        SiteListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+
+    /**
+     * Identifies occupants on this lattice.
+     *
+     * @param occupant an occupant to examine.
+     *
+     * @return {@code true} iff this lattice contains the specified
+     * occupant.
+     */
+    public boolean contains(T occupant) {
+        return indexMap.containsKey(occupant);
+    }
+
+    /**
+     * Counts the nearest neighbors of a given species.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param species the species of interest.
+     *
+     * @return the number of nearest neighbors to the specified site
+     * that are occupied by the specified species.
+     */
+    public int countNeighbors(int site, int species) {
+        int count = 0;
+
+        for (int k = 0; k < lattice.countNeighbors(); ++k)
+            if (speciesSites[lattice.neighborSite(site, k)] == species)
+                ++count;
+
+        return count;
+    }
+
+    /**
+     * Counts the nearest neighbors of a given species.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @param species the species of interest.
+     *
+     * @return the number of nearest neighbors to the specified unit
+     * cell that are occupied by the specified species.
+     */
+    public int countNeighbors(UnitIndex index, int species) {
+        return countNeighbors(lattice.siteOf(index), species);
+    }
+
+    /**
+     * Returns the number of occupants on this lattice.
+     *
+     * @return the number of occupants on this lattice.
+     */
+    public int countOccupants() {
+        return indexMap.size();
+    }
+
+    /**
+     * Returns the number of occupants of a given species.
+     *
+     * @param species the species of interest.
+     *
+     * @return the number of occupants of the specified species.
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public int countOccupants(int species) {
+        validateSpecies(species);
+        return speciesSets[species].size();
+    }
+
+    /**
+     * Returns the number of species tracked by this population.
+     *
+     * @return the number of species tracked by this population.
+     */
+    public int countSpecies() {
+        return speciesSets.length;
+    }
+
+    /**
+     * Applies an action to each nearest neighbor of a given species.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @param species the species of interest.
+     *
+     * @param action the action to apply to each neighbor occupant of
+     * the specified species.
+     */
+    public void forEachNeighbor(int site, int species, Consumer<? super T> action) {
+        for (int k = 0; k < lattice.countNeighbors(); ++k) {
+            int neighbor = lattice.neighborSite(site, k);
+
+            if (speciesSites[neighbor] == species)
+                action.accept(occupantAt(neighbor));
+        }
+    }
+
+    /**
+     * Applies an action to each nearest neighbor of a given species.
+     *
+     * @param index the discrete index of a unit cell.
+     *
+     * @param species the species of interest.
+     *
+     * @param action the action to apply to each neighbor occupant of
+     * the specified species.
+     */
+    public void forEachNeighbor(UnitIndex index, int species, Consumer<? super T> action) {
+        forEachNeighbor(lattice.siteOf(index), species, action);
+    }
+
+    /**
+     * Returns the discrete-space index of the unit cell occupied by
+     * an occupant on this lattice (in absolute coordinates, not as
+     * a periodic image).
+     *
+     * @param occupant the occupant to locate.
+     *
+     * @return the discrete-space index of the specified occupant
+     * ({@code null} if this lattice does not contain the occupant).
+     */
+    public UnitIndex indexOf(T occupant) {
+        return indexMap.get(occupant);
+    }
+
+    /**
+     * Identifies empty lattices.
+     *
+     * @return {@code true} iff this lattice contains no occupants.
+     */
+    public boolean isEmpty() {
+        return indexMap.isEmpty();
+    }
+
+    /**
+     * Identifies occupied unit cells.
+     *
+     * @param index the discrete index of the unit cell to examine
+     * (given as an absolute index, not necessarily a periodic image).
+     *
+     * @return {@code true} iff the unit cell with the specified
+     * discrete index is occupied.
+     */
+    public boolean isOccupied(UnitIndex index) {
+        return speciesSites[lattice.siteOf(index)] != VACANT;
+    }
+
+    /**
+     * Returns the occupant of a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the occupant of the specified site ({@code null} if the
+     * site is vacant).
+     */
+    @SuppressWarnings("unchecked")
+    public T occupantAt(int site) {
+        return (T) occupants[site];
+    }
+
+    /**
+     * Returns the occupant of a unit cell (applying periodic boundary
+     * conditions if necessary).
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the occupant of the specified unit cell ({@code null}
+     * if the cell is unoccupied).
+     */
+    public T occupantAt(UnitIndex index) {
+        return occupantAt(lattice.siteOf(index));
+    }
+
+    /**
+     * Places an occupant on this lattice in the unit cell containing
+     * a given point.
+     *
+     * @param occupant the occupant to place on this lattice.
+     *
+     * @param species the species of the occupant.
+     *
+     * @param point the continuous-space coordinate of the desired
+     * location.
+     *
+     * @return the previous occupant of the unit cell ({@code null} if
+     * the cell was unoccupied).
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public T place(T occupant, int species, Point point) {
+        return place(occupant, species, lattice.getUnitCell().indexOf(point));
+    }
+
+    /**
+     * Places an occupant on this lattice in a given unit cell.  An
+     * occupant already on the lattice is moved to the new location
+     * (and assigned the new species).
+     *
+     * @param occupant the occupant to place on this lattice.
+     *
+     * @param species the species of the occupant.
+     *
+     * @param index the discrete index of the destination unit cell.
+     *
+     * @return the previous occupant of the unit cell ({@code null} if
+     * the cell was unoccupied).
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public T place(T occupant, int species, UnitIndex index) {
+        validateSpecies(species);
+
+        int site = lattice.siteOf(index);
+        T prevOcc = occupantAt(site);
+        UnitIndex prevIndex = indexMap.put(occupant, index);
+
+        if (prevIndex != null)
+            vacate(lattice.siteOf(prevIndex));
+
+        if (prevOcc != null && !prevOcc.equals(occupant)) {
+            indexMap.remove(prevOcc);
+            vacate(site);
+        }
+
+        occupy(site, occupant, species);
+        assert indexMap.size() == countSpeciesOccupants();
+
+        return prevOcc;
+    }
+
+    private int countSpeciesOccupants() {
+        int count = 0;
+
+        for (IntSampleSet speciesSet : speciesSets)
+            count += speciesSet.size();
+
+        return count;
+    }
+
+    /**
+     * Removes an occupant from this lattice (has no effect if the
+     * occupant is not present).
+     *
+     * @param occupant the occupant to remove.
+     */
+    public void remove(T occupant) {
+        UnitIndex index = indexMap.remove(occupant);
+
+        if (index != null)
+            vacate(lattice.siteOf(index));
+    }
+
+    /**
+     * Unregisters a listener (has no effect if the listener is not
+     * registered).
+     *
+     * @param listener the listener to unregister.
+     */
+    public void removeListener(SiteListener listener) {
+        for (int k = 0; k < listeners.length; ++k) {
+            if (listeners[k] == listener) {
+                SiteListener[] removed = new SiteListener[listeners.length - 1];
+
+                System.arraycopy(listeners, 0, removed, 0, k);
+                System.arraycopy(listeners, k + 1, removed, k, removed.length - k);
+
+                listeners = removed;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Selects one occupant of a given species at random (with equal
+     * probability).
+     *
+     * @param species the species of interest.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return an occupant of the specified species selected at random
+     * ({@code null} if there are no occupants of that species).
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public T selectOccupant(int species, Random random) {
+        validateSpecies(species);
+
+        int site = speciesSets[species].select(random);
+
+        if (site < 0)
+            return null;
+        else
+            return occupantAt(site);
+    }
+
+    /**
+     * Returns the species occupying a lattice site.
+     *
+     * @param site the ordinal of a primary lattice site.
+     *
+     * @return the species occupying the specified site ({@code VACANT}
+     * if the site is vacant).
+     */
+    public int speciesAt(int site) {
+        return speciesSites[site];
+    }
+
+    /**
+     * Returns the species occupying a unit cell (applying periodic
+     * boundary conditions if necessary).
+     *
+     * @param index the discrete index of the unit cell to examine.
+     *
+     * @return the species occupying the specified unit cell
+     * ({@code VACANT} if the cell is vacant).
+     */
+    public int speciesAt(UnitIndex index) {
+        return speciesAt(lattice.siteOf(index));
+    }
+
+    /**
+     * Returns the species of an occupant on this lattice.
+     *
+     * @param occupant the occupant of interest.
+     *
+     * @return the species of the specified occupant ({@code VACANT}
+     * if this lattice does not contain the occupant).
+     */
+    public int speciesOf(T occupant) {
+        UnitIndex index = indexOf(occupant);
+
+        if (index != null)
+            return speciesAt(index);
+        else
+            return VACANT;
+    }
+
+    /**
+     * Ensures that a species ordinal is valid for this population.
+     *
+     * @param species the species ordinal to validate.
+     *
+     * @throws IllegalArgumentException unless the species ordinal is
+     * valid.
+     */
+    public void validateSpecies(int species) {
+        if (species < 0 || species >= speciesSets.length)
+            throw new IllegalArgumentException("Invalid species ordinal.");
+    }
+
+    private void occupy(int site, T occupant, int species) {
+        occupants[site] = occupant;
+        speciesSites[site] = (byte) species;
+        speciesSets[species].add(site);
+
+        for (SiteListener listener : listeners)
+            listener.siteOccupied(site, species);
+    }
+
+    private void vacate(int site) {
+        int species = speciesSites[site];
+
+        if (species != VACANT) {
+            speciesSets[species].remove(site);
+            speciesSites[site] = (byte) VACANT;
+            occupants[site] = null;
+
+            for (SiteListener listener : listeners)
+                listener.siteVacated(site, species);
+        }
+    }
+}
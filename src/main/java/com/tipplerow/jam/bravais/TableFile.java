@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Manages the chunked buffer storage of neighbor and coordinate
+ * tables and their persistent, memory-mappable files.
+ *
+ * <p>A table file contains a header page followed by the raw table
+ * data in native byte order.  The header records the format version,
+ * byte order, table kind, unit cell type and parameters, periodic
+ * dimensions, site ordering, and table geometry; a file is used only
+ * if its header matches the requested table exactly.  The file name
+ * ends with the SHA-256 digest of the header, so tables for different
+ * unit cell parameters do not share (and overwrite) the same file.
+ *
+ * @author Scott Shaffer
+ */
+final class TableFile {
+    /**
+     * The base-2 logarithm of the number of sites per storage chunk,
+     * chosen so that every chunk fits in one buffer and one mapping.
+     */
+    static final int CHUNK_SHIFT = 24;
+
+    /**
+     * The bit mask that extracts the site offset within a chunk.
+     */
+    static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    private static final long MAGIC = 0x4A414D5441424C45L;
+    private static final int HEADER_SIZE = 4096;
+
+    private final Path path;
+    private final byte[] header;
+    private final int bytesPerSite;
+    private final int siteCapacity;
+
+    /**
+     * Describes a table file.
+     *
+     * @param directory the directory containing the file.
+     *
+     * @param kind the kind of table (which also serves as the file
+     * name extension).
+     *
+     * @param lattice the tabulated lattice.
+     *
+     * @param params the unit cell parameters that determine the table
+     * contents.
+     *
+     * @param width the number of table entries per site.
+     *
+     * @param entryBytes the number of bytes per table entry.
+     */
+    TableFile(Path directory, String kind, Lattice lattice, double[] params, int width, int entryBytes) {
+        Period period = lattice.getPeriod();
+        String cellType = lattice.getUnitCell().getClass().getName();
+
+        int[] dims = new int[period.dimensionality()];
+
+        for (int dim = 0; dim < dims.length; ++dim)
+            dims[dim] = period.period(dim);
+
+        this.bytesPerSite = width * entryBytes;
+        this.siteCapacity = lattice.siteCapacity();
+        this.header = encodeHeader(kind, cellType, params, dims, period.ordering(), width, entryBytes);
+        this.path = directory.resolve(fileName(kind, lattice.getUnitCell(), dims, period.ordering(), header));
+    }
+
+    /**
+     * Allocates zeroed heap buffers for a table.
+     *
+     * @param siteCapacity the number of site ordinals in the table.
+     *
+     * @param bytesPerSite the number of bytes per site.
+     *
+     * @return the table buffers, in native byte order.
+     */
+    static ByteBuffer[] allocate(int siteCapacity, int bytesPerSite) {
+        ByteBuffer[] chunks = new ByteBuffer[countChunks(siteCapacity)];
+
+        for (int chunk = 0; chunk < chunks.length; ++chunk)
+            chunks[chunk] = ByteBuffer.allocate(chunkSites(siteCapacity, chunk) * bytesPerSite).order(ByteOrder.nativeOrder());
+
+        return chunks;
+    }
+
+    /**
+     * Returns the number of storage chunks required for a table.
+     *
+     * @param siteCapacity the number of site ordinals in the table.
+     *
+     * @return the number of storage chunks required for the table.
+     */
+    static int countChunks(int siteCapacity) {
+        return (int) ((siteCapacity + (long) CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * Returns the file path.
+     *
+     * @return the file path.
+     */
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Maps the table data from this file, if the file exists and its
+     * header matches the requested table.
+     *
+     * @return the read-only table buffers, in native byte order, or
+     * {@code null} if the file is missing, truncated, or describes a
+     * different table.
+     *
+     * @throws IOException if the file cannot be read or mapped.
+     */
+    ByteBuffer[] map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + (long) siteCapacity * bytesPerSite)
+                return null;
+
+            ByteBuffer found = ByteBuffer.allocate(header.length);
+
+            while (found.hasRemaining())
+                if (channel.read(found, found.position()) < 0)
+                    return null;
+
+            if (!Arrays.equals(found.array(), header))
+                return null;
+
+            ByteBuffer[] chunks = new ByteBuffer[countChunks(siteCapacity)];
+            long offset = HEADER_SIZE;
+
+            for (int chunk = 0; chunk < chunks.length; ++chunk) {
+                long size = (long) chunkSites(siteCapacity, chunk) * bytesPerSite;
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.nativeOrder());
+                offset += size;
+            }
+
+            return chunks;
+        }
+        catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes table data to this file.  The data are written to a
+     * temporary file that then replaces the target atomically, so
+     * concurrent readers never observe a partial file.
+     *
+     * @param chunks the table buffers.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    void write(ByteBuffer[] chunks) throws IOException {
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeFully(channel, ByteBuffer.wrap(Arrays.copyOf(header, HEADER_SIZE)));
+
+                for (ByteBuffer chunk : chunks)
+                    writeFully(channel, chunk.duplicate().clear());
+            }
+
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int chunkSites(int siteCapacity, int chunk) {
+        return Math.min(CHUNK_MASK + 1, siteCapacity - (chunk << CHUNK_SHIFT));
+    }
+
+    private static byte[] encodeHeader(String kind, String cellType, double[] params,
+                                       int[] dims, SiteOrdering ordering, int width, int entryBytes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream stream = new DataOutputStream(bytes);
+
+            stream.writeLong(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN);
+            stream.writeUTF(kind);
+            stream.writeUTF(cellType);
+            stream.writeInt(params.length);
+
+            for (double param : params)
+                stream.writeDouble(param);
+
+            stream.writeInt(dims.length);
+
+            for (int dim : dims)
+                stream.writeInt(dim);
+
+            stream.writeUTF(ordering.name());
+            stream.writeInt(width);
+            stream.writeInt(entryBytes);
+            stream.flush();
+
+            if (bytes.size() > HEADER_SIZE)
+                throw new IllegalArgumentException("Table file header is too large.");
+
+            return bytes.toByteArray();
+        }
+        catch (IOException ex) {
+            // In-memory streams do not throw...
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String fileName(String kind, UnitCell unitCell, int[] dims, SiteOrdering ordering, byte[] header) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(unitCell.getClass().getSimpleName());
+        builder.append('-');
+
+        for (int dim = 0; dim < dims.length; ++dim) {
+            if (dim > 0)
+                builder.append('x');
+
+            builder.append(dims[dim]);
+        }
+
+        builder.append('-');
+        builder.append(ordering.name());
+        builder.append('-');
+
+        for (byte b : digest(header))
+            builder.append(String.format("%02x", b));
+
+        builder.append('.');
+        builder.append(kind);
+
+        return builder.toString();
+    }
+
+    private static byte[] digest(byte[] header) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(header);
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256...
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+/**
+ * Orders sites in cubic (or square) tiles, so that most nearest
+ * neighbors of a site lie within the same tile and therefore within
+ * a few cache lines of the site.
+ *
+ * <p>The tiles are ordered row-major, and the sites within each tile
+ * are ordered row-major.  Tiles along the upper edges of the box are
+ * truncated when a box length is not a multiple of the tile length,
+ * so the ordinals remain dense: the sites in all tiles that precede a
+ * tile with origin {@code (x0, y0, z0)} number exactly
+ * {@code z0 * nx * ny + y0 * nx * dz + x0 * dy * dz}, where
+ * {@code dy} and {@code dz} are the (possibly truncated) tile lengths
+ * along {@code y} and {@code z}.
+ *
+ * @author Scott Shaffer
+ */
+final class TiledLayout extends SiteLayout {
+    private final int tileLength;
+    private final int tileMask;
+
+    // The tile length along the z-direction (one for two-dimensional
+    // boxes)...
+    private final int tileDepth;
+
+    // Whether every box length is a multiple of the tile length, in
+    // which case every tile is full and occupies an aligned block of
+    // ordinals...
+    private final boolean aligned;
+    private final int tileBits;
+
+    /**
+     * The tile length for three-dimensional boxes.
+     */
+    static final int TILE_LENGTH_3D = 8;
+
+    /**
+     * The tile length for two-dimensional boxes.
+     */
+    static final int TILE_LENGTH_2D = 32;
+
+    TiledLayout(int nx, int ny, int nz, int tileLength) {
+        super(nx, ny, nz);
+
+        if (Integer.bitCount(tileLength) != 1)
+            throw new IllegalArgumentException("Tile length must be a power of two.");
+
+        validatePackable();
+        validateIndexable();
+
+        this.tileLength = tileLength;
+        this.tileMask = tileLength - 1;
+        this.tileDepth = (nz == 1) ? 1 : tileLength;
+        this.tileBits = Integer.numberOfTrailingZeros(tileLength);
+        this.aligned = (nx % tileLength == 0) && (ny % tileLength == 0) && (nz % tileDepth == 0);
+    }
+
+    @Override long decode(int site) {
+        //
+        // The quotient of the site ordinal and the number of sites in
+        // one z-layer lies within the tile containing the site, so
+        // clearing the low bits gives the tile origin; likewise for
+        // the rows within a z-slab and the columns within a row...
+        //
+        int z0 = (site / (nx * ny)) & ~(tileDepth - 1);
+        int dz = Math.min(tileDepth, nz - z0);
+        int r  = site - z0 * nx * ny;
+
+        int y0 = (r / (nx * dz)) & ~tileMask;
+        int dy = Math.min(tileLength, ny - y0);
+        r -= y0 * nx * dz;
+
+        int x0 = (r / (dy * dz)) & ~tileMask;
+        int dx = Math.min(tileLength, nx - x0);
+        r -= x0 * dy * dz;
+
+        return pack(x0 + r % dx, y0 + (r / dx) % dy, z0 + r / (dx * dy));
+    }
+
+    @Override int siteOf(int i, int j, int k) {
+        int x0 = i & ~tileMask;
+        int y0 = j & ~tileMask;
+        int z0 = k & ~(tileDepth - 1);
+
+        int dx = Math.min(tileLength, nx - x0);
+        int dy = Math.min(tileLength, ny - y0);
+        int dz = Math.min(tileDepth,  nz - z0);
+
+        int base  = z0 * nx * ny + y0 * nx * dz + x0 * dy * dz;
+        int local = ((k - z0) * dy + (j - y0)) * dx + (i - x0);
+
+        return base + local;
+    }
+
+    @Override int translate(int site, int di, int dj, int dk) {
+        if (aligned) {
+            //
+            // Translations that remain within the same (full) tile
+            // reduce to adding a fixed ordinal offset...
+            //
+            int li = (site & tileMask) + di;
+            int lj = ((site >>> tileBits) & tileMask) + dj;
+            int lk = ((site >>> (2 * tileBits)) & (tileDepth - 1)) + dk;
+
+            if (((li | lj | lk) & ~tileMask) == 0 && lk < tileDepth)
+                return site + di + (dj << tileBits) + (dk << (2 * tileBits));
+        }
+
+        return super.translate(site, di, dj, dk);
+    }
+}
@@ -161,6 +161,25 @@ public interface UnitCell {
      */
     UnitIndex indexOf(Point point);
 
+    /**
+     * Finds the discrete unit index of the lattice site nearest to a
+     * given continuous-space location (the site whose Wigner-Seitz
+     * cell contains the location).  Method {@code indexOf} rounds
+     * each fractional coordinate independently, which identifies the
+     * nearest site only for orthogonal unit cells.
+     *
+     * @param point the continuous-space point to locate.
+     *
+     * @return the discrete unit index of the lattice site nearest to
+     * the specified continuous-space location.
+     *
+     * @throws IllegalArgumentException unless the dimensionality of
+     * the input point matches the dimensionality of this unit cell.
+     */
+    default UnitIndex nearestIndex(Point point) {
+        return indexOf(point);
+    }
+
     /**
      * Translates a discrete unit index into its corresponding
      * continuous-space location.
@@ -42,6 +42,9 @@ public abstract class UnitCell2D extends AbstractUnitCell {
     private final double inv21;
     private final double inv22;
 
+    // Candidate offsets for exact nearest-site lookups...
+    private final WignerSeitz wignerSeitz;
+
     /**
      * Creates a new two-dimensional unit cell with fixed primitive
      * (basis) vectors.
@@ -72,6 +75,7 @@ public abstract class UnitCell2D extends AbstractUnitCell {
         this.inv22 =  p11 / det;
 
         validatePrimitiveMatrix();
+        this.wignerSeitz = new WignerSeitz(basis);
     }
 
     private void validatePrimitiveMatrix() {
@@ -86,17 +90,256 @@ public abstract class UnitCell2D extends AbstractUnitCell {
         return 2;
     }
 
+    /**
+     * Returns the {@code i}-coordinate of the unit cell containing a
+     * point (without validation or allocation).
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @return the {@code i}-coordinate of the unit cell containing
+     * the point.
+     */
+    public final int indexI(double x, double y) {
+        return (int) Math.floor(inv11 * x + inv12 * y + 0.5);
+    }
+
+    /**
+     * Returns the {@code j}-coordinate of the unit cell containing a
+     * point (without validation or allocation).
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @return the {@code j}-coordinate of the unit cell containing
+     * the point.
+     */
+    public final int indexJ(double x, double y) {
+        return (int) Math.floor(inv21 * x + inv22 * y + 0.5);
+    }
+
+    /**
+     * Computes the unit cells containing a batch of points stored in
+     * structure-of-arrays form (without allocation).  The loop body
+     * is free of calls and branches so that the JIT may vectorize it.
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * unit cells.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * unit cells.
+     *
+     * @param n the number of points to transform.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     */
+    public final void indexOf(double[] x, double[] y, int[] i, int[] j, int n) {
+        validateBatch(n, x.length);
+        validateBatch(n, y.length);
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+
+        // Local copies keep the coefficients in registers; rounding
+        // with Math.floor (as in indexI) vectorizes, Math.round does
+        // not...
+        double a11 = inv11, a12 = inv12;
+        double a21 = inv21, a22 = inv22;
+
+        for (int m = 0; m < n; ++m) {
+            double xn = x[m];
+            double yn = y[m];
+
+            i[m] = (int) Math.floor(a11 * xn + a12 * yn + 0.5);
+            j[m] = (int) Math.floor(a21 * xn + a22 * yn + 0.5);
+        }
+    }
+
+    /**
+     * Computes the lattice sites nearest to a batch of points stored
+     * in structure-of-arrays form (without allocation).
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * nearest sites.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * nearest sites.
+     *
+     * @param n the number of points to locate.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     *
+     * @see UnitCell#nearestIndex(Point)
+     */
+    public final void nearestIndex(double[] x, double[] y, int[] i, int[] j, int n) {
+        nearestIndex(x, y, 0, i, j, n);
+    }
+
+    /**
+     * Computes the lattice sites nearest to a contiguous range of
+     * points stored in structure-of-arrays form (without allocation
+     * or copying).
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param from the index of the first point to locate.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * nearest sites, starting at index zero.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * nearest sites, starting at index zero.
+     *
+     * @param n the number of points to locate.
+     *
+     * @throws IllegalArgumentException unless the coordinate arrays
+     * hold {@code n} elements starting at {@code from} and the index
+     * arrays hold at least {@code n} elements.
+     *
+     * @see UnitCell#nearestIndex(Point)
+     */
+    public final void nearestIndex(double[] x, double[] y, int from, int[] i, int[] j, int n) {
+        validateBatch(from, n, x.length);
+        validateBatch(from, n, y.length);
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+
+        for (int m = 0; m < n; ++m) {
+            double xm = x[from + m];
+            double ym = y[from + m];
+
+            double fi = inv11 * xm + inv12 * ym;
+            double fj = inv21 * xm + inv22 * ym;
+
+            int ri = (int) Math.floor(fi + 0.5);
+            int rj = (int) Math.floor(fj + 0.5);
+
+            int c = wignerSeitz.select(fi - ri, fj - rj);
+
+            if (c != 0) {
+                ri += wignerSeitz.offset(c, 0);
+                rj += wignerSeitz.offset(c, 1);
+            }
+
+            i[m] = ri;
+            j[m] = rj;
+        }
+    }
+
+    /**
+     * Returns the {@code x}-coordinate of the origin of a unit cell
+     * (without validation or allocation).
+     *
+     * @param i the {@code i}-coordinate of the unit cell.
+     *
+     * @param j the {@code j}-coordinate of the unit cell.
+     *
+     * @return the {@code x}-coordinate of the unit cell origin.
+     */
+    public final double pointX(int i, int j) {
+        return p11 * i + p12 * j;
+    }
+
+    /**
+     * Returns the {@code y}-coordinate of the origin of a unit cell
+     * (without validation or allocation).
+     *
+     * @param i the {@code i}-coordinate of the unit cell.
+     *
+     * @param j the {@code j}-coordinate of the unit cell.
+     *
+     * @return the {@code y}-coordinate of the unit cell origin.
+     */
+    public final double pointY(int i, int j) {
+        return p21 * i + p22 * j;
+    }
+
+    /**
+     * Computes the origins of a batch of unit cells stored in
+     * structure-of-arrays form (without allocation).  The loop body
+     * is free of calls and branches so that the JIT may vectorize it.
+     *
+     * @param i the {@code i}-coordinates of the unit cells.
+     *
+     * @param j the {@code j}-coordinates of the unit cells.
+     *
+     * @param x an array to receive the {@code x}-coordinates of the
+     * unit cell origins.
+     *
+     * @param y an array to receive the {@code y}-coordinates of the
+     * unit cell origins.
+     *
+     * @param n the number of unit cells to transform.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     */
+    public final void pointAt(int[] i, int[] j, double[] x, double[] y, int n) {
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+        validateBatch(n, x.length);
+        validateBatch(n, y.length);
+
+        double b11 = p11, b12 = p12;
+        double b21 = p21, b22 = p22;
+
+        for (int m = 0; m < n; ++m) {
+            double in = i[m];
+            double jn = j[m];
+
+            x[m] = b11 * in + b12 * jn;
+            y[m] = b21 * in + b22 * jn;
+        }
+    }
+
     @Override public UnitIndex indexOf(Point point) {
         validateDimensionality(point);
 
-        return UnitIndex.at((int) Math.round(inv11 * point.coord(0) + inv12 * point.coord(1)),
-                            (int) Math.round(inv21 * point.coord(0) + inv22 * point.coord(1)));
+        double x = point.coord(0);
+        double y = point.coord(1);
+
+        return UnitIndex.at(indexI(x, y), indexJ(x, y));
+    }
+
+    @Override public UnitIndex nearestIndex(Point point) {
+        validateDimensionality(point);
+
+        double x = point.coord(0);
+        double y = point.coord(1);
+
+        double fi = inv11 * x + inv12 * y;
+        double fj = inv21 * x + inv22 * y;
+
+        int ri = (int) Math.floor(fi + 0.5);
+        int rj = (int) Math.floor(fj + 0.5);
+
+        int c = wignerSeitz.select(fi - ri, fj - rj);
+
+        if (c == 0)
+            return UnitIndex.at(ri, rj);
+        else
+            return UnitIndex.at(ri + wignerSeitz.offset(c, 0), rj + wignerSeitz.offset(c, 1));
     }
 
     @Override public Point pointAt(UnitIndex index) {
         validateDimensionality(index);
 
-        return Point.at(p11 * index.coord(0) + p12 * index.coord(1),
-                        p21 * index.coord(0) + p22 * index.coord(1));
+        int i = index.coord(0);
+        int j = index.coord(1);
+
+        return Point.at(pointX(i, j), pointY(i, j));
     }
 }
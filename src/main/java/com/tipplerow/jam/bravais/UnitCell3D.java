@@ -51,6 +51,9 @@ public abstract class UnitCell3D extends AbstractUnitCell {
     private final double inv32;
     private final double inv33;
 
+    // Candidate offsets for exact nearest-site lookups...
+    private final WignerSeitz wignerSeitz;
+
     /**
      * Creates a new three-dimensional unit cell with fixed primitive
      * (basis) vectors.
@@ -87,25 +90,349 @@ public abstract class UnitCell3D extends AbstractUnitCell {
         this.inv31 = basisInv.get(2, 0);
         this.inv32 = basisInv.get(2, 1);
         this.inv33 = basisInv.get(2, 2);
+
+        this.wignerSeitz = new WignerSeitz(basis);
     }
 
     @Override public int dimensionality() {
         return 3;
     }
 
+    /**
+     * Returns the {@code i}-coordinate of the unit cell containing a
+     * point (without validation or allocation).
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @param z the {@code z}-coordinate of the point.
+     *
+     * @return the {@code i}-coordinate of the unit cell containing
+     * the point.
+     */
+    public final int indexI(double x, double y, double z) {
+        return (int) Math.floor(inv11 * x + inv12 * y + inv13 * z + 0.5);
+    }
+
+    /**
+     * Returns the {@code j}-coordinate of the unit cell containing a
+     * point (without validation or allocation).
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @param z the {@code z}-coordinate of the point.
+     *
+     * @return the {@code j}-coordinate of the unit cell containing
+     * the point.
+     */
+    public final int indexJ(double x, double y, double z) {
+        return (int) Math.floor(inv21 * x + inv22 * y + inv23 * z + 0.5);
+    }
+
+    /**
+     * Returns the {@code k}-coordinate of the unit cell containing a
+     * point (without validation or allocation).
+     *
+     * @param x the {@code x}-coordinate of the point.
+     *
+     * @param y the {@code y}-coordinate of the point.
+     *
+     * @param z the {@code z}-coordinate of the point.
+     *
+     * @return the {@code k}-coordinate of the unit cell containing
+     * the point.
+     */
+    public final int indexK(double x, double y, double z) {
+        return (int) Math.floor(inv31 * x + inv32 * y + inv33 * z + 0.5);
+    }
+
+    /**
+     * Computes the unit cells containing a batch of points stored in
+     * structure-of-arrays form (without allocation).  The loop body
+     * is free of calls and branches so that the JIT may vectorize it.
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param z the {@code z}-coordinates of the points.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * unit cells.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * unit cells.
+     *
+     * @param k an array to receive the {@code k}-coordinates of the
+     * unit cells.
+     *
+     * @param n the number of points to transform.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     */
+    public final void indexOf(double[] x, double[] y, double[] z, int[] i, int[] j, int[] k, int n) {
+        validateBatch(n, x.length);
+        validateBatch(n, y.length);
+        validateBatch(n, z.length);
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+        validateBatch(n, k.length);
+
+        // Local copies keep the coefficients in registers; rounding
+        // with Math.floor (as in indexI) vectorizes, Math.round does
+        // not...
+        double a11 = inv11, a12 = inv12, a13 = inv13;
+        double a21 = inv21, a22 = inv22, a23 = inv23;
+        double a31 = inv31, a32 = inv32, a33 = inv33;
+
+        for (int m = 0; m < n; ++m) {
+            double xn = x[m];
+            double yn = y[m];
+            double zn = z[m];
+
+            i[m] = (int) Math.floor(a11 * xn + a12 * yn + a13 * zn + 0.5);
+            j[m] = (int) Math.floor(a21 * xn + a22 * yn + a23 * zn + 0.5);
+            k[m] = (int) Math.floor(a31 * xn + a32 * yn + a33 * zn + 0.5);
+        }
+    }
+
+    /**
+     * Computes the lattice sites nearest to a batch of points stored
+     * in structure-of-arrays form (without allocation).
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param z the {@code z}-coordinates of the points.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * nearest sites.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * nearest sites.
+     *
+     * @param k an array to receive the {@code k}-coordinates of the
+     * nearest sites.
+     *
+     * @param n the number of points to locate.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     *
+     * @see UnitCell#nearestIndex(Point)
+     */
+    public final void nearestIndex(double[] x, double[] y, double[] z, int[] i, int[] j, int[] k, int n) {
+        nearestIndex(x, y, z, 0, i, j, k, n);
+    }
+
+    /**
+     * Computes the lattice sites nearest to a contiguous range of
+     * points stored in structure-of-arrays form (without allocation
+     * or copying).
+     *
+     * @param x the {@code x}-coordinates of the points.
+     *
+     * @param y the {@code y}-coordinates of the points.
+     *
+     * @param z the {@code z}-coordinates of the points.
+     *
+     * @param from the index of the first point to locate.
+     *
+     * @param i an array to receive the {@code i}-coordinates of the
+     * nearest sites, starting at index zero.
+     *
+     * @param j an array to receive the {@code j}-coordinates of the
+     * nearest sites, starting at index zero.
+     *
+     * @param k an array to receive the {@code k}-coordinates of the
+     * nearest sites, starting at index zero.
+     *
+     * @param n the number of points to locate.
+     *
+     * @throws IllegalArgumentException unless the coordinate arrays
+     * hold {@code n} elements starting at {@code from} and the index
+     * arrays hold at least {@code n} elements.
+     *
+     * @see UnitCell#nearestIndex(Point)
+     */
+    public final void nearestIndex(double[] x, double[] y, double[] z, int from, int[] i, int[] j, int[] k, int n) {
+        validateBatch(from, n, x.length);
+        validateBatch(from, n, y.length);
+        validateBatch(from, n, z.length);
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+        validateBatch(n, k.length);
+
+        for (int m = 0; m < n; ++m) {
+            double xm = x[from + m];
+            double ym = y[from + m];
+            double zm = z[from + m];
+
+            double fi = inv11 * xm + inv12 * ym + inv13 * zm;
+            double fj = inv21 * xm + inv22 * ym + inv23 * zm;
+            double fk = inv31 * xm + inv32 * ym + inv33 * zm;
+
+            int ri = (int) Math.floor(fi + 0.5);
+            int rj = (int) Math.floor(fj + 0.5);
+            int rk = (int) Math.floor(fk + 0.5);
+
+            int c = wignerSeitz.select(fi - ri, fj - rj, fk - rk);
+
+            if (c != 0) {
+                ri += wignerSeitz.offset(c, 0);
+                rj += wignerSeitz.offset(c, 1);
+                rk += wignerSeitz.offset(c, 2);
+            }
+
+            i[m] = ri;
+            j[m] = rj;
+            k[m] = rk;
+        }
+    }
+
+    /**
+     * Returns the {@code x}-coordinate of the origin of a unit cell
+     * (without validation or allocation).
+     *
+     * @param i the {@code i}-coordinate of the unit cell.
+     *
+     * @param j the {@code j}-coordinate of the unit cell.
+     *
+     * @param k the {@code k}-coordinate of the unit cell.
+     *
+     * @return the {@code x}-coordinate of the unit cell origin.
+     */
+    public final double pointX(int i, int j, int k) {
+        return p11 * i + p12 * j + p13 * k;
+    }
+
+    /**
+     * Returns the {@code y}-coordinate of the origin of a unit cell
+     * (without validation or allocation).
+     *
+     * @param i the {@code i}-coordinate of the unit cell.
+     *
+     * @param j the {@code j}-coordinate of the unit cell.
+     *
+     * @param k the {@code k}-coordinate of the unit cell.
+     *
+     * @return the {@code y}-coordinate of the unit cell origin.
+     */
+    public final double pointY(int i, int j, int k) {
+        return p21 * i + p22 * j + p23 * k;
+    }
+
+    /**
+     * Returns the {@code z}-coordinate of the origin of a unit cell
+     * (without validation or allocation).
+     *
+     * @param i the {@code i}-coordinate of the unit cell.
+     *
+     * @param j the {@code j}-coordinate of the unit cell.
+     *
+     * @param k the {@code k}-coordinate of the unit cell.
+     *
+     * @return the {@code z}-coordinate of the unit cell origin.
+     */
+    public final double pointZ(int i, int j, int k) {
+        return p31 * i + p32 * j + p33 * k;
+    }
+
+    /**
+     * Computes the origins of a batch of unit cells stored in
+     * structure-of-arrays form (without allocation).  The loop body
+     * is free of calls and branches so that the JIT may vectorize it.
+     *
+     * @param i the {@code i}-coordinates of the unit cells.
+     *
+     * @param j the {@code j}-coordinates of the unit cells.
+     *
+     * @param k the {@code k}-coordinates of the unit cells.
+     *
+     * @param x an array to receive the {@code x}-coordinates of the
+     * unit cell origins.
+     *
+     * @param y an array to receive the {@code y}-coordinates of the
+     * unit cell origins.
+     *
+     * @param z an array to receive the {@code z}-coordinates of the
+     * unit cell origins.
+     *
+     * @param n the number of unit cells to transform.
+     *
+     * @throws IllegalArgumentException unless every array holds at
+     * least {@code n} elements.
+     */
+    public final void pointAt(int[] i, int[] j, int[] k, double[] x, double[] y, double[] z, int n) {
+        validateBatch(n, i.length);
+        validateBatch(n, j.length);
+        validateBatch(n, k.length);
+        validateBatch(n, x.length);
+        validateBatch(n, y.length);
+        validateBatch(n, z.length);
+
+        double b11 = p11, b12 = p12, b13 = p13;
+        double b21 = p21, b22 = p22, b23 = p23;
+        double b31 = p31, b32 = p32, b33 = p33;
+
+        for (int m = 0; m < n; ++m) {
+            double in = i[m];
+            double jn = j[m];
+            double kn = k[m];
+
+            x[m] = b11 * in + b12 * jn + b13 * kn;
+            y[m] = b21 * in + b22 * jn + b23 * kn;
+            z[m] = b31 * in + b32 * jn + b33 * kn;
+        }
+    }
+
     @Override public UnitIndex indexOf(Point point) {
         validateDimensionality(point);
 
-        return UnitIndex.at((int) Math.round(inv11 * point.coord(0) + inv12 * point.coord(1) + inv13 * point.coord(2)),
-                            (int) Math.round(inv21 * point.coord(0) + inv22 * point.coord(1) + inv23 * point.coord(2)),
-                            (int) Math.round(inv31 * point.coord(0) + inv32 * point.coord(1) + inv33 * point.coord(2)));
+        double x = point.coord(0);
+        double y = point.coord(1);
+        double z = point.coord(2);
+
+        return UnitIndex.at(indexI(x, y, z), indexJ(x, y, z), indexK(x, y, z));
+    }
+
+    @Override public UnitIndex nearestIndex(Point point) {
+        validateDimensionality(point);
+
+        double x = point.coord(0);
+        double y = point.coord(1);
+        double z = point.coord(2);
+
+        double fi = inv11 * x + inv12 * y + inv13 * z;
+        double fj = inv21 * x + inv22 * y + inv23 * z;
+        double fk = inv31 * x + inv32 * y + inv33 * z;
+
+        int ri = (int) Math.floor(fi + 0.5);
+        int rj = (int) Math.floor(fj + 0.5);
+        int rk = (int) Math.floor(fk + 0.5);
+
+        int c = wignerSeitz.select(fi - ri, fj - rj, fk - rk);
+
+        if (c == 0)
+            return UnitIndex.at(ri, rj, rk);
+        else
+            return UnitIndex.at(ri + wignerSeitz.offset(c, 0),
+                                rj + wignerSeitz.offset(c, 1),
+                                rk + wignerSeitz.offset(c, 2));
     }
 
     @Override public Point pointAt(UnitIndex index) {
         validateDimensionality(index);
 
-        return Point.at(p11 * index.coord(0) + p12 * index.coord(1) + p13 * index.coord(2),
-                        p21 * index.coord(0) + p22 * index.coord(1) + p23 * index.coord(2),
-                        p31 * index.coord(0) + p32 * index.coord(1) + p33 * index.coord(2));
+        int i = index.coord(0);
+        int j = index.coord(1);
+        int k = index.coord(2);
+
+        return Point.at(pointX(i, j, k), pointY(i, j, k), pointZ(i, j, k));
     }
 }
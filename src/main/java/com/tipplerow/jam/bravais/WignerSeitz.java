@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tipplerow.jam.vector.VectorView;
+
+/**
+ * Corrects independent rounding of fractional coordinates to the
+ * exact nearest lattice site (the site whose Wigner-Seitz cell
+ * contains the point) for non-orthogonal unit cells.
+ *
+ * <p>Rounding each fractional coordinate leaves a residual {@code u}
+ * in the cube {@code [-1/2, 1/2]^D}.  The site at offset {@code d}
+ * from the rounded site is closer than the rounded site itself iff
+ * {@code 2 u'Gd > d'Gd}, where {@code G} is the Gram matrix of the
+ * basis vectors.  Only offsets for which that inequality holds
+ * somewhere in the residual cube are retained as candidates, which
+ * leaves no candidates for orthogonal cells, four for the hexagonal
+ * cell, and twelve for the BCC and FCC cells.
+ *
+ * <p>Candidates come in pairs {@code +d} and {@code -d}, and at most
+ * one member of a pair can be closer than the rounded site, so only
+ * one member of each pair is stored and the sign of {@code u'Gd}
+ * selects the member.
+ *
+ * @author Scott Shaffer
+ */
+final class WignerSeitz {
+    private final int dimensionality;
+
+    // The candidate offsets with a positive leading component, packed
+    // DIMENSIONALITY per candidate...
+    private final int[] offsets;
+
+    // The coefficients 2Gd, packed DIMENSIONALITY per candidate...
+    private final double[] weights;
+
+    // The thresholds d'Gd, one per candidate...
+    private final double[] thresholds;
+
+    // Relative tolerance that excludes offsets which can only tie the
+    // rounded site (on a Wigner-Seitz cell face)...
+    private static final double TOLERANCE = 1.0E-9;
+
+    /**
+     * Computes the candidate offsets for a unit cell.
+     *
+     * @param basis the primitive (basis) vectors of the unit cell.
+     */
+    WignerSeitz(List<VectorView> basis) {
+        this.dimensionality = basis.size();
+
+        double[][] gram = new double[dimensionality][dimensionality];
+
+        for (int a = 0; a < dimensionality; ++a)
+            for (int b = 0; b < dimensionality; ++b)
+                for (int r = 0; r < dimensionality; ++r)
+                    gram[a][b] += basis.get(a).get(r) * basis.get(b).get(r);
+
+        List<int[]> candidates = new ArrayList<>();
+        int combos = (int) Math.pow(3, dimensionality);
+
+        for (int combo = 0; combo < combos; ++combo) {
+            int[] offset = new int[dimensionality];
+
+            for (int dim = 0, rem = combo; dim < dimensionality; ++dim, rem /= 3)
+                offset[dim] = rem % 3 - 1;
+
+            if (isLeadingPositive(offset) && isCandidate(gram, offset))
+                candidates.add(offset);
+        }
+
+        this.offsets = new int[dimensionality * candidates.size()];
+        this.weights = new double[dimensionality * candidates.size()];
+        this.thresholds = new double[candidates.size()];
+
+        for (int c = 0; c < candidates.size(); ++c) {
+            int[] offset = candidates.get(c);
+
+            for (int a = 0; a < dimensionality; ++a) {
+                double gd = 0.0;
+
+                for (int b = 0; b < dimensionality; ++b)
+                    gd += gram[a][b] * offset[b];
+
+                offsets[c * dimensionality + a] = offset[a];
+                weights[c * dimensionality + a] = 2.0 * gd;
+                thresholds[c] += offset[a] * gd;
+            }
+        }
+    }
+
+    private static boolean isLeadingPositive(int[] offset) {
+        for (int component : offset)
+            if (component != 0)
+                return component > 0;
+
+        return false;
+    }
+
+    private static boolean isCandidate(double[][] gram, int[] offset) {
+        double norm = 0.0;
+        double reach = 0.0;
+
+        for (int a = 0; a < offset.length; ++a) {
+            double gd = 0.0;
+
+            for (int b = 0; b < offset.length; ++b)
+                gd += gram[a][b] * offset[b];
+
+            norm += offset[a] * gd;
+            reach += Math.abs(gd);
+        }
+
+        // The maximum of 2u'Gd over the residual cube is the sum of
+        // the absolute components of Gd (and the zero offset has a
+        // zero norm)...
+        return norm > 0.0 && reach > norm * (1.0 + TOLERANCE);
+    }
+
+    /**
+     * Returns the number of candidate offsets (counting both members
+     * of each pair).
+     *
+     * @return the number of candidate offsets.
+     */
+    int countCandidates() {
+        return 2 * thresholds.length;
+    }
+
+    /**
+     * Finds the candidate offset that leads to the nearest site in
+     * two dimensions.
+     *
+     * @param ux the first fractional residual.
+     *
+     * @param uy the second fractional residual.
+     *
+     * @return a code for the nearest candidate: {@code 0} if the
+     * rounded site is the nearest, otherwise {@code c + 1} for the
+     * positive or {@code -(c + 1)} for the negative member of the
+     * candidate pair {@code c}.
+     */
+    int select(double ux, double uy) {
+        int best = 0;
+        double bestGain = 0.0;
+
+        for (int c = 0; c < thresholds.length; ++c) {
+            double dot = weights[2 * c] * ux + weights[2 * c + 1] * uy;
+            double gain = Math.abs(dot) - thresholds[c];
+
+            if (gain > bestGain) {
+                best = (dot > 0.0) ? c + 1 : -(c + 1);
+                bestGain = gain;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Finds the candidate offset that leads to the nearest site in
+     * three dimensions.
+     *
+     * @param ux the first fractional residual.
+     *
+     * @param uy the second fractional residual.
+     *
+     * @param uz the third fractional residual.
+     *
+     * @return a code for the nearest candidate: {@code 0} if the
+     * rounded site is the nearest, otherwise {@code c + 1} for the
+     * positive or {@code -(c + 1)} for the negative member of the
+     * candidate pair {@code c}.
+     */
+    int select(double ux, double uy, double uz) {
+        int best = 0;
+        double bestGain = 0.0;
+
+        for (int c = 0; c < thresholds.length; ++c) {
+            double dot = weights[3 * c] * ux + weights[3 * c + 1] * uy + weights[3 * c + 2] * uz;
+            double gain = Math.abs(dot) - thresholds[c];
+
+            if (gain > bestGain) {
+                best = (dot > 0.0) ? c + 1 : -(c + 1);
+                bestGain = gain;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns one component of a selected candidate offset.
+     *
+     * @param code a code returned by {@code select()}.
+     *
+     * @param dim the component dimension.
+     *
+     * @return the specified component of the candidate offset.
+     */
+    int offset(int code, int dim) {
+        if (code > 0)
+            return offsets[(code - 1) * dimensionality + dim];
+        else if (code < 0)
+            return -offsets[(-code - 1) * dimensionality + dim];
+        else
+            return 0;
+    }
+}
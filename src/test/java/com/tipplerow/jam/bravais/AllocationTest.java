@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Enforces the allocation contract of the hot-path methods: after
+ * warm-up, site-ordinal operations must not allocate at all, and the
+ * operations that return a unit index may allocate at most that
+ * index.
+ */
+public class AllocationTest {
+    private static final int WARMUP = 20000;
+    private static final int MEASURE = 100000;
+
+    // Allowance for incidental allocation during the measured loop
+    // (e.g., by the JIT or the measurement itself); a single object
+    // per call would exceed it by two orders of magnitude...
+    private static final long SLACK = 16 * 1024;
+
+    // The largest unit index object (with compressed or uncompressed
+    // object pointers)...
+    private static final long UNIT_INDEX_BYTES = 32;
+
+    // Receives results so that the measured calls are not eliminated...
+    private static volatile long sink;
+
+    @Test public void testImageOf() {
+        forEachLattice(lattice -> {
+                Period period = lattice.getPeriod();
+                UnitIndex[] indexes = absoluteIndexes(lattice);
+
+                assertBounded(lattice, "Period.imageOf", UNIT_INDEX_BYTES,
+                              k -> sink += period.imageOf(indexes[k % indexes.length]).coord(0));
+            });
+    }
+
+    @Test public void testIndexAt() {
+        forEachLattice(lattice -> {
+                int[] sites = validSites(lattice);
+                int[] coords = new int[lattice.dimensionality()];
+
+                assertZero(lattice, "Period.indexAt", k -> {
+                        lattice.getPeriod().indexAt(sites[k % sites.length], coords);
+                        sink += coords[0];
+                    });
+            });
+    }
+
+    @Test public void testIntPopulation() {
+        forEachLattice(lattice -> {
+                int[] sites = validSites(lattice);
+                IntPopulation population = IntPopulation.empty(lattice);
+                IntConsumer counter = occupant -> sink += occupant;
+
+                for (int k = 0; k < sites.length; k += 2)
+                    population.place(k, sites[k]);
+
+                assertZero(lattice, "IntPopulation.occupantAt",
+                           k -> sink += population.occupantAt(sites[k % sites.length]));
+
+                assertZero(lattice, "IntPopulation.neighborsOf",
+                           k -> population.neighborsOf(2 * (k % (sites.length / 2)), counter));
+            });
+    }
+
+    @Test public void testNeighborSites() {
+        forEachLattice(lattice -> {
+                int[] sites = validSites(lattice);
+                int[] neighbors = new int[lattice.countNeighbors()];
+
+                assertZero(lattice, "Lattice.neighborSite", k -> {
+                        int site = sites[k % sites.length];
+
+                        for (int n = 0; n < neighbors.length; ++n)
+                            sink += lattice.neighborSite(site, n);
+                    });
+
+                assertZero(lattice, "Lattice.neighborSites", k -> {
+                        lattice.neighborSites(sites[k % sites.length], neighbors);
+                        sink += neighbors[0];
+                    });
+            });
+    }
+
+    @Test public void testPopulationOccupantAt() {
+        forEachLattice(lattice -> {
+                UnitIndex[] indexes = absoluteIndexes(lattice);
+                Population<Integer> population = Population.empty(lattice);
+
+                for (int k = 0; k < indexes.length; k += 2)
+                    population.place(k, indexes[k]);
+
+                assertBounded(lattice, "Population.occupantAt", UNIT_INDEX_BYTES, k -> {
+                        Integer occupant = population.occupantAt(indexes[k % indexes.length]);
+
+                        if (occupant != null)
+                            sink += occupant;
+                    });
+            });
+    }
+
+    @Test public void testSiteCoordinates() {
+        forEachLattice(lattice -> {
+                int[] sites = validSites(lattice);
+
+                assertZero(lattice, "Lattice.x", k -> sink += (long) lattice.x(sites[k % sites.length]));
+            });
+    }
+
+    @Test public void testSpeciesNeighbors() {
+        forEachLattice(lattice -> {
+                int[] sites = validSites(lattice);
+                SpeciesPopulation<Integer> population = SpeciesPopulation.empty(lattice, 2);
+
+                for (int k = 0; k < sites.length; k += 3)
+                    population.place(k, k % 2, lattice.indexAt(sites[k]));
+
+                assertZero(lattice, "SpeciesPopulation.countNeighbors",
+                           k -> sink += population.countNeighbors(sites[k % sites.length], k % 2));
+            });
+    }
+
+    private interface LatticeTest {
+        void run(Lattice lattice);
+    }
+
+    private static void forEachLattice(LatticeTest test) {
+        for (UnitCellType type : UnitCellType.values()) {
+            UnitCell unitCell = type.fundamental();
+
+            for (SiteOrdering ordering : SiteOrdering.values())
+                test.run(Lattice.create(unitCell, Period.boxND(10, unitCell.dimensionality()).withOrdering(ordering)));
+        }
+    }
+
+    private static UnitIndex[] absoluteIndexes(Lattice lattice) {
+        int[] sites = validSites(lattice);
+        UnitIndex[] indexes = new UnitIndex[sites.length];
+
+        // Shift every other index by one period to exercise wrapping...
+        for (int k = 0; k < sites.length; ++k) {
+            UnitIndex image = lattice.indexAt(sites[k]);
+            int shift = (k % 2 == 0) ? 0 : lattice.getPeriod().period(0);
+
+            switch (lattice.dimensionality()) {
+            case 1:
+                indexes[k] = UnitIndex.at(image.coord(0) - shift);
+                break;
+
+            case 2:
+                indexes[k] = UnitIndex.at(image.coord(0) - shift, image.coord(1));
+                break;
+
+            default:
+                indexes[k] = UnitIndex.at(image.coord(0) - shift, image.coord(1), image.coord(2));
+            }
+        }
+
+        return indexes;
+    }
+
+    private static int[] validSites(Lattice lattice) {
+        int[] sites = new int[(int) lattice.countSites()];
+        int count = 0;
+
+        for (int site = 0; site < lattice.siteCapacity(); ++site)
+            if (lattice.containsSite(site))
+                sites[count++] = site;
+
+        return sites;
+    }
+
+    private static void assertZero(Lattice lattice, String operation, IntConsumer op) {
+        assertBounded(lattice, operation, 0, op);
+    }
+
+    private static void assertBounded(Lattice lattice, String operation, long bytesPerOp, IntConsumer op) {
+        for (int k = 0; k < WARMUP; ++k)
+            op.accept(k);
+
+        long before = allocatedBytes();
+
+        for (int k = 0; k < MEASURE; ++k)
+            op.accept(k);
+
+        long allocated = allocatedBytes() - before;
+        long limit = bytesPerOp * MEASURE + SLACK;
+
+        assertTrue(allocated <= limit,
+                   String.format("%s on %s/%s allocated %d bytes in %d calls (limit %d).",
+                                 operation,
+                                 lattice.getUnitCell().getClass().getSimpleName(),
+                                 lattice.getPeriod().ordering(),
+                                 allocated, MEASURE, limit));
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+            throw new SkipException("Thread allocation counters are unavailable.");
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled())
+            throw new SkipException("Thread allocation counters are disabled.");
+
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
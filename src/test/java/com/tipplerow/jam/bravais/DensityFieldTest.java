@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class DensityFieldTest {
+    @Test public void testCoarseGrid() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        CoarseGrid grid = CoarseGrid.create(lattice, 2, 3);
+
+        assertEquals(3, grid.countBins(0));
+        assertEquals(2, grid.countBins(1));
+        assertEquals(6, grid.countBins());
+
+        assertEquals(0, grid.binOf(UnitIndex.at(0, 0)));
+        assertEquals(3, grid.binOf(UnitIndex.at(1, 3)));
+        assertEquals(1, grid.binOf(UnitIndex.at(2, 0)));
+        assertEquals(5, grid.binOf(UnitIndex.at(4, 3)));
+        assertEquals(5, grid.binOf(UnitIndex.at(-1, -1)));
+
+        assertEquals(6, grid.countSites(0));
+        assertEquals(6, grid.countSites(1));
+        assertEquals(3, grid.countSites(2));
+        assertEquals(2, grid.countSites(3));
+        assertEquals(1, grid.countSites(5));
+
+        // Bins follow the row-major site ordering...
+        for (int site = 0; site < lattice.siteCapacity(); ++site) {
+            UnitIndex index = lattice.indexAt(site);
+            assertEquals(grid.binOf(site), index.coord(0) / 2 + 3 * (index.coord(1) / 3));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCoarseGridDimension() {
+        CoarseGrid.create(Lattice.create(UnitCell.square(1.0), Period.box(5, 4)), 2);
+    }
+
+    @Test public void testCompute() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(9, 8, 7), SiteOrdering.MORTON);
+        CoarseGrid grid = CoarseGrid.create(lattice, 4, 4, 3);
+        SpeciesPopulation<Integer> population = populate(lattice, 3, 1000, 0.3);
+
+        assertField(DensityField.compute(grid, population), grid, population);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            assertField(DensityField.compute(grid, population, executor), grid, population);
+
+            // Several tasks, so that partial counts are summed...
+            for (int taskCount = 2; taskCount <= 7; ++taskCount)
+                assertField(DensityField.compute(grid, population, executor, taskCount), grid, population);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testComputeMismatch() {
+        CoarseGrid grid = CoarseGrid.create(Lattice.create(UnitCell.square(1.0), Period.box(5, 4)), 2, 2);
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 5));
+
+        DensityField.compute(grid, SpeciesPopulation.empty(lattice, 2));
+    }
+
+    @Test public void testTrack() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(20, 30));
+        CoarseGrid grid = CoarseGrid.create(lattice, 5, 5);
+        SpeciesPopulation<Integer> population = populate(lattice, 2, 300, 0.5);
+        DensityField field = DensityField.track(grid, population);
+        Random random = new Random(20211129);
+
+        assertTrue(field.isTracking());
+
+        for (int trial = 0; trial < 2000; ++trial) {
+            Integer occupant = random.nextInt(400);
+            UnitIndex index = UnitIndex.at(random.nextInt(40) - 10, random.nextInt(60) - 15);
+
+            if (random.nextInt(5) == 0)
+                population.remove(occupant);
+            else
+                population.place(occupant, random.nextInt(2), index);
+        }
+
+        assertField(field, grid, population);
+        assertEquals(population.countOccupants(), countAll(field));
+
+        field.detach();
+        assertFalse(field.isTracking());
+
+        population.remove(population.selectOccupant(0, random));
+        assertEquals(population.countOccupants() + 1, countAll(field));
+    }
+
+    private static SpeciesPopulation<Integer> populate(Lattice lattice, int speciesCount, int trials, double fraction) {
+        SpeciesPopulation<Integer> population = SpeciesPopulation.empty(lattice, speciesCount);
+        Random random = new Random(trials);
+
+        for (int site = 0; site < lattice.siteCapacity(); ++site)
+            if (lattice.containsSite(site) && random.nextDouble() < fraction)
+                population.place(site, random.nextInt(speciesCount), lattice.indexAt(site));
+
+        return population;
+    }
+
+    private static void assertField(DensityField field, CoarseGrid grid, SpeciesPopulation<?> population) {
+        int[] expected = new int[grid.countBins() * population.countSpecies()];
+        int[] actual = new int[grid.countBins()];
+        Lattice lattice = population.getLattice();
+
+        for (int site = 0; site < lattice.siteCapacity(); ++site)
+            if (lattice.containsSite(site) && population.speciesAt(site) != SpeciesPopulation.VACANT)
+                ++expected[population.speciesAt(site) * grid.countBins() + grid.binOf(lattice.indexAt(site))];
+
+        for (int species = 0; species < population.countSpecies(); ++species) {
+            field.copyCounts(species, actual);
+
+            for (int bin = 0; bin < grid.countBins(); ++bin) {
+                assertEquals(actual[bin], expected[species * grid.countBins() + bin]);
+                assertEquals(field.density(bin, species), (double) actual[bin] / grid.countSites(bin), 1.0E-12);
+            }
+        }
+    }
+
+    private static int countAll(DensityField field) {
+        int count = 0;
+
+        for (int bin = 0; bin < field.getGrid().countBins(); ++bin)
+            count += field.count(bin);
+
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class FlightRecorderTest {
+    @Test public void testDisabled() {
+        // No recording is running, so nothing is allocated...
+        assertNull(SiteOperationEvent.start());
+    }
+
+    @Test public void testEvents() throws Exception {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(6, 7));
+        Population<Integer> population = Population.empty(lattice);
+        Path path = Files.createTempFile("bravais", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(BulkOperationEvent.NAME);
+            recording.enable(SiteOperationEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+
+            int[] counter = { 0 };
+            population.fill(() -> counter[0]++);
+            population.remove(3);
+            lattice.mapIndexNeighbors(CoordType.IMAGE);
+
+            recording.stop();
+            recording.dump(path);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+        Set<String> operations = new HashSet<>();
+        Files.delete(path);
+
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+
+            if (name.equals(BulkOperationEvent.NAME)) {
+                operations.add(event.getString("operation"));
+                assertEquals(event.getString("latticeType"), "SquareUnitCell");
+                assertEquals(event.getLong("siteCount"), 42L);
+                assertEquals(event.getLong("itemCount"), 42L);
+            }
+            else if (name.equals(SiteOperationEvent.NAME)) {
+                operations.add(event.getString("operation"));
+            }
+        }
+
+        assertTrue(operations.contains("Population.fill"));
+        assertTrue(operations.contains("Population.place"));
+        assertTrue(operations.contains("Population.remove"));
+        assertTrue(operations.contains("Lattice.mapIndexNeighbors"));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class GrowthEngineTest {
+    private static GrowthEngine<Integer> createEngine(UnitCell unitCell, int period) {
+        Lattice lattice = Lattice.create(unitCell, Period.boxND(period, unitCell.dimensionality()));
+        AtomicInteger serial = new AtomicInteger();
+
+        return GrowthEngine.create(lattice, parent -> serial.incrementAndGet(), DivisionRule.always(), new Random(1234));
+    }
+
+    @Test public void testFill() {
+        for (UnitCellType cellType : UnitCellType.values()) {
+            GrowthEngine<Integer> engine = createEngine(cellType.fundamental(), 6);
+            Lattice lattice = engine.getLattice();
+
+            assertNull(engine.place(0, UnitIndex.origin(lattice.dimensionality())));
+            assertEquals(1, engine.countOccupants());
+            assertEquals(1, engine.countFrontier());
+
+            long divisions = engine.growTo(Integer.MAX_VALUE);
+
+            assertEquals(lattice.countSites() - 1, divisions);
+            assertEquals(lattice.countSites(), engine.countOccupants());
+            assertEquals(0, engine.countFrontier());
+            assertFalse(engine.divide());
+        }
+    }
+
+    @Test public void testStalledGrowth() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(10, 10));
+        GrowthEngine<Integer> engine =
+            GrowthEngine.create(lattice, parent -> parent + 1, DivisionRule.probability(0.0), new Random(1234));
+
+        engine.place(0, UnitIndex.at(5, 5));
+
+        assertEquals(0, engine.growTo(50));
+        assertEquals(1, engine.countOccupants());
+        assertEquals(1, engine.countFrontier());
+    }
+
+    @Test public void testFrontier() {
+        Random random = new Random(5678);
+
+        for (UnitCellType cellType : UnitCellType.values()) {
+            GrowthEngine<Integer> engine = createEngine(cellType.fundamental(), 8);
+            Lattice lattice = engine.getLattice();
+
+            engine.place(0, UnitIndex.origin(lattice.dimensionality()));
+
+            for (int trial = 0; trial < 20; ++trial) {
+                engine.run(10);
+
+                if (random.nextBoolean())
+                    engine.killRandom();
+
+                assertFrontier(engine);
+            }
+        }
+    }
+
+    private static void assertFrontier(GrowthEngine<?> engine) {
+        Lattice lattice = engine.getLattice();
+        int occupied = 0;
+
+        for (int site = 0; site < lattice.countSites(); ++site) {
+            boolean vacancy = false;
+
+            for (int k = 0; k < lattice.countNeighbors(); ++k)
+                vacancy |= !engine.isOccupied(lattice.neighborSite(site, k));
+
+            if (engine.isOccupied(site))
+                ++occupied;
+
+            assertEquals(engine.isFrontier(site), engine.isOccupied(site) && vacancy);
+        }
+
+        assertEquals(occupied, engine.countOccupants());
+    }
+
+    @Test public void testDeathAndObservers() {
+        GrowthEngine<Integer> engine = createEngine(UnitCell.square(1.0), 10);
+        List<Integer> sizes = new ArrayList<>();
+
+        engine.addObserver(e -> sizes.add(e.countOccupants()), 5);
+        engine.place(0, UnitIndex.at(5, 5));
+
+        assertEquals(20, engine.run(20));
+        assertEquals(List.of(6, 11, 16, 21), sizes);
+
+        int site = engine.getLattice().siteOf(UnitIndex.at(5, 5));
+
+        assertEquals(Integer.valueOf(0), engine.kill(site));
+        assertNull(engine.kill(site));
+        assertFalse(engine.isOccupied(site));
+        assertEquals(1, engine.countDeaths());
+        assertEquals(20, engine.countOccupants());
+
+        Population<Integer> population = engine.toPopulation();
+
+        assertEquals(20, population.countOccupants());
+        assertFalse(population.isOccupied(UnitIndex.at(5, 5)));
+    }
+}
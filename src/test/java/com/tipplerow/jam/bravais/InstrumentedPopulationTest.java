@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.tipplerow.jam.bravais.PopulationMonitor.Operation;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class InstrumentedPopulationTest {
+    @Test public void testCounts() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 5));
+        InstrumentedPopulation<String> population = InstrumentedPopulation.wrap(Population.empty(lattice), 1);
+        PopulationMonitor monitor = population.getMonitor();
+
+        population.place("A", UnitIndex.at(0, 0));
+        population.place("B", UnitIndex.at(0, 1));
+        population.place("C", UnitIndex.at(2, 2));
+        population.swap("A", "C");
+        population.remove("B");
+
+        assertEquals(population.neighborsOf("A").size(), 0);
+        assertEquals(population.occupantAt(UnitIndex.at(0, 0)), "C");
+        assertEquals(population.getPopulation().countOccupants(), 2);
+
+        assertEquals(monitor.count(Operation.PLACE), 3);
+        assertEquals(monitor.count(Operation.SWAP), 1);
+        assertEquals(monitor.count(Operation.REMOVE), 1);
+        assertEquals(monitor.count(Operation.NEIGHBORS_OF), 1);
+        assertEquals(monitor.count(Operation.OCCUPANT_AT), 1);
+        assertEquals(monitor.count(Operation.SELECT_FRONTIER), 0);
+
+        // Every call is timed with a unit sample interval...
+        assertEquals(sum(monitor.latencyHistogram(Operation.PLACE)), 3);
+        assertEquals(sum(monitor.latencyHistogram(Operation.SWAP)), 1);
+
+        assertEquals(monitor.getOccupants(), 2);
+        assertEquals(monitor.getCapacity(), 20);
+        assertEquals(monitor.getFillFraction(), 0.1, 1.0E-12);
+        assertEquals(monitor.getNeighborTableBytes(), 0);
+
+        lattice.neighborTable();
+        assertTrue(monitor.getNeighborTableBytes() > 0);
+
+        monitor.reset();
+        assertEquals(monitor.count(Operation.PLACE), 0);
+        assertEquals(sum(monitor.latencyHistogram(Operation.PLACE)), 0);
+    }
+
+    @Test public void testRegister() throws Exception {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 5));
+        InstrumentedPopulation<String> population = InstrumentedPopulation.wrap(Population.empty(lattice));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = population.getMonitor().register("testRegister");
+
+        try {
+            population.place("A", UnitIndex.at(1, 1));
+
+            assertEquals(server.getAttribute(name, "Occupants"), 1);
+            assertEquals(server.getAttribute(name, "SampleInterval"), PopulationMonitor.DEFAULT_SAMPLE_INTERVAL);
+            assertNotNull(server.getAttribute(name, "OperationCounts"));
+            assertNotNull(server.getAttribute(name, "LatencyHistograms"));
+
+            Map<String, Long> counts = population.getMonitor().getOperationCounts();
+            assertEquals(counts.get("PLACE").longValue(), 1);
+        }
+        finally {
+            PopulationMonitor.unregister(name);
+        }
+
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSampleInterval() {
+        InstrumentedPopulation.wrap(Population.empty(Lattice.create(UnitCell.square(1.0), Period.box(4, 5))), 0);
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+
+        for (long value : values)
+            sum += value;
+
+        return sum;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class IntPopulationTest {
+    @Test public void testBasic() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(3, 4));
+        IntPopulation population = IntPopulation.empty(lattice, 10);
+
+        UnitIndex indexA = UnitIndex.at(4, 10);
+        UnitIndex indexB = UnitIndex.at(0, 1);
+
+        assertTrue(population.isEmpty());
+        assertFalse(population.contains(1));
+        assertFalse(population.contains(99));
+        assertNull(population.indexOf(1));
+        assertEquals(IntPopulation.VACANT, population.occupantAt(indexA));
+
+        assertEquals(IntPopulation.VACANT, population.place(1, indexA));
+        assertEquals(IntPopulation.VACANT, population.place(2, indexB));
+        assertEquals(2, population.countOccupants());
+        assertEquals(UnitIndex.at(1, 2), population.indexOf(1));
+        assertEquals(1, population.occupantAt(UnitIndex.at(-5, 18)));
+
+        // Move an occupant onto an occupied site...
+        assertEquals(2, population.place(1, indexB));
+        assertEquals(1, population.countOccupants());
+        assertFalse(population.contains(2));
+        assertFalse(population.isOccupied(indexA));
+        assertEquals(UnitIndex.at(0, 1), population.indexOf(1));
+
+        population.place(3, indexA);
+        population.swap(1, 3);
+        assertEquals(3, population.occupantAt(indexB));
+        assertEquals(1, population.occupantAt(indexA));
+
+        population.replace(3, 4);
+        assertEquals(4, population.occupantAt(indexB));
+        assertFalse(population.contains(3));
+        assertEquals(2, population.countOccupants());
+
+        population.remove(4);
+        population.remove(4);
+        assertEquals(1, population.countOccupants());
+        assertFalse(population.isOccupied(indexB));
+
+        try {
+            population.place(10, indexB);
+            fail("Expected an exception.");
+        }
+        catch (IllegalArgumentException ex) {
+            // Expected...
+        }
+    }
+
+    @Test public void testNeighbors() {
+        for (UnitCellType cellType : UnitCellType.values()) {
+            Lattice lattice = Lattice.create(cellType.fundamental(), Period.boxND(6, cellType.fundamental().dimensionality()));
+            Population<Integer> expected = Population.empty(lattice);
+            IntPopulation actual = IntPopulation.empty(lattice);
+            List<UnitIndex> indexes = lattice.getPeriod().enumerate();
+            Random random = new Random(2468);
+
+            // Apply the same random placements and removals to both
+            // populations...
+            for (int trial = 0; trial < 500; ++trial) {
+                int occupant = random.nextInt(indexes.size());
+
+                if (random.nextInt(4) == 0) {
+                    expected.remove(occupant);
+                    actual.remove(occupant);
+                }
+                else {
+                    UnitIndex index = indexes.get(random.nextInt(indexes.size()));
+
+                    Integer prevOcc = expected.place(occupant, index);
+                    int expectedPrev = (prevOcc == null) ? IntPopulation.VACANT : prevOcc;
+
+                    assertEquals(actual.place(occupant, index), expectedPrev);
+                }
+
+                assertEquals(actual.countOccupants(), expected.countOccupants());
+            }
+
+            for (Integer occupant : expected.listOccupants()) {
+                assertEquals(actual.indexOf(occupant), lattice.imageOf(expected.indexOf(occupant)));
+
+                Set<Integer> neighbors = new HashSet<>();
+                actual.neighborsOf(occupant, neighbors::add);
+                assertEquals(neighbors, new HashSet<>(expected.neighborsOf(occupant)));
+            }
+
+            for (UnitIndex index : indexes) {
+                List<UnitIndex> unoccupied = new ArrayList<>();
+                actual.unoccupiedNeighbors(lattice.siteOf(index), site -> unoccupied.add(lattice.indexAt(site)));
+
+                List<UnitIndex> images = new ArrayList<>();
+
+                for (UnitIndex neighbor : expected.unoccupiedNeighbors(index))
+                    images.add(lattice.imageOf(neighbor));
+
+                assertEquals(unoccupied, images);
+            }
+        }
+    }
+}
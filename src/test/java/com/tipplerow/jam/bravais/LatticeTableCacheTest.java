@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class LatticeTableCacheTest {
+    @Test public void testCoordinateTable() {
+        Lattice lattice = Lattice.create(UnitCell.hexagonal(2.0), Period.box(4, 6));
+        CoordinateTable table = lattice.coordinateTable();
+
+        assertEquals(2, table.dimensionality());
+        assertEquals(lattice.siteCapacity(), table.siteCapacity());
+
+        for (int site = 0; site < lattice.siteCapacity(); ++site) {
+            var point = lattice.getUnitCell().pointAt(lattice.indexAt(site));
+
+            assertEquals(table.pointAt(site), point);
+            assertEquals(table.coord(site, 0), point.coord(0), 1.0E-12);
+            assertEquals(table.coord(site, 1), point.coord(1), 1.0E-12);
+        }
+
+        // A different lattice constant requires a different table...
+        Lattice other = Lattice.create(UnitCell.hexagonal(3.0), Period.box(4, 6));
+        assertNotSame(other.coordinateTable(), table);
+    }
+
+    @Test public void testDirectory() throws IOException {
+        Path dir = Files.createTempDirectory("tables");
+
+        try {
+            LatticeTableCache.clear();
+            LatticeTableCache.setDirectory(dir);
+
+            Lattice lattice = Lattice.create(UnitCell.BCC(1.0), Period.box(5, 6, 7), SiteOrdering.MORTON);
+            NeighborTable built = lattice.neighborTable();
+            CoordinateTable coords = lattice.coordinateTable();
+
+            List<Path> files = listFiles(dir);
+            assertEquals(files.size(), 2);
+
+            // A new process (simulated by clearing the cache) maps the
+            // existing files...
+            LatticeTableCache.clear();
+            Lattice other = Lattice.create(UnitCell.BCC(1.0), Period.box(5, 6, 7), SiteOrdering.MORTON);
+            NeighborTable mapped = other.neighborTable();
+            CoordinateTable mappedCoords = other.coordinateTable();
+
+            assertNotSame(mapped, built);
+            assertEquals(listFiles(dir), files);
+            assertTableEquals(mapped, built);
+
+            for (int site = 0; site < lattice.siteCapacity(); ++site)
+                for (int dim = 0; dim < 3; ++dim)
+                    assertEquals(mappedCoords.coord(site, dim), coords.coord(site, dim));
+
+            // A corrupt file is rebuilt and replaced...
+            for (Path file : files)
+                Files.write(file, new byte[] { 1, 2, 3 });
+
+            LatticeTableCache.clear();
+            assertTableEquals(Lattice.create(UnitCell.BCC(2.0), Period.box(5, 6, 7), SiteOrdering.MORTON).neighborTable(), built);
+
+            for (Path file : files)
+                assertEquals(Files.size(file) > 3, file.toString().endsWith(NeighborTable.KIND));
+
+            // A different lattice constant needs its own coordinate
+            // file, while the neighbor file is shared...
+            Lattice.create(UnitCell.BCC(2.0), Period.box(5, 6, 7), SiteOrdering.MORTON).coordinateTable();
+            assertEquals(listFiles(dir).size(), 3);
+        }
+        finally {
+            LatticeTableCache.setDirectory(null);
+            LatticeTableCache.clear();
+
+            for (Path file : listFiles(dir))
+                Files.delete(file);
+
+            Files.delete(dir);
+        }
+    }
+
+    private static void assertTableEquals(NeighborTable actual, NeighborTable expected) {
+        assertEquals(actual.siteCapacity(), expected.siteCapacity());
+        assertEquals(actual.countNeighbors(), expected.countNeighbors());
+
+        for (int site = 0; site < expected.siteCapacity(); ++site)
+            for (int k = 0; k < expected.countNeighbors(); ++k)
+                assertEquals(actual.neighborSite(site, k), expected.neighborSite(site, k));
+    }
+
+    private static List<Path> listFiles(Path dir) throws IOException {
+        try (var stream = Files.list(dir)) {
+            return stream.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test public void testEviction() {
+        long capacity = LatticeTableCache.capacity();
+
+        try {
+            LatticeTableCache.clear();
+            LatticeTableCache.setCapacity(4 * 6 * 6 * 6 * 6);
+
+            Lattice lattice1 = Lattice.create(UnitCell.cubic(1.0), Period.box(6, 6, 6));
+            Lattice lattice2 = Lattice.create(UnitCell.cubic(1.0), Period.box(6, 6, 8));
+
+            NeighborTable table1 = lattice1.neighborTable();
+            assertEquals(1, LatticeTableCache.countTables());
+            assertEquals(4 * 6 * 6 * 6 * 6, LatticeTableCache.weight());
+
+            // The second table pushes out the first...
+            lattice2.neighborTable();
+            assertEquals(0, LatticeTableCache.countTables());
+            assertEquals(0, LatticeTableCache.weight());
+
+            // ...but the first is still live and therefore reused...
+            LatticeTableCache.setCapacity(capacity);
+            Lattice lattice3 = Lattice.create(UnitCell.cubic(2.0), Period.box(6, 6, 6));
+            assertSame(lattice3.neighborTable(), table1);
+            assertEquals(1, LatticeTableCache.countTables());
+        }
+        finally {
+            LatticeTableCache.setCapacity(capacity);
+        }
+    }
+
+    @Test public void testNeighborTable() {
+        for (SiteOrdering ordering : SiteOrdering.values()) {
+            Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(5, 6, 7), ordering);
+            NeighborTable table = lattice.neighborTable();
+
+            assertEquals(12, table.countNeighbors());
+            assertEquals(lattice.siteCapacity(), table.siteCapacity());
+
+            int[] neighbors = new int[12];
+
+            for (int site = 0; site < lattice.siteCapacity(); ++site) {
+                if (!lattice.containsSite(site))
+                    continue;
+
+                table.neighborSites(site, neighbors);
+
+                for (int k = 0; k < 12; ++k) {
+                    assertEquals(table.neighborSite(site, k), lattice.neighborSite(site, k));
+                    assertEquals(neighbors[k], lattice.neighborSite(site, k));
+                }
+            }
+        }
+    }
+
+    @Test public void testSharing() {
+        Lattice lattice1 = Lattice.create(UnitCell.FCC(1.0), Period.box(4, 4, 4));
+        Lattice lattice2 = Lattice.create(UnitCell.FCC(2.0), Period.box(4, 4, 4));
+        Lattice lattice3 = Lattice.create(UnitCell.FCC(1.0), Period.box(4, 4, 4), SiteOrdering.TILED);
+        Lattice lattice4 = Lattice.create(UnitCell.BCC(1.0), Period.box(4, 4, 4));
+
+        // The neighbor topology does not depend on the lattice constant...
+        assertSame(lattice1.neighborTable(), lattice2.neighborTable());
+        assertNotSame(lattice1.neighborTable(), lattice3.neighborTable());
+        assertNotSame(lattice1.neighborTable(), lattice4.neighborTable());
+
+        assertSame(lattice1.coordinateTable(), Lattice.create(UnitCell.FCC(1.0), Period.box(4, 4, 4)).coordinateTable());
+        assertNotSame(lattice1.coordinateTable(), lattice2.coordinateTable());
+    }
+}
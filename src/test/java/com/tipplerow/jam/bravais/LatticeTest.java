@@ -15,6 +15,7 @@
  */
 package com.tipplerow.jam.bravais;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -159,4 +160,176 @@ public class LatticeTest {
                              UnitIndex.at(0, 1)),
                      neighbors.get(UnitIndex.at(0, 0)));
     }
+
+    @Test public void testExportPoints() {
+        Lattice[] lattices = new Lattice[] {
+            Lattice.create(UnitCell.linear(1.5), Period.box(7)),
+            Lattice.create(UnitCell.hexagonal(2.0), Period.box(5, 6), SiteOrdering.TILED),
+            Lattice.create(UnitCell.FCC(1.0), Period.box(3, 5, 6), SiteOrdering.MORTON)
+        };
+
+        for (Lattice lattice : lattices) {
+            List<Point> points = lattice.listPoints();
+            PointCloud cloud = PointCloud.zeros(lattice.dimensionality(), points.size() + 2);
+
+            assertEquals(lattice.exportPoints(cloud), points.size());
+
+            for (int k = 0; k < points.size(); ++k)
+                assertEquals(cloud.pointAt(k), points.get(k));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testExportPointsTooSmall() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(3, 3));
+        lattice.exportPoints(PointCloud.zeros(2, 8));
+    }
+
+    @Test public void testSiteCoordinates() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(2.0), Period.box(3, 4, 5), SiteOrdering.HILBERT);
+        UnitCell unitCell = lattice.getUnitCell();
+
+        for (int site = 0; site < lattice.siteCapacity(); ++site) {
+            if (!lattice.containsSite(site))
+                continue;
+
+            Point point = unitCell.pointAt(lattice.indexAt(site));
+
+            assertEquals(lattice.x(site), point.coord(0), 1.0E-12);
+            assertEquals(lattice.y(site), point.coord(1), 1.0E-12);
+            assertEquals(lattice.z(site), point.coord(2), 1.0E-12);
+        }
+
+        // Absolute images are shifted by whole periods...
+        for (int i = -7; i <= 7; i += 2) {
+            for (int j = -9; j <= 9; j += 3) {
+                for (int k = -11; k <= 11; k += 4) {
+                    UnitIndex index = UnitIndex.at(i, j, k);
+                    Point expected = unitCell.pointAt(index);
+                    Point actual = lattice.pointAt(index);
+
+                    for (int dim = 0; dim < 3; ++dim) {
+                        assertEquals(actual.coord(dim), expected.coord(dim), 1.0E-12);
+                        assertEquals(lattice.coord(index, dim), expected.coord(dim), 1.0E-12);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testSiteCoordinateDimension() {
+        Lattice.create(UnitCell.square(1.0), Period.box(3, 3)).z(0);
+    }
+
+    @Test public void testLattice2D() {
+        for (SiteOrdering ordering : SiteOrdering.values()) {
+            Lattice lattice = Lattice.create(UnitCell.hexagonal(2.0), Period.box(ordering, 6, 9));
+            Lattice2D lattice2D = Lattice2D.of(lattice);
+
+            assertSame(lattice, lattice2D.getLattice());
+            assertEquals(lattice.countNeighbors(), lattice2D.countNeighbors());
+
+            for (UnitIndex image : lattice.getPeriod().enumerate()) {
+                int site = lattice.siteOf(image);
+                UnitIndex index = image.plus(UnitIndex.at(-6, 18));
+                Point point = lattice.getUnitCell().pointAt(index);
+
+                assertEquals(site, lattice2D.siteOf(index.coord(0), index.coord(1)));
+                assertEquals(site, lattice2D.siteOf(point.coord(0), point.coord(1)));
+                assertEquals(image.coord(0), lattice2D.i(site));
+                assertEquals(image.coord(1), lattice2D.j(site));
+                assertEquals(image.coord(0), lattice2D.imageI(index.coord(0)));
+                assertEquals(image.coord(1), lattice2D.imageJ(index.coord(1)));
+                assertEquals(index, lattice2D.indexOf(point.coord(0), point.coord(1)));
+                assertEquals(point, lattice2D.pointAt(index.coord(0), index.coord(1)));
+
+                for (int k = 0; k < lattice.countNeighbors(); ++k)
+                    assertEquals(lattice.neighborSite(site, k), lattice2D.neighborSite(site, k));
+            }
+        }
+    }
+
+    @Test public void testLattice3D() {
+        for (SiteOrdering ordering : SiteOrdering.values()) {
+            Lattice lattice = Lattice.create(UnitCell.BCC(1.5), Period.box(ordering, 5, 8, 7));
+            Lattice3D lattice3D = Lattice3D.of(lattice);
+
+            for (UnitIndex image : lattice.getPeriod().enumerate()) {
+                int site = lattice.siteOf(image);
+                UnitIndex index = image.plus(UnitIndex.at(10, -8, 21));
+                Point point = lattice.getUnitCell().pointAt(index);
+
+                assertEquals(site, lattice3D.siteOf(index.coord(0), index.coord(1), index.coord(2)));
+                assertEquals(site, lattice3D.siteOf(point.coord(0), point.coord(1), point.coord(2)));
+                assertEquals(image.coord(0), lattice3D.i(site));
+                assertEquals(image.coord(1), lattice3D.j(site));
+                assertEquals(image.coord(2), lattice3D.k(site));
+                assertEquals(image.coord(2), lattice3D.imageK(index.coord(2)));
+                assertEquals(index, lattice3D.indexOf(point.coord(0), point.coord(1), point.coord(2)));
+                assertEquals(point, lattice3D.pointAt(index.coord(0), index.coord(1), index.coord(2)));
+
+                int[] neighbors = new int[lattice3D.countNeighbors()];
+                int[] count = new int[1];
+
+                lattice3D.forEachNeighbor(site, neighbor -> neighbors[count[0]++] = neighbor);
+
+                for (int k = 0; k < lattice.countNeighbors(); ++k)
+                    assertEquals(lattice.neighborSite(site, k), neighbors[k]);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLattice3DDimensionality() {
+        Lattice3D.of(Lattice.create(UnitCell.square(1.0), Period.square(4)));
+    }
+
+    @Test public void testNeighborSites() {
+        for (UnitCellType cellType : UnitCellType.values()) {
+            UnitCell unitCell = cellType.fundamental();
+
+            for (SiteOrdering ordering : SiteOrdering.values()) {
+                int[] period = (unitCell.dimensionality() == 1) ? new int[] { 9 } : new int[] { 7, 5, 6 };
+                Lattice lattice = Lattice.create(unitCell, Period.box(ordering, Arrays.copyOf(period, unitCell.dimensionality())));
+
+                int[] neighbors = new int[lattice.countNeighbors()];
+                int[] visits = new int[lattice.siteCapacity()];
+                int interiorCount = 0;
+
+                for (UnitIndex image : lattice.getPeriod().enumerate()) {
+                    int site = lattice.siteOf(image);
+                    boolean interior = true;
+
+                    for (UnitIndex neighbor : unitCell.getNeighbors(image))
+                        interior = interior && lattice.getPeriod().contains(neighbor);
+
+                    // Only the row-major ordering (which one-dimensional
+                    // periods always use) classifies sites...
+                    assertEquals(lattice.isInterior(site), interior && lattice.getPeriod().ordering() == SiteOrdering.ROW_MAJOR);
+
+                    if (lattice.isInterior(site))
+                        ++interiorCount;
+
+                    lattice.neighborSites(site, neighbors);
+
+                    for (int k = 0; k < neighbors.length; ++k)
+                        assertEquals(neighbors[k], lattice.neighborSite(site, k));
+                }
+
+                lattice.forEachNeighborhood((site, siteNeighbors) -> {
+                        ++visits[site];
+
+                        for (int k = 0; k < siteNeighbors.length; ++k)
+                            assertEquals(siteNeighbors[k], lattice.neighborSite(site, k));
+                    });
+
+                for (int site = 0; site < visits.length; ++site)
+                    assertEquals(visits[site], lattice.containsSite(site) ? 1 : 0);
+
+                if (ordering == SiteOrdering.ROW_MAJOR && unitCell.dimensionality() > 1)
+                    assertTrue(interiorCount > 0);
+            }
+        }
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class MappedPopulationTest {
+    private static final Lattice LATTICE = Lattice.create(UnitCell.square(1.0), Period.square(10));
+
+    private static final UnitIndex A = UnitIndex.at(2, 3);
+    private static final UnitIndex B = UnitIndex.at(3, 3);
+    private static final UnitIndex C = UnitIndex.at(1, 3);
+
+    @Test public void testSharedFile() throws IOException {
+        Path path = Files.createTempFile("population", ".map");
+
+        try (MappedPopulation writer = MappedPopulation.create(LATTICE, path);
+             MappedPopulation reader = MappedPopulation.attach(LATTICE, path)) {
+            assertTrue(writer.isWritable());
+            assertFalse(reader.isWritable());
+            assertEquals(0, reader.countOccupants());
+
+            assertEquals(MappedPopulation.VACANT, writer.place(10, A));
+            assertEquals(MappedPopulation.VACANT, writer.place(20, B));
+            assertEquals(MappedPopulation.VACANT, writer.place(30, C));
+            assertEquals(30, writer.place(31, UnitIndex.at(-9, 13)));
+
+            // The reader sees every update through the shared mapping...
+            assertEquals(3, reader.countOccupants());
+            assertEquals(10, reader.occupantAt(A));
+            assertEquals(31, reader.occupantAt(C));
+            assertTrue(reader.isOccupied(UnitIndex.at(11, 3)));
+            assertFalse(reader.isOccupied(UnitIndex.at(2, 4)));
+            assertEquals(MappedPopulation.VACANT, reader.occupantAt(UnitIndex.at(2, 4)));
+
+            assertEquals(2, reader.countNeighbors(A));
+            long[] neighbors = reader.neighborsOf(A);
+            Arrays.sort(neighbors);
+            assertEquals(new long[] { 20, 31 }, neighbors);
+
+            assertEquals(20, writer.remove(B));
+            assertEquals(MappedPopulation.VACANT, writer.remove(B));
+            assertEquals(2, reader.countOccupants());
+            assertEquals(1, reader.countNeighbors(A));
+
+            long sequence = reader.getSequence();
+            assertEquals(0, sequence % 2);
+
+            writer.batch(() -> {
+                    writer.place(40, B);
+                    writer.remove(A);
+                });
+
+            assertEquals(sequence + 2, reader.getSequence());
+            assertEquals(2, reader.countOccupants());
+
+            writer.clear();
+            assertEquals(0, reader.countOccupants());
+            assertFalse(reader.isOccupied(B));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test public void testConsistentReads() throws Exception {
+        Path path = Files.createTempFile("population", ".map");
+
+        try (MappedPopulation writer = MappedPopulation.create(LATTICE, path);
+             MappedPopulation reader = MappedPopulation.attach(LATTICE, path)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+
+            // The writer moves a single occupant back and forth, so
+            // every consistent state has exactly one of the two sites
+            // occupied...
+            writer.place(1, A);
+
+            Thread thread = new Thread(() -> {
+                    while (running.get()) {
+                        writer.batch(() -> { writer.remove(A); writer.place(1, B); });
+                        writer.batch(() -> { writer.remove(B); writer.place(1, A); });
+                    }
+                });
+
+            thread.start();
+
+            try {
+                for (int trial = 0; trial < 20000; ++trial) {
+                    boolean consistent = reader.read(population -> population.isOccupied(A) != population.isOccupied(B));
+                    assertTrue(consistent);
+                }
+            }
+            finally {
+                running.set(false);
+                thread.join();
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test public void testAttachMismatch() throws IOException {
+        Path path = Files.createTempFile("population", ".map");
+
+        try (MappedPopulation writer = MappedPopulation.create(LATTICE, path)) {
+            Lattice other = Lattice.create(UnitCell.square(1.0), Period.box(SiteOrdering.MORTON, 10, 10));
+            MappedPopulation.attach(other, path).close();
+            fail("Expected an exception.");
+        }
+        catch (IllegalArgumentException ex) {
+            // Expected...
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadOnly() throws IOException {
+        Path path = Files.createTempFile("population", ".map");
+
+        try (MappedPopulation writer = MappedPopulation.create(LATTICE, path);
+             MappedPopulation reader = MappedPopulation.attach(LATTICE, path)) {
+            reader.place(1, A);
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+}
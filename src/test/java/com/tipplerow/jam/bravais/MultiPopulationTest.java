@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class MultiPopulationTest {
+    @Test public void testBasic() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        MultiPopulation<String> population = MultiPopulation.empty(lattice, 3);
+
+        UnitIndex index11 = UnitIndex.at(1, 1);
+        UnitIndex index21 = UnitIndex.at(2, 1);
+
+        int site11 = lattice.siteOf(index11);
+        int site21 = lattice.siteOf(index21);
+
+        assertTrue(population.isEmpty());
+        assertEquals(3, population.getCapacity());
+
+        assertTrue(population.place("A", index11));
+        assertTrue(population.place("B", index11));
+        assertTrue(population.place("C", UnitIndex.at(6, 5)));
+        assertFalse(population.place("D", index11));
+
+        assertEquals(3, population.countOccupants());
+        assertEquals(3, population.countOccupants(index11));
+        assertTrue(population.isFull(site11));
+        assertFalse(population.contains("D"));
+
+        assertTrue(population.place("D", index21));
+        assertTrue(population.place("E", index21));
+
+        assertEquals(site11, population.siteOf("C"));
+        assertEquals(index11, population.indexOf("C"));
+        assertEquals(-1, population.siteOf("Z"));
+        assertNull(population.indexOf("Z"));
+
+        assertEquals(Set.of("D", "E"), neighborsOf(population, "A"));
+        assertEquals(Set.of("A", "B", "C"), neighborsOf(population, "D"));
+
+        // Moving within the same site is a no-op...
+        assertTrue(population.move("A", UnitIndex.at(1, 5)));
+        assertEquals(3, population.countOccupants(site11));
+
+        assertTrue(population.move("A", index21));
+        assertEquals(2, population.countOccupants(site11));
+        assertEquals(3, population.countOccupants(site21));
+        assertFalse(population.move("B", index21));
+
+        assertEquals(Set.of("B", "C"), occupantsOf(population, site11));
+        assertEquals(Set.of("A", "D", "E"), occupantsOf(population, site21));
+
+        population.remove("D");
+
+        assertEquals(4, population.countOccupants());
+        assertEquals(Set.of("A", "E"), occupantsOf(population, site21));
+        assertFalse(population.contains("D"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMoveMissing() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        MultiPopulation<String> population = MultiPopulation.empty(lattice, 3);
+
+        population.move("A", UnitIndex.at(0, 0));
+    }
+
+    @Test public void testRandom() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.cubic(3));
+        MultiPopulation<Integer> population = MultiPopulation.empty(lattice, 4);
+        Random random = new Random(2468);
+
+        for (int trial = 0; trial < 5000; ++trial) {
+            Integer occupant = random.nextInt(100);
+
+            if (random.nextInt(3) == 0)
+                population.remove(occupant);
+            else
+                population.place(occupant, lattice.indexAt(random.nextInt((int) lattice.countSites())));
+        }
+
+        int total = 0;
+
+        for (int site = 0; site < lattice.countSites(); ++site) {
+            assertTrue(population.countOccupants(site) <= 4);
+
+            for (Integer occupant : occupantsOf(population, site))
+                assertEquals(site, population.siteOf(occupant));
+
+            total += population.countOccupants(site);
+        }
+
+        assertEquals(population.countOccupants(), total);
+    }
+
+    private static <T> Set<T> neighborsOf(MultiPopulation<T> population, T occupant) {
+        Set<T> neighbors = new HashSet<>();
+        population.forEachNeighbor(occupant, neighbors::add);
+        return neighbors;
+    }
+
+    private static <T> Set<T> occupantsOf(MultiPopulation<T> population, int site) {
+        Set<T> occupants = new HashSet<>();
+        population.forEachOccupant(site, occupants::add);
+        return occupants;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class OffHeapPopulationTest {
+    @Test public void testPlaceRemove() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(6, 7, 8));
+        OffHeapPopulation population = OffHeapPopulation.allocate(lattice);
+
+        UnitIndex index = UnitIndex.at(1, 2, 3);
+        long site = population.siteOf(index);
+
+        assertEquals(336, population.countSites());
+        assertEquals(1 + 6 * (2 + 7 * 3), site);
+        assertEquals(index, population.indexAt(site));
+        assertEquals(site, population.siteOf(UnitIndex.at(7, -5, 11)));
+
+        assertFalse(population.isOccupied(site));
+        assertEquals(OffHeapPopulation.VACANT, population.occupantAt(site));
+        assertEquals(OffHeapPopulation.VACANT, population.speciesAt(site));
+
+        assertEquals(OffHeapPopulation.VACANT, population.place(5000000000L, 2, index));
+        assertEquals(1, population.countOccupants());
+        assertEquals(5000000000L, population.occupantAt(index));
+        assertEquals(2, population.speciesAt(site));
+
+        assertEquals(5000000000L, population.place(7, 0, site));
+        assertEquals(1, population.countOccupants());
+        assertEquals(0, population.speciesAt(site));
+
+        assertEquals(7, population.remove(site));
+        assertEquals(OffHeapPopulation.VACANT, population.remove(site));
+        assertEquals(0, population.countOccupants());
+        assertFalse(population.isOccupied(index));
+    }
+
+    @Test public void testNeighbors() {
+        for (UnitCellType cellType : UnitCellType.values()) {
+            Lattice lattice = Lattice.create(cellType.fundamental(), Period.boxND(5, cellType.fundamental().dimensionality()));
+            OffHeapPopulation population = OffHeapPopulation.allocate(lattice);
+            List<UnitIndex> indexes = lattice.getPeriod().enumerate();
+
+            // Occupy every third site, with the site ordinal as the
+            // identifier...
+            for (UnitIndex index : indexes)
+                if (population.siteOf(index) % 3 == 0)
+                    population.place(population.siteOf(index), 0, index);
+
+            for (UnitIndex index : indexes) {
+                long site = population.siteOf(index);
+                List<Long> expected = new ArrayList<>();
+
+                for (UnitIndex neighbor : lattice.getUnitCell().getNeighbors(index)) {
+                    long neighborSite = population.siteOf(neighbor);
+
+                    if (neighborSite % 3 == 0)
+                        expected.add(neighborSite);
+                }
+
+                List<Long> actual = new ArrayList<>();
+                population.forEachNeighbor(site, actual::add);
+
+                assertEquals(actual, expected);
+                assertEquals(population.countNeighbors(site), expected.size());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSpecies() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.square(4));
+        OffHeapPopulation.allocate(lattice).place(1, OffHeapPopulation.MAX_SPECIES, UnitIndex.at(0, 0));
+    }
+}
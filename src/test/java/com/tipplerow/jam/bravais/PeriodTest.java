@@ -15,7 +15,9 @@
  */
 package com.tipplerow.jam.bravais;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.tipplerow.jam.collect.JamLists;
 
@@ -58,6 +60,23 @@ public class PeriodTest {
         assertEquals(6000, Period.box(10, 20, 30).countSites());
     }
 
+    @Test public void testLargeCapacity() {
+        Period period = Period.box(1300, 1300, 1300);
+
+        assertEquals(period.countSites(), 2197000000L);
+        assertEquals(period.siteCapacity(), 2197000000L);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testLargeLattice() {
+        Lattice.create(UnitCell.cubic(1.0), Period.box(1300, 1300, 1300)).siteCapacity();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLargeTiled() {
+        Period.box(SiteOrdering.TILED, 1300, 1300, 1300);
+    }
+
     @Test public void testEnumerate1() {
         Period box = Period.box(3);
         List<UnitIndex> images = box.enumerate();
@@ -160,4 +179,112 @@ public class PeriodTest {
         assertEquals(0, Period.imageOf(20, 10));
         assertEquals(1, Period.imageOf(21, 10));
     }
+
+    @Test public void testSiteOrdering() {
+        List<UnitIndex> vectors2D = List.of(UnitIndex.at(1, 0), UnitIndex.at(-1, 1), UnitIndex.at(3, -7));
+        List<UnitIndex> vectors3D = List.of(UnitIndex.at(1, 0, 0), UnitIndex.at(-1, 1, -1), UnitIndex.at(0, 9, -5));
+
+        for (SiteOrdering ordering : SiteOrdering.values()) {
+            validateOrdering(Period.box(ordering, 7), List.of(UnitIndex.at(1), UnitIndex.at(-9)));
+            validateOrdering(Period.box(ordering, 40, 37), vectors2D);
+            validateOrdering(Period.box(ordering, 5, 70), vectors2D);
+            validateOrdering(Period.box(ordering, 64, 32), vectors2D);
+            validateOrdering(Period.box(ordering, 32, 32), vectors2D);
+            validateOrdering(Period.box(ordering, 16, 16, 16), vectors3D);
+            validateOrdering(Period.box(ordering, 11, 19, 10), vectors3D);
+            validateOrdering(Period.box(ordering, 3, 1, 20), vectors3D);
+        }
+    }
+
+    private static void validateOrdering(Period period, List<UnitIndex> vectors) {
+        List<UnitIndex> images = period.enumerate();
+        Set<UnitIndex> distinct = new HashSet<>(images);
+
+        assertEquals(period.countSites(), images.size());
+        assertEquals(period.countSites(), distinct.size());
+        assertTrue(period.siteCapacity() >= period.countSites());
+
+        int prevSite = -1;
+
+        for (UnitIndex image : images) {
+            int site = period.siteOf(image);
+
+            // The images are enumerated in the order of their site
+            // ordinals, which may skip padding ordinals...
+            assertTrue(site > prevSite);
+            assertTrue(period.containsSite(site));
+            assertTrue(period.contains(image));
+            assertEquals(image, period.indexAt(site));
+
+            for (UnitIndex vector : vectors)
+                assertEquals(period.siteOf(image.plus(vector)), period.translate(site, vector));
+
+            prevSite = site;
+        }
+
+        int siteCount = 0;
+
+        for (int site = 0; site < period.siteCapacity(); ++site)
+            if (period.containsSite(site))
+                ++siteCount;
+
+        assertEquals(period.countSites(), siteCount);
+        assertFalse(period.containsSite(-1));
+        assertFalse(period.containsSite((int) period.siteCapacity()));
+    }
+
+    @Test public void testHilbertAdjacency() {
+        validateHilbertAdjacency(Period.box(SiteOrdering.HILBERT, 32, 32));
+        validateHilbertAdjacency(Period.box(SiteOrdering.HILBERT, 16, 16, 16));
+    }
+
+    private static void validateHilbertAdjacency(Period period) {
+        assertEquals(period.countSites(), period.siteCapacity());
+        List<UnitIndex> images = period.enumerate();
+
+        // Consecutive sites on the curve differ by one unit along
+        // exactly one direction...
+        for (int site = 1; site < images.size(); ++site) {
+            int distance = 0;
+
+            for (int dim = 0; dim < period.dimensionality(); ++dim)
+                distance += Math.abs(images.get(site).coord(dim) - images.get(site - 1).coord(dim));
+
+            assertEquals(1, distance);
+        }
+    }
+
+    @Test public void testMortonPadding() {
+        Period period = Period.box(SiteOrdering.MORTON, 5, 3, 2);
+
+        assertEquals(30, period.countSites());
+        assertEquals(64, period.siteCapacity());
+
+        assertEquals(0, period.siteOf(UnitIndex.at(0, 0, 0)));
+        assertEquals(1, period.siteOf(UnitIndex.at(1, 0, 0)));
+        assertEquals(2, period.siteOf(UnitIndex.at(0, 1, 0)));
+        assertEquals(4, period.siteOf(UnitIndex.at(0, 0, 1)));
+        assertEquals(8, period.siteOf(UnitIndex.at(2, 0, 0)));
+        assertEquals(32, period.siteOf(UnitIndex.at(4, 0, 0)));
+
+        // Ordinal 19 interleaves to the padding image (1, 3, 0)...
+        assertFalse(period.containsSite(19));
+    }
+
+    @Test public void testTiledLocality() {
+        Period period = Period.box(SiteOrdering.TILED, 16, 16, 16);
+        List<UnitIndex> images = period.enumerate();
+
+        assertEquals(SiteOrdering.TILED, period.ordering());
+        assertEquals(SiteOrdering.ROW_MAJOR, Period.cubic(16).ordering());
+
+        // The first brick occupies the first 512 ordinals...
+        for (int site = 0; site < 512; ++site)
+            for (int dim = 0; dim < 3; ++dim)
+                assertTrue(images.get(site).coord(dim) < 8);
+
+        // Neighbors along the z-direction are 64 sites apart within
+        // a brick (not 256 as in the row-major order)...
+        assertEquals(64, period.siteOf(UnitIndex.at(1, 1, 2)) - period.siteOf(UnitIndex.at(1, 1, 1)));
+    }
 }
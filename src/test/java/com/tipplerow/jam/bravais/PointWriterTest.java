@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class PointWriterTest {
+    private static final PointCloud CLOUD =
+        PointCloud.of(new double[] { 0.0, -1.25, 1234.5, -0.0000004 },
+                      new double[] { 1.0 / 3.0, 2.0, -7.0, 1.0E20 });
+
+    @Test public void testBinary() throws IOException {
+        Path path = Files.createTempFile("points", ".bin");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            PointWriter writer = PointWriter.binary(channel);
+            writer.write(CLOUD, 0, 1);
+            writer.write(CLOUD, 1, 4);
+            writer.flush();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        Files.delete(path);
+
+        assertEquals(buffer.remaining(), 64);
+
+        for (int point = 0; point < 4; ++point)
+            for (int dim = 0; dim < 2; ++dim)
+                assertEquals(buffer.getDouble(), CLOUD.coord(point, dim));
+    }
+
+    @Test public void testCSV() throws IOException {
+        Path path = Files.createTempFile("points", ".csv");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            PointWriter writer = PointWriter.csv(channel, 3);
+            writer.write(CLOUD);
+            writer.flush();
+        }
+
+        String text = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII);
+        Files.delete(path);
+
+        assertEquals(text, "x,y\n0.000,0.333\n-1.250,2.000\n1234.500,-7.000\n0.000,1.0E20\n");
+    }
+
+    @Test public void testLargeCSV() throws IOException {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(20, 20, 20));
+        PointCloud cloud = PointCloud.zeros(3, (int) lattice.countSites());
+        lattice.exportPoints(cloud);
+
+        Path path = Files.createTempFile("points", ".csv");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            PointWriter writer = PointWriter.csv(channel, 2);
+            writer.write(cloud);
+            writer.flush();
+        }
+
+        var lines = Files.readAllLines(path);
+        Files.delete(path);
+
+        assertEquals(lines.size(), cloud.size() + 1);
+
+        for (int point = 0; point < cloud.size(); point += 97) {
+            String[] fields = lines.get(point + 1).split(",");
+
+            for (int dim = 0; dim < 3; ++dim)
+                assertEquals(Double.parseDouble(fields[dim]), cloud.coord(point, dim), 0.005);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDimensionality() throws IOException {
+        Path path = Files.createTempFile("points", ".bin");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+            PointWriter writer = PointWriter.binary(channel);
+            writer.write(CLOUD);
+            writer.write(PointCloud.zeros(3, 1));
+        }
+    }
+}
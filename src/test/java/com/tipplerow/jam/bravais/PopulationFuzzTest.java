@@ -0,0 +1,717 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+/**
+ * Differential fuzz tests: drives alternative population backends
+ * and the reference {@code Population} through the same random
+ * operation sequences on every unit cell type and site ordering, and
+ * compares every result and the complete population state after each
+ * operation.  A failing sequence is shrunk to a minimal failing case
+ * before it is reported.
+ *
+ * <p>A new backend is covered by writing a {@code Backend} adapter
+ * and passing its factory to {@code assertEquivalent()}.
+ */
+public class PopulationFuzzTest {
+    private static final int SEQUENCES = 4;
+    private static final int SEQUENCE_LENGTH = 250;
+
+    @Test public void testIntPopulation() {
+        assertEquivalent("IntPopulation", IntBackend::new);
+    }
+
+    @Test public void testMappedPopulation() {
+        assertEquivalent("MappedPopulation", MappedBackend::new);
+    }
+
+    @Test public void testOffHeapPopulation() {
+        assertEquivalent("OffHeapPopulation", OffHeapBackend::new);
+    }
+
+    @Test public void testShrink() {
+        // A backend that validates a swap but never performs it is
+        // caught, and the failing sequence shrinks to two placements
+        // and the swap...
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 5));
+        Harness harness = new Harness(lattice, (lat, range) -> new ReferenceBackend(lat) {
+                @Override public void swap(int occ1, int occ2) {
+                    if (indexOf(occ1) == null || indexOf(occ2) == null)
+                        super.swap(occ1, occ2);
+                }
+            });
+
+        List<Op> failure = null;
+
+        for (int seed = 0; failure == null && seed < 100; ++seed)
+            failure = harness.findFailure(seed);
+
+        assertNotNull(failure);
+        assertEquals(failure.size(), 3);
+        assertEquals(failure.get(2).kind, Kind.SWAP);
+        assertTrue(failure.get(2).occ1 != failure.get(2).occ2);
+    }
+
+    @Test public void testSpeciesPopulation() {
+        assertEquivalent("SpeciesPopulation", SpeciesBackend::new);
+    }
+
+    private static void assertEquivalent(String name, BiFunction<Lattice, Integer, Backend> factory) {
+        for (UnitCellType type : UnitCellType.values()) {
+            UnitCell unitCell = type.fundamental();
+
+            for (SiteOrdering ordering : SiteOrdering.values()) {
+                Lattice lattice = Lattice.create(unitCell, smallPeriod(unitCell.dimensionality()).withOrdering(ordering));
+                Harness harness = new Harness(lattice, factory);
+
+                for (int seed = 0; seed < SEQUENCES; ++seed) {
+                    List<Op> failure = harness.findFailure(seed);
+
+                    if (failure != null)
+                        fail(String.format("%s differs from Population on %s/%s: %s after %s",
+                                           name, type, ordering, harness.mismatch(failure), failure));
+                }
+            }
+        }
+    }
+
+    private static Period smallPeriod(int dimensionality) {
+        switch (dimensionality) {
+        case 1:
+            return Period.box(9);
+
+        case 2:
+            return Period.box(5, 4);
+
+        default:
+            return Period.box(3, 4, 3);
+        }
+    }
+
+    private enum Kind { PLACE, REMOVE, SWAP, REPLACE, FILL }
+
+    private static final class Op {
+        private final Kind kind;
+        private final int occ1;
+        private final int occ2;
+        private final UnitIndex index;
+
+        private Op(Kind kind, int occ1, int occ2, UnitIndex index) {
+            this.kind = kind;
+            this.occ1 = occ1;
+            this.occ2 = occ2;
+            this.index = index;
+        }
+
+        @Override public String toString() {
+            switch (kind) {
+            case PLACE:
+                return "place(" + occ1 + ", " + index + ")";
+
+            case REMOVE:
+                return "remove(" + occ1 + ")";
+
+            case FILL:
+                return "fill(" + occ1 + "...)";
+
+            default:
+                return kind.name().toLowerCase() + "(" + occ1 + ", " + occ2 + ")";
+            }
+        }
+    }
+
+    /**
+     * Common interface for the populations under test.  Occupants are
+     * non-negative integers; vacancies are reported as {@code null}.
+     */
+    private interface Backend {
+        Set<Kind> supported();
+
+        Integer place(int occupant, UnitIndex index);
+
+        void remove(int occupant);
+
+        void swap(int occ1, int occ2);
+
+        void replace(int oldOccupant, int newOccupant);
+
+        // Populations without a bulk fill place the occupants in the
+        // order of the period enumeration, which is equivalent...
+        default void fill(List<Integer> occupants, List<UnitIndex> images) {
+            for (int k = 0; k < occupants.size(); ++k)
+                place(occupants.get(k), images.get(k));
+        }
+
+        int countOccupants();
+
+        UnitIndex indexOf(int occupant);
+
+        List<Integer> neighborsOf(int occupant);
+
+        Integer occupantAt(UnitIndex index);
+
+        // Releases any resources held by the backend...
+        default void close() {
+        }
+    }
+
+    private static class ReferenceBackend implements Backend {
+        private final Population<Integer> population;
+
+        ReferenceBackend(Lattice lattice) {
+            this.population = Population.empty(lattice);
+        }
+
+        @Override public Set<Kind> supported() {
+            return EnumSet.allOf(Kind.class);
+        }
+
+        @Override public Integer place(int occupant, UnitIndex index) {
+            return population.place(occupant, index);
+        }
+
+        @Override public void remove(int occupant) {
+            population.remove(occupant);
+        }
+
+        @Override public void swap(int occ1, int occ2) {
+            population.swap(occ1, occ2);
+        }
+
+        @Override public void replace(int oldOccupant, int newOccupant) {
+            population.replace(oldOccupant, newOccupant);
+        }
+
+        @Override public void fill(List<Integer> occupants, List<UnitIndex> images) {
+            population.fill(occupants);
+        }
+
+        @Override public int countOccupants() {
+            return population.countOccupants();
+        }
+
+        @Override public UnitIndex indexOf(int occupant) {
+            return population.indexOf(occupant);
+        }
+
+        @Override public List<Integer> neighborsOf(int occupant) {
+            return population.neighborsOf(occupant);
+        }
+
+        @Override public Integer occupantAt(UnitIndex index) {
+            return population.occupantAt(index);
+        }
+    }
+
+    private static final class IntBackend implements Backend {
+        private final IntPopulation population;
+
+        IntBackend(Lattice lattice, int occupantRange) {
+            this.population = IntPopulation.empty(lattice, occupantRange);
+        }
+
+        @Override public Set<Kind> supported() {
+            return EnumSet.allOf(Kind.class);
+        }
+
+        @Override public Integer place(int occupant, UnitIndex index) {
+            return vacantAsNull(population.place(occupant, index));
+        }
+
+        @Override public void remove(int occupant) {
+            population.remove(occupant);
+        }
+
+        @Override public void swap(int occ1, int occ2) {
+            population.swap(occ1, occ2);
+        }
+
+        @Override public void replace(int oldOccupant, int newOccupant) {
+            population.replace(oldOccupant, newOccupant);
+        }
+
+        @Override public int countOccupants() {
+            return population.countOccupants();
+        }
+
+        @Override public UnitIndex indexOf(int occupant) {
+            return population.indexOf(occupant);
+        }
+
+        @Override public List<Integer> neighborsOf(int occupant) {
+            List<Integer> neighbors = new ArrayList<>();
+            population.neighborsOf(occupant, neighbors::add);
+            return neighbors;
+        }
+
+        @Override public Integer occupantAt(UnitIndex index) {
+            return vacantAsNull(population.occupantAt(index));
+        }
+
+        private static Integer vacantAsNull(int occupant) {
+            return (occupant == IntPopulation.VACANT) ? null : occupant;
+        }
+    }
+
+    private static final class SpeciesBackend implements Backend {
+        private final SpeciesPopulation<Integer> population;
+
+        SpeciesBackend(Lattice lattice, int occupantRange) {
+            this.population = SpeciesPopulation.empty(lattice, 2);
+        }
+
+        @Override public Set<Kind> supported() {
+            return EnumSet.of(Kind.PLACE, Kind.REMOVE, Kind.FILL);
+        }
+
+        @Override public Integer place(int occupant, UnitIndex index) {
+            return population.place(occupant, occupant % 2, index);
+        }
+
+        @Override public void remove(int occupant) {
+            population.remove(occupant);
+        }
+
+        @Override public void swap(int occ1, int occ2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public void replace(int oldOccupant, int newOccupant) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public int countOccupants() {
+            return population.countOccupants();
+        }
+
+        @Override public UnitIndex indexOf(int occupant) {
+            return population.indexOf(occupant);
+        }
+
+        @Override public List<Integer> neighborsOf(int occupant) {
+            List<Integer> neighbors = new ArrayList<>();
+            UnitIndex index = population.indexOf(occupant);
+
+            if (index != null)
+                for (int species = 0; species < population.countSpecies(); ++species)
+                    population.forEachNeighbor(index, species, neighbors::add);
+
+            return neighbors;
+        }
+
+        @Override public Integer occupantAt(UnitIndex index) {
+            return population.occupantAt(index);
+        }
+    }
+
+    /**
+     * Adapts populations that store (not necessarily unique) long
+     * identifiers by site: the adapter tracks the site of each
+     * occupant, so that placing an occupant moves it, as it does in
+     * the reference population.  Swaps and replacements would be
+     * composed entirely in the adapter, so they are not generated.
+     */
+    private abstract static class SiteBackend implements Backend {
+        private final Lattice lattice;
+        private final Map<Integer, UnitIndex> indexMap = new HashMap<>();
+
+        SiteBackend(Lattice lattice) {
+            this.lattice = lattice;
+        }
+
+        abstract long placeAt(int occupant, UnitIndex index);
+
+        abstract void removeAt(UnitIndex index);
+
+        abstract long occupantAtSite(UnitIndex index);
+
+        abstract List<Integer> neighborsAt(UnitIndex index);
+
+        @Override public Set<Kind> supported() {
+            return EnumSet.of(Kind.PLACE, Kind.REMOVE, Kind.FILL);
+        }
+
+        @Override public Integer place(int occupant, UnitIndex index) {
+            UnitIndex prevIndex = indexMap.get(occupant);
+
+            if (prevIndex != null && !lattice.imageOf(prevIndex).equals(lattice.imageOf(index)))
+                removeAt(prevIndex);
+
+            Integer prevOcc = vacantAsNull(placeAt(occupant, index));
+
+            if (prevOcc != null && prevOcc != occupant)
+                indexMap.remove(prevOcc);
+
+            indexMap.put(occupant, index);
+            return prevOcc;
+        }
+
+        @Override public void remove(int occupant) {
+            UnitIndex index = indexMap.remove(occupant);
+
+            if (index != null)
+                removeAt(index);
+        }
+
+        @Override public void swap(int occ1, int occ2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public void replace(int oldOccupant, int newOccupant) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override public UnitIndex indexOf(int occupant) {
+            return indexMap.get(occupant);
+        }
+
+        @Override public List<Integer> neighborsOf(int occupant) {
+            UnitIndex index = indexMap.get(occupant);
+
+            if (index != null)
+                return neighborsAt(index);
+            else
+                return Collections.emptyList();
+        }
+
+        @Override public Integer occupantAt(UnitIndex index) {
+            return vacantAsNull(occupantAtSite(index));
+        }
+
+        // Both site-based populations use -1 for vacant sites...
+        private static Integer vacantAsNull(long occupant) {
+            return (occupant < 0) ? null : Math.toIntExact(occupant);
+        }
+    }
+
+    private static final class OffHeapBackend extends SiteBackend {
+        private final OffHeapPopulation population;
+
+        OffHeapBackend(Lattice lattice, int occupantRange) {
+            super(lattice);
+            this.population = OffHeapPopulation.allocate(lattice);
+        }
+
+        @Override long placeAt(int occupant, UnitIndex index) {
+            return population.place(occupant, occupant % 2, index);
+        }
+
+        @Override void removeAt(UnitIndex index) {
+            population.remove(population.siteOf(index));
+        }
+
+        @Override long occupantAtSite(UnitIndex index) {
+            return population.occupantAt(index);
+        }
+
+        @Override List<Integer> neighborsAt(UnitIndex index) {
+            List<Integer> neighbors = new ArrayList<>();
+            population.forEachNeighbor(population.siteOf(index), neighbor -> neighbors.add(Math.toIntExact(neighbor)));
+            return neighbors;
+        }
+
+        @Override public int countOccupants() {
+            return Math.toIntExact(population.countOccupants());
+        }
+    }
+
+    private static final class MappedBackend extends SiteBackend {
+        private final Path path;
+        private final MappedPopulation population;
+
+        MappedBackend(Lattice lattice, int occupantRange) {
+            super(lattice);
+
+            try {
+                this.path = Files.createTempFile("population", ".map");
+                this.population = MappedPopulation.create(lattice, path);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override long placeAt(int occupant, UnitIndex index) {
+            return population.place(occupant, index);
+        }
+
+        @Override void removeAt(UnitIndex index) {
+            population.remove(index);
+        }
+
+        @Override long occupantAtSite(UnitIndex index) {
+            return population.occupantAt(index);
+        }
+
+        @Override List<Integer> neighborsAt(UnitIndex index) {
+            List<Integer> neighbors = new ArrayList<>();
+
+            for (long neighbor : population.neighborsOf(index))
+                neighbors.add(Math.toIntExact(neighbor));
+
+            return neighbors;
+        }
+
+        @Override public int countOccupants() {
+            return Math.toIntExact(population.countOccupants());
+        }
+
+        @Override public void close() {
+            try {
+                population.close();
+                Files.delete(path);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Generates, replays, and shrinks operation sequences for one
+     * lattice and one candidate backend.
+     */
+    private static final class Harness {
+        private final Lattice lattice;
+        private final BiFunction<Lattice, Integer, Backend> factory;
+        private final List<UnitIndex> images;
+        private final int occupantRange;
+
+        private Harness(Lattice lattice, BiFunction<Lattice, Integer, Backend> factory) {
+            this.lattice = lattice;
+            this.factory = factory;
+            this.images = lattice.getPeriod().enumerate();
+            this.occupantRange = 2 * images.size();
+        }
+
+        // Returns a minimal failing sequence, or null if the sequence
+        // generated from the seed passes...
+        private List<Op> findFailure(long seed) {
+            List<Op> ops = generate(new Random(seed));
+
+            if (mismatch(ops) == null)
+                return null;
+            else
+                return shrink(ops);
+        }
+
+        private List<Op> generate(Random random) {
+            Backend backend = factory.apply(lattice, occupantRange);
+            Set<Kind> supported = backend.supported();
+            backend.close();
+
+            Kind[] kinds = supported.toArray(new Kind[0]);
+            List<Op> ops = new ArrayList<>(SEQUENCE_LENGTH);
+
+            while (ops.size() < SEQUENCE_LENGTH) {
+                Kind kind = kinds[random.nextInt(kinds.length)];
+
+                // Keep bulk fills rare so that vacancies persist...
+                if (kind == Kind.FILL && random.nextInt(20) != 0)
+                    continue;
+
+                ops.add(new Op(kind, random.nextInt(occupantRange), random.nextInt(occupantRange), randomIndex(random)));
+            }
+
+            return ops;
+        }
+
+        // Absolute indexes within one period of the primary box, to
+        // exercise the periodic boundary conditions...
+        private UnitIndex randomIndex(Random random) {
+            Period period = lattice.getPeriod();
+            int[] coords = new int[period.dimensionality()];
+
+            for (int dim = 0; dim < coords.length; ++dim)
+                coords[dim] = random.nextInt(3 * period.period(dim)) - period.period(dim);
+
+            switch (coords.length) {
+            case 1:
+                return UnitIndex.at(coords[0]);
+
+            case 2:
+                return UnitIndex.at(coords[0], coords[1]);
+
+            default:
+                return UnitIndex.at(coords[0], coords[1], coords[2]);
+            }
+        }
+
+        // Removes ever smaller blocks of operations while the sequence
+        // still fails, until no single operation can be removed...
+        private List<Op> shrink(List<Op> ops) {
+            int block = Math.max(1, ops.size() / 2);
+
+            while (true) {
+                boolean removed = false;
+
+                for (int from = 0; from < ops.size(); ) {
+                    List<Op> trial = new ArrayList<>(ops.subList(0, from));
+                    trial.addAll(ops.subList(Math.min(ops.size(), from + block), ops.size()));
+
+                    if (mismatch(trial) != null) {
+                        ops = trial;
+                        removed = true;
+                    }
+                    else {
+                        from += block;
+                    }
+                }
+
+                if (removed)
+                    continue;
+
+                if (block == 1)
+                    return ops;
+
+                block /= 2;
+            }
+        }
+
+        // Replays a sequence on fresh populations and describes the
+        // first difference (null if there is none)...
+        private String mismatch(List<Op> ops) {
+            Backend reference = new ReferenceBackend(lattice);
+            Backend candidate = factory.apply(lattice, occupantRange);
+
+            try {
+                return mismatch(ops, reference, candidate);
+            }
+            finally {
+                candidate.close();
+            }
+        }
+
+        private String mismatch(List<Op> ops, Backend reference, Backend candidate) {
+            for (int k = 0; k < ops.size(); ++k) {
+                Op op = ops.get(k);
+                String expected = apply(reference, op);
+                String actual = apply(candidate, op);
+
+                if (!expected.equals(actual))
+                    return String.format("op %d returned [%s], expected [%s]", k, actual, expected);
+
+                String difference = compareState(reference, candidate);
+
+                if (difference != null)
+                    return String.format("after op %d, %s", k, difference);
+            }
+
+            return null;
+        }
+
+        private String apply(Backend backend, Op op) {
+            try {
+                switch (op.kind) {
+                case PLACE:
+                    return String.valueOf(backend.place(op.occ1, op.index));
+
+                case REMOVE:
+                    backend.remove(op.occ1);
+                    break;
+
+                case SWAP:
+                    backend.swap(op.occ1, op.occ2);
+                    break;
+
+                case REPLACE:
+                    backend.replace(op.occ1, op.occ2);
+                    break;
+
+                case FILL:
+                    backend.fill(fillOccupants(op.occ1), images);
+                    break;
+
+                default:
+                    throw new IllegalStateException();
+                }
+
+                return "ok";
+            }
+            catch (RuntimeException ex) {
+                return ex.getClass().getSimpleName();
+            }
+        }
+
+        // Distinct occupants, starting from an arbitrary identifier...
+        private List<Integer> fillOccupants(int first) {
+            List<Integer> occupants = new ArrayList<>(images.size());
+
+            for (int k = 0; k < images.size(); ++k)
+                occupants.add((first + k) % occupantRange);
+
+            return occupants;
+        }
+
+        private String compareState(Backend reference, Backend candidate) {
+            if (reference.countOccupants() != candidate.countOccupants())
+                return String.format("countOccupants() = %d, expected %d",
+                                     candidate.countOccupants(), reference.countOccupants());
+
+            for (UnitIndex image : images) {
+                Integer expected = reference.occupantAt(image);
+                Integer actual = candidate.occupantAt(image);
+
+                if (expected == null ? actual != null : !expected.equals(actual))
+                    return String.format("occupantAt(%s) = %s, expected %s", image, actual, expected);
+            }
+
+            // Backends may report absolute indexes or periodic images...
+            for (int occupant = 0; occupant < occupantRange; ++occupant) {
+                UnitIndex expected = imageOf(reference.indexOf(occupant));
+                UnitIndex actual = imageOf(candidate.indexOf(occupant));
+
+                if (expected == null ? actual != null : !expected.equals(actual))
+                    return String.format("indexOf(%d) = %s, expected %s", occupant, actual, expected);
+
+                List<Integer> expectedNeighbors = sorted(reference.neighborsOf(occupant));
+                List<Integer> actualNeighbors = sorted(candidate.neighborsOf(occupant));
+
+                if (!expectedNeighbors.equals(actualNeighbors))
+                    return String.format("neighborsOf(%d) = %s, expected %s", occupant, actualNeighbors, expectedNeighbors);
+            }
+
+            return null;
+        }
+
+        private UnitIndex imageOf(UnitIndex index) {
+            return (index == null) ? null : lattice.imageOf(index);
+        }
+
+        private static List<Integer> sorted(List<Integer> list) {
+            List<Integer> sorted = new ArrayList<>(list);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+}
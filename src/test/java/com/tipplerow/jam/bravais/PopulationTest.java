@@ -15,7 +15,12 @@
  */
 package com.tipplerow.jam.bravais;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.tipplerow.jam.math.Point;
 
@@ -559,6 +564,187 @@ public class PopulationTest {
         population.fill(occupants);
     }
 
+    @Test public void testExportPoints() {
+        Lattice lattice = Lattice.create(UnitCell.BCC(2.0), Period.box(4, 5, 6));
+        Population<Integer> population = Population.empty(lattice);
+        Random random = new Random(20211124);
+
+        for (int k = 0; k < 50; ++k)
+            population.place(k, UnitIndex.at(random.nextInt(20) - 10, random.nextInt(20) - 10, random.nextInt(20) - 10));
+
+        PointCloud cloud = PointCloud.zeros(3, population.countOccupants());
+        List<Integer> order = new ArrayList<>();
+
+        assertEquals(population.exportPoints(cloud, order::add), population.countOccupants());
+        assertEquals(order, population.listOccupants());
+
+        var pointMap = population.mapPoints();
+
+        for (int k = 0; k < order.size(); ++k)
+            assertEquals(cloud.pointAt(k), pointMap.get(order.get(k)));
+    }
+
+    @Test public void testIngestKeepFirst() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 4));
+        Population<String> population = Population.empty(lattice);
+
+        population.place("X", UnitIndex.at(3, 3));
+
+        // Point B collides with A, and point D collides with X (in a
+        // periodic image)...
+        PointCloud cloud = PointCloud.of(new double[] { 1.1, 0.9, 1.2, 2.8, 5.0 },
+                                         new double[] { 2.0, 2.1, 4.9, 7.1, 0.0 });
+
+        IngestReport report = population.ingest(List.of("A", "B", "C", "D", "E"), cloud, CollisionPolicy.KEEP_FIRST);
+
+        assertEquals(report.getPlaced(), 3);
+        assertEquals(report.getDisplaced(), 0);
+        assertEquals(report.getEvicted(), 0);
+        assertEquals(report.listCollisions(), new int[] { 1, 3 });
+        assertEquals(report.listDropped(), new int[] { 1, 3 });
+
+        assertEquals(population.countOccupants(), 4);
+        assertEquals(population.indexOf("A"), UnitIndex.at(1, 2));
+        assertEquals(population.indexOf("C"), UnitIndex.at(1, 5));
+        assertEquals(population.indexOf("E"), UnitIndex.at(5, 0));
+        assertEquals(population.occupantAt(UnitIndex.at(3, 3)), "X");
+        assertFalse(population.contains("B"));
+        assertFalse(population.contains("D"));
+    }
+
+    @Test public void testIngestDuplicate() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 4));
+        Population<String> population = Population.empty(lattice);
+        PointCloud cloud = PointCloud.of(new double[] { 0.0, 1.0, 2.0 },
+                                         new double[] { 0.0, 1.0, 2.0 });
+
+        try {
+            population.ingest(List.of("A", "B", "A"), cloud, CollisionPolicy.KEEP_FIRST);
+            fail("Duplicate occupants were accepted.");
+        }
+        catch (IllegalArgumentException ex) {
+            // Nothing is placed when the input is rejected...
+            assertTrue(population.isEmpty());
+        }
+    }
+
+    @Test public void testIngestKeepLast() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(4, 4));
+        Population<String> population = Population.empty(lattice);
+
+        population.place("X", UnitIndex.at(3, 3));
+
+        PointCloud cloud = PointCloud.of(new double[] { 1.1, 0.9, 2.8, 5.0 },
+                                         new double[] { 2.0, 2.1, 7.1, 0.0 });
+
+        IngestReport report = population.ingest(List.of("A", "B", "D", "E"), cloud, CollisionPolicy.KEEP_LAST);
+
+        assertEquals(report.getPlaced(), 3);
+        assertEquals(report.getEvicted(), 1);
+        assertEquals(report.listCollisions(), new int[] { 0 });
+        assertEquals(report.listDropped(), new int[] { 0 });
+
+        assertEquals(population.countOccupants(), 3);
+        assertEquals(population.occupantAt(UnitIndex.at(1, 2)), "B");
+        assertEquals(population.occupantAt(UnitIndex.at(3, 3)), "D");
+        assertFalse(population.contains("X"));
+    }
+
+    @Test public void testIngestDisplace() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(3, 3));
+        Population<Integer> population = Population.empty(lattice);
+
+        // Ten points on a nine-site lattice, all at the same site...
+        int count = 10;
+        List<Integer> occupants = new ArrayList<>();
+        PointCloud cloud = PointCloud.zeros(2, count);
+
+        for (int k = 0; k < count; ++k) {
+            occupants.add(k);
+            cloud.viewCoords(0)[k] = 1.0;
+            cloud.viewCoords(1)[k] = 1.0;
+        }
+
+        IngestReport report = population.ingest(occupants, cloud, CollisionPolicy.DISPLACE);
+
+        assertEquals(report.getPlaced(), 9);
+        assertEquals(report.getDisplaced(), 8);
+        assertEquals(report.countCollisions(), 9);
+        assertEquals(report.listDropped(), new int[] { 9 });
+        assertTrue(population.isFull());
+        assertEquals(population.indexOf(0), UnitIndex.at(1, 1));
+
+        // The first displaced points occupy the nearest neighbors...
+        for (int k = 1; k <= 4; ++k)
+            assertTrue(lattice.getUnitCell().getNeighbors(UnitIndex.at(1, 1)).contains(population.indexOf(k)));
+    }
+
+    @Test public void testIngestDisplaceOccupied() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 5));
+        Population<String> population = Population.empty(lattice);
+
+        // Occupy a site and its nearest neighbors...
+        population.place("X", UnitIndex.at(2, 2));
+
+        for (UnitIndex neighbor : lattice.getUnitCell().getNeighbors(UnitIndex.at(2, 2)))
+            population.place("N" + population.countOccupants(), neighbor);
+
+        PointCloud cloud = PointCloud.of(new double[] { 2.0, 2.1, 1.9 },
+                                         new double[] { 2.0, 1.9, 2.1 });
+
+        IngestReport report = population.ingest(List.of("A", "B", "C"), cloud, CollisionPolicy.DISPLACE);
+
+        assertEquals(report.getPlaced(), 3);
+        assertEquals(report.getDisplaced(), 3);
+        assertEquals(population.countOccupants(), 8);
+        assertEquals(population.occupantAt(UnitIndex.at(2, 2)), "X");
+
+        // The displaced points land in the second shell...
+        for (String occupant : List.of("A", "B", "C")) {
+            UnitIndex index = population.indexOf(occupant);
+            int distance = Math.abs(index.coord(0) - 2) + Math.abs(index.coord(1) - 2);
+            assertEquals(distance, 2);
+        }
+    }
+
+    @Test public void testIngestParallel() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.box(40, 40, 40));
+        Random random = new Random(20211117);
+
+        int count = 200000;
+        List<Integer> occupants = new ArrayList<>();
+        PointCloud cloud = PointCloud.zeros(3, count);
+
+        for (int k = 0; k < count; ++k) {
+            occupants.add(k);
+
+            for (int dim = 0; dim < 3; ++dim)
+                cloud.viewCoords(dim)[k] = 40.0 * random.nextDouble();
+        }
+
+        Population<Integer> serial = Population.empty(lattice);
+        Population<Integer> parallel = Population.empty(lattice);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        IngestReport serialReport = serial.ingest(occupants, cloud, CollisionPolicy.KEEP_FIRST);
+        IngestReport parallelReport = parallel.ingest(occupants, cloud, CollisionPolicy.KEEP_FIRST, executor);
+
+        executor.shutdown();
+
+        assertTrue(serialReport.countCollisions() > 0);
+        assertEquals(parallelReport.listDropped(), serialReport.listDropped());
+        assertEquals(parallel.countOccupants(), count - serialReport.countDropped());
+
+        for (int k = 0; k < count; k += 101) {
+            assertEquals(parallel.indexOf(k), serial.indexOf(k));
+
+            // Points are snapped to their nearest site...
+            if (parallel.contains(k))
+                assertEquals(parallel.indexOf(k), lattice.getUnitCell().nearestIndex(cloud.pointAt(k)));
+        }
+    }
+
     @Test public void testUnoccupiedNeighbors() {
         Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
         Population<String> population = Population.empty(lattice);
@@ -612,4 +798,82 @@ public class PopulationTest {
         assertEquals(List.of("C", "E"), population.neighborsOf("D"));
         assertEquals(List.of("D", "A"), population.neighborsOf("E"));
     }
+
+    @Test public void testFrontier() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        Population<String> population = Population.empty(lattice);
+
+        assertEquals(0, population.countFrontier());
+        assertNull(population.selectFrontier(new Random(1)));
+
+        population.place("A", UnitIndex.at(1, 1));
+        population.place("B", UnitIndex.at(2, 1));
+        population.place("C", UnitIndex.at(1, 0));
+        population.place("D", UnitIndex.at(1, 2));
+
+        assertEquals(4, population.countFrontier());
+
+        // Surround "A" completely...
+        population.place("E", UnitIndex.at(0, 1));
+
+        assertEquals(4, population.countFrontier());
+        assertFalse(population.isFrontier("A"));
+        assertTrue(population.isFrontier("E"));
+
+        // Vacate a neighbor of "A" by moving "B"...
+        population.place("B", UnitIndex.at(3, 3));
+
+        assertTrue(population.isFrontier("A"));
+        assertEquals(5, population.countFrontier());
+
+        // Refill the vacancy through a periodic image...
+        population.place("F", UnitIndex.at(-3, 5));
+
+        assertFalse(population.isFrontier("A"));
+
+        population.remove("F");
+
+        assertTrue(population.isFrontier("A"));
+        assertFalse(population.isFrontier("F"));
+        assertEquals(5, population.countFrontier());
+    }
+
+    @Test public void testFrontierRandom() {
+        Random random = new Random(20210811);
+
+        for (UnitCellType cellType : UnitCellType.values()) {
+            UnitCell unitCell = cellType.fundamental();
+            Lattice lattice = Lattice.create(unitCell, Period.boxND(5, unitCell.dimensionality()));
+            Population<Integer> population = Population.empty(lattice);
+            List<UnitIndex> sites = lattice.getPeriod().enumerate();
+
+            // Build the frontier before the population changes...
+            assertEquals(0, population.countFrontier());
+
+            for (int trial = 0; trial < 2000; ++trial) {
+                Integer occupant = random.nextInt(40);
+
+                if (random.nextInt(4) == 0)
+                    population.remove(occupant);
+                else
+                    population.place(occupant, sites.get(random.nextInt(sites.size())));
+
+                if (trial % 50 == 0)
+                    assertFrontier(population);
+            }
+
+            assertFrontier(population);
+        }
+    }
+
+    private static <T> void assertFrontier(Population<T> population) {
+        HashSet<T> expected = new HashSet<>();
+
+        for (T occupant : population.listOccupants())
+            if (!population.unoccupiedNeighbors(population.indexOf(occupant)).isEmpty())
+                expected.add(occupant);
+
+        assertEquals(new HashSet<>(population.viewFrontier()), expected);
+        assertEquals(population.countFrontier(), expected.size());
+    }
 }
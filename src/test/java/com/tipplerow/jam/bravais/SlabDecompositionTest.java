@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class SlabDecompositionTest {
+    // Moves every occupant to a randomly selected neighbor (if the
+    // neighbor is vacant)...
+    private static final SlabKernel<Integer> RANDOM_WALK = slab ->
+        slab.forEachOccupied(index -> {
+                UnitIndex target = slab.neighborOf(index, slab.getRandom().nextInt(slab.countNeighbors()));
+                slab.move(index, target);
+            });
+
+    private static Population<Integer> createPopulation(UnitCell unitCell, int period, double density) {
+        Lattice lattice = Lattice.create(unitCell, Period.boxND(period, unitCell.dimensionality()));
+        Population<Integer> population = Population.empty(lattice);
+        List<UnitIndex> indexes = lattice.getPeriod().enumerate();
+        long count = Math.round(density * lattice.countSites());
+
+        Collections.shuffle(indexes, new Random(1357));
+
+        for (int occupant = 0; occupant < count; ++occupant)
+            population.place(occupant, indexes.get(occupant));
+
+        return population;
+    }
+
+    private static Map<Integer, UnitIndex> walk(Population<Integer> population, int slabCount, int threadCount, int stepCount) {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            SlabDecomposition<Integer> decomposition = SlabDecomposition.create(population, slabCount, 2468);
+
+            for (int step = 0; step < stepCount; ++step)
+                decomposition.step(RANDOM_WALK, executor);
+
+            assertEquals(stepCount, decomposition.countSteps());
+            assertEquals(population.countOccupants(), decomposition.countOccupants());
+
+            Population<Integer> result = decomposition.toPopulation();
+            assertEquals(population.countOccupants(), result.countOccupants());
+
+            Set<UnitIndex> images = new HashSet<>();
+            Map<Integer, UnitIndex> indexMap = new HashMap<>();
+
+            for (Integer occupant : result.listOccupants()) {
+                UnitIndex index = result.indexOf(occupant);
+
+                assertTrue(images.add(result.getLattice().imageOf(index)));
+                indexMap.put(occupant, index);
+            }
+
+            return indexMap;
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test public void testRandomWalk() {
+        for (UnitCellType cellType : UnitCellType.values()) {
+            Population<Integer> population = createPopulation(cellType.fundamental(), 12, 0.2);
+            Map<Integer, UnitIndex> indexMap = walk(population, 4, 4, 20);
+
+            // The occupants are conserved and have moved...
+            assertEquals(population.countOccupants(), indexMap.size());
+
+            int moved = 0;
+
+            for (Integer occupant : population.listOccupants())
+                if (!indexMap.get(occupant).equals(population.indexOf(occupant)))
+                    ++moved;
+
+            assertTrue(moved > population.countOccupants() / 2);
+        }
+    }
+
+    @Test public void testDeterminism() {
+        Population<Integer> population = createPopulation(UnitCell.FCC(1.0), 16, 0.25);
+
+        Map<Integer, UnitIndex> serial = walk(population, 4, 1, 10);
+        Map<Integer, UnitIndex> parallel = walk(population, 4, 3, 10);
+
+        assertEquals(parallel, serial);
+    }
+
+    @Test public void testHalo() {
+        Lattice lattice = Lattice.create(UnitCell.cubic(1.0), Period.cubic(8));
+        Population<Integer> population = Population.empty(lattice);
+
+        population.place(1, UnitIndex.at(2, 3, 7));
+        population.place(2, UnitIndex.at(4, 5, 2));
+
+        SlabDecomposition<Integer> decomposition = SlabDecomposition.create(population, 4, 1);
+        Slab<Integer> slab0 = decomposition.getSlab(0);
+        Slab<Integer> slab3 = decomposition.getSlab(3);
+
+        assertEquals(2, decomposition.getAxis());
+        assertEquals(1, decomposition.getHaloDepth());
+        assertEquals(0, slab0.getLower());
+        assertEquals(2, slab0.getUpper());
+        assertEquals(3, decomposition.ownerOf(UnitIndex.at(0, 0, 7)));
+        assertEquals(0, decomposition.ownerOf(UnitIndex.at(0, 0, 8)));
+
+        // The halo of the first slab wraps around the periodic
+        // boundary to the last slab...
+        assertFalse(slab0.owns(UnitIndex.at(2, 3, 7)));
+        assertEquals(Integer.valueOf(1), slab0.occupantAt(UnitIndex.at(2, 3, -1)));
+        assertEquals(Integer.valueOf(1), slab0.occupantAt(UnitIndex.at(2, 3, 7)));
+        assertEquals(Integer.valueOf(2), decomposition.getSlab(1).occupantAt(UnitIndex.at(4, 5, 2)));
+
+        // Sites beyond the halo are not visible...
+        try {
+            slab0.occupantAt(UnitIndex.at(0, 0, 4));
+            fail("Expected an exception.");
+        }
+        catch (IllegalArgumentException ex) {
+            // Expected...
+        }
+
+        // A move across the periodic boundary takes effect at the
+        // barrier...
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            decomposition.step(slab -> {
+                    if (slab.getOrdinal() == 3) {
+                        assertTrue(slab.move(UnitIndex.at(2, 3, 7), UnitIndex.at(2, 3, 8)));
+                        assertEquals(Integer.valueOf(1), slab.occupantAt(UnitIndex.at(2, 3, 7)));
+                    }
+                }, executor);
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        assertNull(slab3.occupantAt(UnitIndex.at(2, 3, 7)));
+        assertEquals(Integer.valueOf(1), slab0.occupantAt(UnitIndex.at(2, 3, 0)));
+        assertEquals(Integer.valueOf(1), slab3.occupantAt(UnitIndex.at(2, 3, 8)));
+        assertEquals(1, slab0.countOccupants());
+        assertEquals(0, slab3.countOccupants());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testThinSlabs() {
+        Lattice lattice = Lattice.create(UnitCell.cubic(1.0), Period.cubic(8));
+        SlabDecomposition.create(Population.empty(lattice), 9, 1);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.tipplerow.jam.math.Point;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class SparsePopulationTest {
+    @Test public void testBasic() {
+        SparsePopulation<String> population = SparsePopulation.empty(UnitCell.square(1.0));
+
+        assertTrue(population.isEmpty());
+        assertEquals(0, population.countChunks());
+
+        assertNull(population.place("A", UnitIndex.at(0, 0)));
+        assertNull(population.place("B", UnitIndex.at(-1, 0)));
+        assertNull(population.place("C", UnitIndex.at(0, 1)));
+        assertNull(population.place("D", Point.at(1000000.0, -2000000.0)));
+
+        // No periodic images...
+        assertNull(population.occupantAt(UnitIndex.at(64, 0)));
+
+        assertEquals(4, population.countOccupants());
+        assertEquals(3, population.countChunks());
+
+        assertEquals("D", population.occupantAt(UnitIndex.at(1000000, -2000000)));
+        assertEquals(Point.at(1000000.0, -2000000.0), population.locate("D"));
+
+        assertEquals(new HashSet<>(List.of("B", "C")), new HashSet<>(population.neighborsOf("A")));
+        assertEquals(List.of("A"), population.neighborsOf("B"));
+
+        assertEquals(List.of(UnitIndex.at(0, -1), UnitIndex.at(1, 0)),
+                     population.unoccupiedNeighbors(UnitIndex.at(0, 0)));
+
+        // Move "D" next to "A" and release its chunk...
+        assertNull(population.place("D", UnitIndex.at(1, 0)));
+
+        assertEquals(2, population.countChunks());
+        assertNull(population.occupantAt(UnitIndex.at(1000000, -2000000)));
+        assertEquals(new HashSet<>(List.of("B", "C", "D")), new HashSet<>(population.neighborsOf("A")));
+
+        assertEquals("A", population.place("E", UnitIndex.at(0, 0)));
+        assertFalse(population.contains("A"));
+
+        population.remove("B");
+
+        assertEquals(1, population.countChunks());
+        assertEquals(3, population.countOccupants());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        SparsePopulation<String> population = SparsePopulation.empty(UnitCell.cubic(1.0));
+        population.place("A", UnitIndex.at(0, 1 << 24, 0));
+    }
+
+    @Test public void testRandom() {
+        Random random = new Random(13579);
+
+        for (UnitCellType cellType : UnitCellType.values()) {
+            UnitCell unitCell = cellType.fundamental();
+            SparsePopulation<Integer> population = SparsePopulation.empty(unitCell);
+            Map<UnitIndex, Integer> expected = new HashMap<>();
+
+            for (int trial = 0; trial < 5000; ++trial) {
+                Integer occupant = random.nextInt(500);
+                UnitIndex prevIndex = population.indexOf(occupant);
+
+                if (prevIndex != null)
+                    expected.remove(prevIndex);
+
+                if (random.nextInt(3) == 0) {
+                    population.remove(occupant);
+                }
+                else {
+                    int[] coords = new int[unitCell.dimensionality()];
+
+                    for (int dim = 0; dim < coords.length; ++dim)
+                        coords[dim] = random.nextInt(200) - 100;
+
+                    UnitIndex index = UnitIndex.at(coords);
+
+                    population.place(occupant, index);
+                    expected.put(index, occupant);
+                }
+            }
+
+            assertEquals(expected.size(), population.countOccupants());
+
+            for (var entry : expected.entrySet()) {
+                UnitIndex index = entry.getKey();
+
+                assertEquals(entry.getValue(), population.occupantAt(index));
+                assertEquals(index, population.indexOf(entry.getValue()));
+
+                HashSet<Integer> neighbors = new HashSet<>();
+
+                for (UnitIndex neighbor : unitCell.getNeighbors(index))
+                    if (expected.containsKey(neighbor))
+                        neighbors.add(expected.get(neighbor));
+
+                assertEquals(new HashSet<>(population.neighborsOf(entry.getValue())), neighbors);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 Scott Shaffer - All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tipplerow.jam.bravais;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.*;
+
+public class SpeciesPopulationTest {
+    private static final int TUMOR  = 0;
+    private static final int STROMA = 1;
+    private static final int IMMUNE = 2;
+
+    @Test public void testBasic() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        SpeciesPopulation<String> population = SpeciesPopulation.empty(lattice, 3);
+
+        assertTrue(population.isEmpty());
+        assertEquals(3, population.countSpecies());
+
+        assertNull(population.place("A", TUMOR,  UnitIndex.at(1, 1)));
+        assertNull(population.place("B", TUMOR,  UnitIndex.at(2, 1)));
+        assertNull(population.place("C", STROMA, UnitIndex.at(1, 2)));
+        assertNull(population.place("D", IMMUNE, UnitIndex.at(8, 1)));
+
+        assertEquals(4, population.countOccupants());
+        assertEquals(2, population.countOccupants(TUMOR));
+        assertEquals(1, population.countOccupants(STROMA));
+        assertEquals(1, population.countOccupants(IMMUNE));
+
+        assertEquals(TUMOR,  population.speciesOf("A"));
+        assertEquals(STROMA, population.speciesAt(UnitIndex.at(1, -2)));
+        assertEquals(IMMUNE, population.speciesAt(UnitIndex.at(3, 1)));
+        assertEquals(SpeciesPopulation.VACANT, population.speciesAt(UnitIndex.at(0, 0)));
+        assertEquals(SpeciesPopulation.VACANT, population.speciesOf("Z"));
+
+        assertEquals(UnitIndex.at(8, 1), population.indexOf("D"));
+        assertEquals("D", population.occupantAt(UnitIndex.at(3, 1)));
+
+        UnitIndex center = UnitIndex.at(1, 1);
+
+        assertEquals(1, population.countNeighbors(center, TUMOR));
+        assertEquals(1, population.countNeighbors(center, STROMA));
+        assertEquals(0, population.countNeighbors(center, IMMUNE));
+        assertEquals(1, population.countNeighbors(UnitIndex.at(2, 1), IMMUNE));
+
+        List<String> neighbors = new ArrayList<>();
+        population.forEachNeighbor(center, TUMOR, neighbors::add);
+        assertEquals(List.of("B"), neighbors);
+
+        // "E" at (6, 1) has periodic image (1, 1), so it displaces "A"...
+        assertEquals("A", population.place("E", IMMUNE, UnitIndex.at(6, 1)));
+
+        assertFalse(population.contains("A"));
+        assertEquals(IMMUNE, population.speciesAt(center));
+        assertEquals(1, population.countOccupants(TUMOR));
+        assertEquals(2, population.countOccupants(IMMUNE));
+
+        // Move "B" and change its species...
+        assertNull(population.place("B", STROMA, UnitIndex.at(4, 3)));
+
+        assertEquals(0, population.countOccupants(TUMOR));
+        assertEquals(2, population.countOccupants(STROMA));
+        assertEquals(STROMA, population.speciesOf("B"));
+        assertEquals(SpeciesPopulation.VACANT, population.speciesAt(UnitIndex.at(2, 1)));
+
+        population.remove("C");
+
+        assertEquals(3, population.countOccupants());
+        assertEquals(1, population.countOccupants(STROMA));
+        assertEquals("B", population.selectOccupant(STROMA, new Random(1)));
+        assertNull(population.selectOccupant(TUMOR, new Random(1)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSpecies() {
+        Lattice lattice = Lattice.create(UnitCell.square(1.0), Period.box(5, 4));
+        SpeciesPopulation<String> population = SpeciesPopulation.empty(lattice, 3);
+
+        population.place("A", 3, UnitIndex.at(0, 0));
+    }
+
+    @Test public void testSelect() {
+        Lattice lattice = Lattice.create(UnitCell.FCC(1.0), Period.cubic(4));
+        SpeciesPopulation<Integer> population = SpeciesPopulation.empty(lattice, 2);
+        List<UnitIndex> sites = lattice.getPeriod().enumerate();
+
+        for (int occupant = 0; occupant < sites.size(); ++occupant)
+            population.place(occupant, occupant % 2, sites.get(occupant));
+
+        Random random = new Random(42);
+        Set<Integer> selected = new HashSet<>();
+
+        for (int trial = 0; trial < 2000; ++trial) {
+            Integer occupant = population.selectOccupant(1, random);
+
+            assertEquals(1, occupant % 2);
+            selected.add(occupant);
+        }
+
+        assertEquals(sites.size() / 2, selected.size());
+    }
+}
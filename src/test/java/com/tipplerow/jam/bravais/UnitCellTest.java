@@ -15,6 +15,9 @@
  */
 package com.tipplerow.jam.bravais;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import com.tipplerow.jam.math.Point;
 
 import org.testng.annotations.Test;
@@ -23,6 +26,68 @@ import static org.testng.Assert.*;
 public class UnitCellTest {
     private static final double ROOT3 = Math.sqrt(3.0);
 
+    @Test public void testBatch2D() {
+        Random random = new Random(20211103);
+
+        for (UnitCell2D cell : new UnitCell2D[] { new HexagonalUnitCell(1.5), new SquareUnitCell(0.5) }) {
+            int n = 100;
+            double[] x = new double[n + 3];
+            double[] y = new double[n + 3];
+            int[] i = new int[n];
+            int[] j = new int[n];
+
+            for (int m = 0; m < n; ++m) {
+                x[m] = 20.0 * (random.nextDouble() - 0.5);
+                y[m] = 20.0 * (random.nextDouble() - 0.5);
+            }
+
+            cell.indexOf(x, y, i, j, n);
+
+            for (int m = 0; m < n; ++m)
+                assertEquals(UnitIndex.at(i[m], j[m]), cell.indexOf(Point.at(x[m], y[m])));
+
+            cell.pointAt(i, j, x, y, n);
+
+            for (int m = 0; m < n; ++m)
+                assertEquals(Point.at(x[m], y[m]), cell.pointAt(UnitIndex.at(i[m], j[m])));
+        }
+    }
+
+    @Test public void testBatch3D() {
+        Random random = new Random(20211103);
+
+        for (UnitCell3D cell : new UnitCell3D[] { new BCCUnitCell(1.5), new FCCUnitCell(2.0), new SimpleCubicUnitCell(0.5) }) {
+            int n = 100;
+            double[] x = new double[n];
+            double[] y = new double[n];
+            double[] z = new double[n];
+            int[] i = new int[n];
+            int[] j = new int[n];
+            int[] k = new int[n];
+
+            for (int m = 0; m < n; ++m) {
+                x[m] = 20.0 * (random.nextDouble() - 0.5);
+                y[m] = 20.0 * (random.nextDouble() - 0.5);
+                z[m] = 20.0 * (random.nextDouble() - 0.5);
+            }
+
+            cell.indexOf(x, y, z, i, j, k, n);
+
+            for (int m = 0; m < n; ++m)
+                assertEquals(UnitIndex.at(i[m], j[m], k[m]), cell.indexOf(Point.at(x[m], y[m], z[m])));
+
+            cell.pointAt(i, j, k, x, y, z, n);
+
+            for (int m = 0; m < n; ++m)
+                assertEquals(Point.at(x[m], y[m], z[m]), cell.pointAt(UnitIndex.at(i[m], j[m], k[m])));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBatchLength() {
+        new FCCUnitCell(1.0).indexOf(new double[10], new double[10], new double[9], new int[10], new int[10], new int[10], 10);
+    }
+
     @Test public void testLinear() {
         UnitCell cell = UnitCell.linear(2.5);
 
@@ -69,6 +134,105 @@ public class UnitCellTest {
         validateNeighbors(cell);
     }
 
+    @Test public void testNearestIndex() {
+        Random random = new Random(20211110);
+
+        UnitCell[] cells = new UnitCell[] {
+            UnitCell.hexagonal(1.5), UnitCell.square(0.5), UnitCell.BCC(2.0), UnitCell.FCC(1.0), UnitCell.cubic(0.5)
+        };
+
+        for (UnitCell cell : cells) {
+            int dim = cell.dimensionality();
+            int n = 2000;
+            int rounded = 0;
+
+            double[][] coords = new double[3][n];
+            int[][] indexes = new int[3][n];
+
+            for (int m = 0; m < n; ++m) {
+                for (int d = 0; d < dim; ++d)
+                    coords[d][m] = 10.0 * (random.nextDouble() - 0.5);
+
+                Point point = Point.at(Arrays.copyOf(new double[] { coords[0][m], coords[1][m], coords[2][m] }, dim));
+                UnitIndex nearest = cell.nearestIndex(point);
+
+                assertEquals(cell.pointAt(nearest).distance(point), bruteForceDistance(cell, point), 1.0E-12);
+
+                if (cell.indexOf(point).equals(nearest))
+                    ++rounded;
+            }
+
+            if (cell instanceof UnitCell2D)
+                ((UnitCell2D) cell).nearestIndex(coords[0], coords[1], indexes[0], indexes[1], n);
+            else
+                ((UnitCell3D) cell).nearestIndex(coords[0], coords[1], coords[2], indexes[0], indexes[1], indexes[2], n);
+
+            for (int m = 0; m < n; ++m) {
+                Point point = Point.at(Arrays.copyOf(new double[] { coords[0][m], coords[1][m], coords[2][m] }, dim));
+                int[] batch = Arrays.copyOf(new int[] { indexes[0][m], indexes[1][m], indexes[2][m] }, dim);
+
+                assertEquals(UnitIndex.at(batch), cell.nearestIndex(point));
+            }
+
+            // Independent rounding is exact only for orthogonal cells...
+            if (cell instanceof SquareUnitCell || cell instanceof SimpleCubicUnitCell)
+                assertEquals(rounded, n);
+            else
+                assertTrue(rounded < n);
+        }
+    }
+
+    @Test public void testNearestIndexOffset() {
+        Random random = new Random(20211212);
+        int n = 100;
+        int from = 37;
+
+        double[][] coords = new double[3][from + n];
+        int[][] indexes = new int[3][n];
+
+        for (double[] coord : coords)
+            for (int m = 0; m < coord.length; ++m)
+                coord[m] = 10.0 * (random.nextDouble() - 0.5);
+
+        UnitCell2D hexagonal = (UnitCell2D) UnitCell.hexagonal(1.5);
+        hexagonal.nearestIndex(coords[0], coords[1], from, indexes[0], indexes[1], n);
+
+        for (int m = 0; m < n; ++m)
+            assertEquals(UnitIndex.at(indexes[0][m], indexes[1][m]),
+                         hexagonal.nearestIndex(Point.at(coords[0][from + m], coords[1][from + m])));
+
+        UnitCell3D fcc = (UnitCell3D) UnitCell.FCC(1.0);
+        fcc.nearestIndex(coords[0], coords[1], coords[2], from, indexes[0], indexes[1], indexes[2], n);
+
+        for (int m = 0; m < n; ++m)
+            assertEquals(UnitIndex.at(indexes[0][m], indexes[1][m], indexes[2][m]),
+                         fcc.nearestIndex(Point.at(coords[0][from + m], coords[1][from + m], coords[2][from + m])));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNearestIndexRange() {
+        ((UnitCell3D) UnitCell.FCC(1.0)).nearestIndex(new double[10], new double[10], new double[10], 5,
+                                                      new int[6], new int[6], new int[6], 6);
+    }
+
+    private static double bruteForceDistance(UnitCell cell, Point point) {
+        UnitIndex center = cell.indexOf(point);
+        int dim = cell.dimensionality();
+        int count = (int) Math.pow(5, dim);
+        double result = Double.POSITIVE_INFINITY;
+
+        for (int combo = 0; combo < count; ++combo) {
+            int[] coords = new int[dim];
+
+            for (int d = 0, rem = combo; d < dim; ++d, rem /= 5)
+                coords[d] = center.coord(d) + rem % 5 - 2;
+
+            result = Math.min(result, cell.pointAt(UnitIndex.at(coords)).distance(point));
+        }
+
+        return result;
+    }
+
     @Test public void testSquare() {
         UnitCell cell = UnitCell.square(2.5);
 